@@ -0,0 +1,12 @@
+package net.nemerosa.jenkins.seed;
+
+public class CannotMoveItemException extends SeedException {
+    public CannotMoveItemException(String from, String to, Exception e) {
+        super(
+                e,
+                "Cannot move item at %s to %s",
+                from,
+                to
+        );
+    }
+}
@@ -9,5 +9,7 @@ public class Constants {
     public static final String COMMIT_PARAMETER = "COMMIT";
     public static final String AUTHOR_ID_PARAMETER = "AUTHOR_ID";
     public static final String AUTHOR_NAME_PARAMETER = "AUTHOR_NAME";
+    public static final String PIPELINE_SLOT_PARAMETER = "PIPELINE_SLOT";
+    public static final String TAG_PARAMETER = "TAG";
 
 }
@@ -3,6 +3,7 @@ package net.nemerosa.jenkins.seed;
 import hudson.Extension;
 import jenkins.model.GlobalConfiguration;
 import net.sf.json.JSONObject;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 /**
@@ -11,6 +12,29 @@ import org.kohsuke.stapler.StaplerRequest;
 @Extension
 public class SeedPlugin extends GlobalConfiguration {
 
+    /**
+     * Number of days without any seed event after which a branch folder is hibernated.
+     * Hibernation is disabled when 0 or less.
+     */
+    private int hibernationDays = 0;
+
+    /**
+     * Number of builds kept per job in the archive of a hibernated branch folder
+     */
+    private int hibernationKeptBuilds = 5;
+
+    /**
+     * Directory through which the project configurations are shared with other controllers.
+     * Sharing is disabled when blank.
+     */
+    private String sharedCacheDirectory;
+
+    /**
+     * Line separated list of authorisation roles, as <code>role=permission,permission</code>, which
+     * can be referred to by the compact authorisations of the projects.
+     */
+    private String authorisationRoles;
+
     public static SeedPlugin getSeedPlugin() {
         return GlobalConfiguration.all().get(SeedPlugin.class);
     }
@@ -19,10 +43,47 @@ public class SeedPlugin extends GlobalConfiguration {
         load();
     }
 
+    public int getHibernationDays() {
+        return hibernationDays;
+    }
+
+    @DataBoundSetter
+    public void setHibernationDays(int hibernationDays) {
+        this.hibernationDays = hibernationDays;
+    }
+
+    public int getHibernationKeptBuilds() {
+        return hibernationKeptBuilds;
+    }
+
+    @DataBoundSetter
+    public void setHibernationKeptBuilds(int hibernationKeptBuilds) {
+        this.hibernationKeptBuilds = hibernationKeptBuilds;
+    }
+
+    public String getSharedCacheDirectory() {
+        return sharedCacheDirectory;
+    }
+
+    @DataBoundSetter
+    public void setSharedCacheDirectory(String sharedCacheDirectory) {
+        this.sharedCacheDirectory = sharedCacheDirectory;
+    }
+
+    public String getAuthorisationRoles() {
+        return authorisationRoles;
+    }
+
+    @DataBoundSetter
+    public void setAuthorisationRoles(String authorisationRoles) {
+        this.authorisationRoles = authorisationRoles;
+    }
+
     @Override
     public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        req.bindJSON(this, json);
         save();
-        return super.configure(req, json);
+        return true;
     }
 
 }
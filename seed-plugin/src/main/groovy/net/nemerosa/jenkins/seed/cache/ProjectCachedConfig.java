@@ -1,27 +1,95 @@
 package net.nemerosa.jenkins.seed.cache;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.nemerosa.jenkins.seed.config.EventStrategyConfig;
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig;
 import net.nemerosa.jenkins.seed.config.PipelineConfig;
 import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import net.nemerosa.jenkins.seed.config.SeedItem;
 import net.nemerosa.jenkins.seed.triggering.SeedChannel;
 import org.apache.commons.lang.StringUtils;
 
-import static java.lang.String.format;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Part of the configuration of a project which is needed by the triggers: trigger settings, naming
+ * and event strategies.
+ * <p>
+ * Most projects share the same strategies, so equal strategies are shared by all the cached projects.
+ */
 @Data
 public class ProjectCachedConfig {
 
+    /**
+     * Maximum number of branches whose paths are kept for each project
+     */
+    private static final int BRANCH_PATHS_SIZE = Integer.getInteger(ProjectCachedConfig.class.getName() + ".branchPaths", 64);
+
+    private static final Interner<NamingStrategyConfig> NAMING_STRATEGIES = Interners.newWeakInterner();
+    private static final Interner<EventStrategyConfig> EVENT_STRATEGIES = Interners.newWeakInterner();
+
     private final ProjectSeed seed;
-    private final PipelineConfig pipelineConfig;
+    private final NamingStrategyConfig namingStrategy;
+    private final EventStrategyConfig eventStrategy;
+
+    /**
+     * Full configuration, only read from the caches saved before the projection
+     */
+    @Deprecated
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient PipelineConfig pipelineConfig;
+
+    /**
+     * Paths resolved for the most recently used branches. Since a configuration is never modified
+     * but replaced, the paths never need to be invalidated.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile Map<String, BranchPaths> branchPaths;
 
     public ProjectCachedConfig(String project) {
-        this.seed = new ProjectSeed(project, "", "", "");
-        this.pipelineConfig = new PipelineConfig();
+        this(new ProjectSeed(project, "", "", ""), new PipelineConfig());
     }
 
     public ProjectCachedConfig(ProjectSeed seed, PipelineConfig pipelineConfig) {
+        this(seed, pipelineConfig.getNamingStrategy(), pipelineConfig.getEventStrategy());
+    }
+
+    public ProjectCachedConfig(ProjectSeed seed, NamingStrategyConfig namingStrategy, EventStrategyConfig eventStrategy) {
         this.seed = seed;
-        this.pipelineConfig = pipelineConfig;
+        this.namingStrategy = NAMING_STRATEGIES.intern(namingStrategy != null ? namingStrategy : new NamingStrategyConfig());
+        this.eventStrategy = EVENT_STRATEGIES.intern(eventStrategy != null ? eventStrategy : new EventStrategyConfig());
+    }
+
+    /**
+     * Shares the strategies read from the saved cache and migrates the full configurations
+     */
+    private Object readResolve() {
+        if (pipelineConfig != null) {
+            return new ProjectCachedConfig(seed, pipelineConfig);
+        } else {
+            return new ProjectCachedConfig(seed, namingStrategy, eventStrategy);
+        }
+    }
+
+    /**
+     * Pipeline configuration with the cached strategies only
+     */
+    public PipelineConfig getPipelineConfig() {
+        return new PipelineConfig()
+                .withNamingStrategy(namingStrategy)
+                .withEventStrategy(eventStrategy);
     }
 
     public boolean isChannelEnabled(SeedChannel channel) {
@@ -33,42 +101,106 @@ public class ProjectCachedConfig {
         return seed.getTriggerSecret();
     }
 
+    public String getProjectFolder() {
+        return namingStrategy.getProjectFolder(seed.getProject());
+    }
+
     public String getProjectSeedJob() {
-        return format(
-                "%s/%s",
-                pipelineConfig.getProjectFolder(seed.getProject()),
-                pipelineConfig.getProjectSeedJob(seed.getProject())
-        );
+        return namingStrategy.getProjectFolder(seed.getProject())
+                + "/" + namingStrategy.getProjectSeedJob(seed.getProject());
+    }
+
+    public String getBranchFolder(String branch) {
+        return getBranchPaths(branch).getFolder();
     }
 
     public String getBranchSeedJob(String branch) {
-        return format(
-                "%s/%s/%s",
-                pipelineConfig.getProjectFolder(seed.getProject()),
-                pipelineConfig.getBranchFolderPath(seed.getProject(), branch),
-                pipelineConfig.getBranchSeedName(seed.getProject(), branch)
-        );
+        return getBranchPaths(branch).getSeedJob();
     }
 
     public boolean isDelete() {
-        return pipelineConfig.getEventStrategy().isDelete();
+        return eventStrategy.isDelete();
     }
 
     public boolean isAuto() {
-        return pipelineConfig.getEventStrategy().isAuto();
+        return eventStrategy.isAuto();
     }
 
     public boolean isTrigger() {
-        return pipelineConfig.getEventStrategy().isTrigger();
+        return eventStrategy.isTrigger();
+    }
+
+    public int getPullRequestSlots() {
+        return eventStrategy.getPullRequestSlots();
+    }
+
+    /**
+     * Path to the shared release pipeline for the tags, or <code>null</code> if tags are managed like branches.
+     */
+    public String getTagPipelineJob() {
+        String tagPipeline = eventStrategy.getTagPipeline();
+        if (StringUtils.isBlank(tagPipeline)) {
+            return null;
+        } else {
+            return namingStrategy.getProjectFolder(seed.getProject()) + "/" + StringUtils.strip(tagPipeline.trim(), "/");
+        }
     }
 
     public String getBranchStartJob(String branch) {
-        return format(
-                "%s/%s/%s",
-                pipelineConfig.getProjectFolder(seed.getProject()),
-                pipelineConfig.getBranchFolderPath(seed.getProject(), branch),
-                pipelineConfig.getBranchStartName(seed.getProject(), branch)
-        );
+        return getBranchPaths(branch).getStartJob();
+    }
+
+    /**
+     * Resolves an item of this project from its full name.
+     *
+     * @return Resolved item, or <code>null</code> if the item is not in the project folder
+     */
+    public SeedItem resolveItem(String fullName) {
+        return namingStrategy.resolve(seed.getProject(), fullName);
+    }
+
+    private BranchPaths getBranchPaths(String branch) {
+        Map<String, BranchPaths> cache = getBranchPathsCache();
+        BranchPaths paths = cache.get(branch);
+        if (paths == null) {
+            String project = seed.getProject();
+            String folder = namingStrategy.getProjectFolder(project)
+                    + "/" + namingStrategy.getBranchFolderPath(project, branch);
+            paths = new BranchPaths(
+                    folder,
+                    folder + "/" + namingStrategy.getBranchSeedName(project, branch),
+                    folder + "/" + namingStrategy.getBranchStartName(project, branch)
+            );
+            cache.put(branch, paths);
+        }
+        return paths;
+    }
+
+    private Map<String, BranchPaths> getBranchPathsCache() {
+        // Not set when read from the saved cache
+        Map<String, BranchPaths> cache = branchPaths;
+        if (cache == null) {
+            synchronized (this) {
+                cache = branchPaths;
+                if (cache == null) {
+                    cache = Collections.synchronizedMap(new LinkedHashMap<String, BranchPaths>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, BranchPaths> eldest) {
+                            return size() > BRANCH_PATHS_SIZE;
+                        }
+                    });
+                    branchPaths = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    @Data
+    private static class BranchPaths {
+        private final String folder;
+        private final String seedJob;
+        private final String startJob;
     }
 
 }
@@ -17,4 +17,37 @@ public interface ProjectSeedCache {
      */
     ProjectCachedConfig getProjectPipelineConfig(String project);
 
+    /**
+     * Gets the pull request slot leased by a branch.
+     *
+     * @return Name of the slot or <code>null</code> if the branch did not lease any slot
+     */
+    String getPullRequestSlot(String project, String branch);
+
+    /**
+     * Leases a pull request slot for a branch.
+     *
+     * @param size Number of slots for the project
+     * @return Name of the leased slot (the same one if the branch has already leased one) or
+     * <code>null</code> if all slots are leased
+     */
+    String leasePullRequestSlot(String project, String branch, int size);
+
+    /**
+     * Releases the pull request slot leased by a branch.
+     *
+     * @return Name of the released slot or <code>null</code> if the branch did not lease any slot
+     */
+    String releasePullRequestSlot(String project, String branch);
+
+    /**
+     * Checks if the cache has been loaded and can be accessed without waiting.
+     */
+    boolean isReady();
+
+    /**
+     * Waits for the cache to be loaded.
+     */
+    void awaitReady() throws InterruptedException;
+
 }
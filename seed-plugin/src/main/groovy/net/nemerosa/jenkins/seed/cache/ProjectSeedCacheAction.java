@@ -0,0 +1,119 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.config.SeedItem;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+
+/**
+ * Read-only view of the {@link ProjectSeedCacheDescriptor} at <code>seed-cache-api/</code>, with the
+ * lookup counters and one page of the cached projects, sorted by key. The page is selected with the
+ * <code>start</code> and <code>limit</code> parameters.
+ * <p>
+ * The trigger secrets are never exposed.
+ * <p>
+ * The project, branch and role of any item are resolved at <code>seed-cache-api/resolve?item=</code>.
+ */
+@Extension
+public class ProjectSeedCacheAction implements RootAction {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "seed-cache-api";
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
+        SeedMetrics metrics = SeedContainer.getInstance(SeedMetrics.class);
+        ProjectSeedCacheStatistics statistics = descriptor.getStatistics();
+
+        int start = Math.max(0, NumberUtils.toInt(req.getParameter("start"), 0));
+        int limit = Math.max(0, Math.min(MAX_LIMIT, NumberUtils.toInt(req.getParameter("limit"), DEFAULT_LIMIT)));
+        JSONArray entries = new JSONArray();
+        for (String key : descriptor.getKeys(start, limit)) {
+            // Configurations of the binary snapshot are not kept decoded
+            ProjectCachedConfig config = descriptor.inspectConfiguration(key);
+            if (config != null) {
+                entries.add(toJson(key, config, statistics.get(key)));
+            }
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("size", descriptor.getKeyCount());
+        json.put("start", start);
+        json.put("limit", limit);
+        json.put("hits", metrics.get("cache.hit"));
+        json.put("misses", metrics.get("cache.miss"));
+        json.put("defaultFallbacks", metrics.get("cache.defaultFallback"));
+        json.put("approximateSize", statistics.getApproximateSize());
+        json.put("mappedSize", descriptor.getMappedSize());
+        json.put("entries", entries);
+        rsp.setStatus(StaplerResponse.SC_OK);
+        rsp.setContentType("application/json");
+        json.write(rsp.getWriter());
+    }
+
+    public void doResolve(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        String fullName = StringUtils.strip(StringUtils.trimToEmpty(req.getParameter("item")), "/");
+        if (StringUtils.isBlank(fullName)) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, "Missing item parameter");
+            return;
+        }
+        SeedItem item = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class).resolveItem(fullName);
+        JSONObject json = new JSONObject();
+        json.put("item", fullName);
+        json.put("managed", item != null);
+        if (item != null) {
+            json.put("project", item.getProject());
+            if (item.getBranch() != null) {
+                json.put("branch", item.getBranch());
+            }
+            json.put("role", item.getRole().name());
+        }
+        rsp.setStatus(StaplerResponse.SC_OK);
+        rsp.setContentType("application/json");
+        json.write(rsp.getWriter());
+    }
+
+    private static JSONObject toJson(String key, ProjectCachedConfig config, ProjectSeedCacheStatistics.EntryStatistics entryStatistics) {
+        JSONObject json = new JSONObject();
+        json.put("key", key);
+        json.put("project", config.getSeed().getProject());
+        json.put("triggerIdentifier", config.getSeed().getTriggerIdentifier());
+        json.put("triggerType", config.getSeed().getTriggerType());
+        json.put("projectFolder", config.getProjectFolder());
+        json.put("projectSeedJob", config.getProjectSeedJob());
+        if (entryStatistics != null) {
+            json.put("approximateSize", entryStatistics.getApproximateSize());
+            if (entryStatistics.getLastAccess() > 0) {
+                json.put("lastAccess", entryStatistics.getLastAccess());
+            }
+        }
+        return json;
+    }
+}
@@ -0,0 +1,34 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import java.util.Map;
+
+/**
+ * Backend of the {@link ProjectSeedCache} shared by several controllers. The configurations saved
+ * by the project seeds of this controller are published to it, and the projects which are not known
+ * locally are looked up in it.
+ *
+ * @see SharedProjectSeedCache
+ */
+public interface ProjectSeedCacheBackend {
+
+    /**
+     * Gets the published configuration of a project, or <code>null</code> if none
+     */
+    ProjectCachedConfig get(String key);
+
+    /**
+     * Publishes the configuration of a project
+     */
+    void publish(String key, ProjectCachedConfig config);
+
+    /**
+     * Publishes several configurations
+     */
+    void publish(Map<String, ProjectCachedConfig> configs);
+
+    /**
+     * Withdraws the configuration of a project, if published by this controller
+     */
+    void withdraw(String key);
+
+}
@@ -1,33 +1,294 @@
 package net.nemerosa.jenkins.seed.cache;
 
+import hudson.BulkChange;
 import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
 import hudson.model.Item;
 import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
 import net.nemerosa.jenkins.seed.config.PipelineConfig;
 import net.nemerosa.jenkins.seed.config.ProjectParameters;
 import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import net.nemerosa.jenkins.seed.config.SeedItem;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Descriptor used to hold the index of all projects and their associated configuration.
+ * <p>
+ * The index is read without any lock by the triggers. Each project configuration is an immutable
+ * {@link ProjectCachedConfig} which is replaced atomically, so that an event always works on one
+ * consistent version of the configuration.
+ * <p>
+ * Changes are not saved by rewriting the whole index but appended to a {@linkplain ProjectSeedJournal journal},
+ * which is regularly compacted into the XML file of the descriptor.
+ * <p>
+ * Optionally, the cache is compacted into a {@linkplain ProjectSeedSnapshot binary snapshot} instead, whose
+ * configurations are only decoded when a project is looked up. The most recent of the XML file and of the
+ * binary snapshot is loaded, so that the cache is migrated when the option is switched on or off.
+ * <p>
+ * The cache is loaded in the background once the plug-ins are started, so that it does not delay the startup
+ * of Jenkins. Until it is {@linkplain #isLoaded() loaded}, all the accesses wait for the loading to be complete,
+ * except the removals of items, which are applied at the end of the loading so that deleting or moving items
+ * is never blocked.
+ * <p>
+ * The saved and evicted configurations are also published to the {@link ProjectSeedCacheBackend}.
  */
 @Extension
 public class ProjectSeedCacheDescriptor extends Descriptor<ProjectSeedCacheDescriptor> implements Describable<ProjectSeedCacheDescriptor> {
 
+    private static final Logger LOGGER = Logger.getLogger(ProjectSeedCacheDescriptor.class.getName());
+
+    /**
+     * Minimum number of records in the journal before it is compacted
+     */
+    private static final int COMPACTION_THRESHOLD = Integer.getInteger(ProjectSeedCacheDescriptor.class.getName() + ".compactionThreshold", 1000);
+
+    /**
+     * Compacts the cache into a binary snapshot instead of the XML file
+     */
+    private static /* non-final for Groovy */ boolean BINARY_SNAPSHOT = Boolean.getBoolean(ProjectSeedCacheDescriptor.class.getName() + ".binarySnapshot");
+
+    private static final String PROJECT_RECORD = "project";
+    private static final String SLOTS_RECORD = "slots";
+
     /**
      * Index of project configurations
      */
-    private Map<String, ProjectCachedConfig> projectSeeds = new HashMap<>();
+    private volatile Map<String, ProjectCachedConfig> projectSeeds = new ConcurrentHashMap<>();
+
+    /**
+     * Leases of the pull request slots, indexed by project
+     */
+    private Map<String, PullRequestSlots> pullRequestSlots = new HashMap<>();
+
+    /**
+     * Keys of the index, by full name of the project folders and project seeds
+     */
+    private transient volatile Map<String, String> itemKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of the index, by project folder, to resolve any item
+     */
+    private transient volatile SeedItemIndex itemIndex = new SeedItemIndex();
+
+    /**
+     * Sorted keys of all the configurations, decoded or not, to page over them
+     */
+    private transient volatile NavigableSet<String> sortedKeys = new ConcurrentSkipListSet<>();
+
+    /**
+     * Number of sorted keys, changed with the lock on the journal
+     */
+    private transient volatile int keyCount;
+
+    /**
+     * First segment of the journal which is not part of the saved file
+     */
+    private int journalSegment;
+
+    private transient ProjectSeedJournal journal;
+
+    /**
+     * Binary snapshot holding the configurations not decoded yet, if any
+     */
+    private transient volatile ProjectSeedSnapshot snapshot;
+
+    /**
+     * Keys of the binary snapshot which have been removed since
+     */
+    private transient Set<String> snapshotRemovals = ConcurrentHashMap.newKeySet();
+
+    private final transient CountDownLatch loaded = new CountDownLatch(1);
+
+    private final transient AtomicBoolean loading = new AtomicBoolean();
+
+    /**
+     * Full names of the items removed while the cache is loading
+     */
+    private final transient List<String> pendingRemovals = new ArrayList<>();
+
+    private final transient ProjectSeedCacheStatistics statistics = new ProjectSeedCacheStatistics();
 
     public ProjectSeedCacheDescriptor() {
         super(ProjectSeedCacheDescriptor.class);
+    }
+
+    /**
+     * Starts loading the cache once the plug-ins are started
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void startLoadingCache() {
+        Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class).startLoading();
+    }
+
+    /**
+     * Starts loading the cache in the background, if not started yet
+     */
+    public void startLoading() {
+        if (loading.compareAndSet(false, true)) {
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed cache loading").newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        loadCache();
+                    } finally {
+                        finishLoading();
+                    }
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * Applies the removals of items received during the loading, then opens the cache
+     */
+    private void finishLoading() {
+        while (true) {
+            List<String> removals;
+            synchronized (pendingRemovals) {
+                if (pendingRemovals.isEmpty()) {
+                    loaded.countDown();
+                    return;
+                }
+                removals = new ArrayList<>(pendingRemovals);
+                pendingRemovals.clear();
+            }
+            for (String fullName : removals) {
+                try {
+                    removeItem(fullName);
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, String.format("Could not remove %s from the project seed cache", fullName), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the cache has been loaded
+     */
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    /**
+     * Waits for the cache to be loaded
+     */
+    public void waitForLoading() throws InterruptedException {
+        startLoading();
+        loaded.await();
+    }
+
+    /**
+     * Waits for the cache to be loaded, without being interrupted
+     */
+    private void ensureLoaded() {
+        // Accessed before the initialisation, in which case the cache is loaded right away
+        startLoading();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loadCache() {
+        journal = new ProjectSeedJournal(
+                new File(Jenkins.getInstance().getRootDir(), getId() + ".journal"),
+                Jenkins.XSTREAM2,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        compactIfNeeded();
+                    }
+                }
+        );
         load();
+        // Configurations saved before the index was concurrent
+        if (!(projectSeeds instanceof ConcurrentHashMap)) {
+            projectSeeds = new ConcurrentHashMap<>(projectSeeds);
+        }
+        boolean migrate = loadSnapshot();
+        itemKeys = new ConcurrentHashMap<>();
+        itemIndex = new SeedItemIndex();
+        indexItems(projectSeeds, itemKeys, itemIndex);
+        sortedKeys = new ConcurrentSkipListSet<>(projectSeeds.keySet());
+        for (Map.Entry<String, ProjectCachedConfig> entry : projectSeeds.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue());
+        }
+        if (snapshot != null) {
+            // Only the names are read at startup
+            for (int i = 0; i < snapshot.size(); i++) {
+                String key = snapshot.getKey(i);
+                itemKeys.put(snapshot.getProjectFolder(i), key);
+                itemKeys.put(snapshot.getProjectSeedJob(i), key);
+                itemIndex.put(snapshot.getProjectFolder(i), key);
+                sortedKeys.add(key);
+            }
+        }
+        keyCount = sortedKeys.size();
+        try {
+            int replayed = journal.replay(journalSegment, new ProjectSeedJournal.Replay() {
+                @Override
+                public void put(String type, String key, Object value) {
+                    if (PROJECT_RECORD.equals(type)) {
+                        putEntry(key, (ProjectCachedConfig) value);
+                    } else if (SLOTS_RECORD.equals(type)) {
+                        pullRequestSlots.put(key, (PullRequestSlots) value);
+                    }
+                }
+
+                @Override
+                public void remove(String type, String key) {
+                    if (PROJECT_RECORD.equals(type)) {
+                        removeEntry(key);
+                    } else if (SLOTS_RECORD.equals(type)) {
+                        pullRequestSlots.remove(key);
+                    }
+                }
+            });
+            if (replayed > 0) {
+                LOGGER.info(String.format("Replayed %d changes of the project seed cache", replayed));
+            }
+            if (replayed > 0 || migrate) {
+                saveCache();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // The journal opens its segment on the next flush
+            LOGGER.log(Level.SEVERE, "Cannot replay the journal of the project seed cache", ex);
+        }
     }
 
     @Override
@@ -41,21 +302,384 @@ public class ProjectSeedCacheDescriptor extends Descriptor<ProjectSeedCacheDescr
     }
 
     public void saveProjectConfiguration(ProjectParameters parameters, PipelineConfig config) {
-        projectSeeds.put(
-                getProjectTriggerIdentifierOrName(parameters),
-                new ProjectCachedConfig(
-                        new ProjectSeed(parameters),
-                        config
-                )
+        ensureLoaded();
+        String key = getProjectTriggerIdentifierOrName(parameters);
+        ProjectCachedConfig cachedConfig = new ProjectCachedConfig(
+                new ProjectSeed(parameters),
+                config
         );
+        // The journal must get the changes of an entry in the same order as the index
+        synchronized (journal) {
+            putEntry(key, cachedConfig);
+            journal.put(PROJECT_RECORD, key, cachedConfig);
+        }
+        getBackend().publish(key, cachedConfig);
+    }
+
+    /**
+     * Loads the binary snapshot if it is more recent than the XML file.
+     *
+     * @return <code>true</code> if the cache must be saved again in the selected format
+     */
+    private boolean loadSnapshot() {
+        File dir = getSnapshotDir();
+        ProjectSeedSnapshot latest = ProjectSeedSnapshot.openLatest(dir);
+        if (latest == null || latest.getSegment() <= journalSegment) {
+            // Binary snapshot missing or older than the XML file
+            return BINARY_SNAPSHOT;
+        }
+        journalSegment = latest.getSegment();
+        pullRequestSlots = decodeSlots(latest.getSlots());
+        projectSeeds = new ConcurrentHashMap<>();
+        if (BINARY_SNAPSHOT) {
+            snapshot = latest;
+            return false;
+        } else {
+            // Back to the XML file
+            for (int i = 0; i < latest.size(); i++) {
+                projectSeeds.put(latest.getKey(i), decode(latest.getRecord(i)));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Gets a configuration, decoding it from the binary snapshot if needed. Must be called
+     * with the lock on the journal.
+     */
+    private ProjectCachedConfig getEntry(String key) {
+        ProjectCachedConfig config = projectSeeds.get(key);
+        ProjectSeedSnapshot currentSnapshot = snapshot;
+        if (config == null && currentSnapshot != null && !snapshotRemovals.contains(key)) {
+            int index = currentSnapshot.indexOf(key);
+            if (index >= 0) {
+                config = decode(currentSnapshot.getRecord(index));
+                projectSeeds.put(key, config);
+                statistics.put(key, config);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Must be called with the lock on the journal
+     */
+    private void putEntry(String key, ProjectCachedConfig config) {
+        indexItems(itemKeys, itemIndex, key, getEntry(key), config);
+        projectSeeds.put(key, config);
+        if (sortedKeys.add(key)) {
+            keyCount++;
+        }
+        snapshotRemovals.remove(key);
+        statistics.put(key, config);
+    }
+
+    /**
+     * Must be called with the lock on the journal
+     *
+     * @return Removed configuration
+     */
+    private ProjectCachedConfig removeEntry(String key) {
+        ProjectCachedConfig removed = getEntry(key);
+        if (removed != null) {
+            projectSeeds.remove(key);
+            indexItems(itemKeys, itemIndex, key, removed, null);
+            if (sortedKeys.remove(key)) {
+                keyCount--;
+            }
+            statistics.remove(key);
+            if (snapshot != null) {
+                snapshotRemovals.add(key);
+            }
+        }
+        return removed;
+    }
+
+    private static ProjectCachedConfig decode(byte[] record) {
+        return (ProjectCachedConfig) Jenkins.XSTREAM2.fromXML(new String(record, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] encode(Object value) {
+        return Jenkins.XSTREAM2.toXML(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, PullRequestSlots> decodeSlots(byte[] slots) {
+        return (Map<String, PullRequestSlots>) Jenkins.XSTREAM2.fromXML(new String(slots, StandardCharsets.UTF_8));
+    }
+
+    private static ProjectSeedCacheBackend getBackend() {
+        return SeedContainer.getInstance(ProjectSeedCacheBackend.class);
+    }
+
+    private File getSnapshotDir() {
+        return new File(Jenkins.getInstance().getRootDir(), getId() + ".snapshot");
+    }
+
+    /**
+     * Replaces all the cached configurations at once and saves the whole cache.
+     *
+     * @see ProjectSeedCacheRebuild
+     */
+    public void replaceProjectConfigurations(Map<String, ProjectCachedConfig> configs) {
+        ensureLoaded();
+        Map<String, ProjectCachedConfig> newProjectSeeds = new ConcurrentHashMap<>(configs);
+        Map<String, String> newItemKeys = new ConcurrentHashMap<>();
+        SeedItemIndex newItemIndex = new SeedItemIndex();
+        indexItems(newProjectSeeds, newItemKeys, newItemIndex);
+        NavigableSet<String> newSortedKeys = new ConcurrentSkipListSet<>(newProjectSeeds.keySet());
+        synchronized (journal) {
+            projectSeeds = newProjectSeeds;
+            itemKeys = newItemKeys;
+            itemIndex = newItemIndex;
+            sortedKeys = newSortedKeys;
+            keyCount = newProjectSeeds.size();
+            snapshot = null;
+            snapshotRemovals.clear();
+            statistics.clear();
+            for (Map.Entry<String, ProjectCachedConfig> entry : newProjectSeeds.entrySet()) {
+                statistics.put(entry.getKey(), entry.getValue());
+            }
+        }
         save();
+        getBackend().publish(newProjectSeeds);
+    }
+
+    public boolean isEmpty() {
+        ensureLoaded();
+        if (!projectSeeds.isEmpty()) {
+            return false;
+        }
+        ProjectSeedSnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            for (int i = 0; i < currentSnapshot.size(); i++) {
+                if (!snapshotRemovals.contains(currentSnapshot.getKey(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the cached configuration when its project folder or project seed is deleted or moved.
+     * While the cache is loading, the removal is only recorded, so that the item operations are not blocked.
+     */
+    private void onItemRemoved(String fullName) {
+        synchronized (pendingRemovals) {
+            if (!isLoaded()) {
+                pendingRemovals.add(fullName);
+                return;
+            }
+        }
+        removeItem(fullName);
+    }
+
+    /**
+     * Removes the cached configuration of a project folder or project seed. Any other item is ignored
+     * without any lock.
+     */
+    private void removeItem(String fullName) {
+        String key = itemKeys.get(fullName);
+        if (key != null) {
+            synchronized (journal) {
+                ProjectCachedConfig current = getEntry(key);
+                if (current == null || !isIndexed(fullName, current)) {
+                    // Configuration replaced in the meantime
+                    return;
+                }
+                removeEntry(key);
+                journal.remove(PROJECT_RECORD, key);
+            }
+            getBackend().withdraw(key);
+            removePullRequestSlots(key);
+        }
+    }
+
+    private static boolean isIndexed(String fullName, ProjectCachedConfig config) {
+        return fullName.equals(config.getProjectFolder()) || fullName.equals(config.getProjectSeedJob());
+    }
+
+    /**
+     * Indexes the full names of all the configurations
+     */
+    private static void indexItems(Map<String, ProjectCachedConfig> configs, Map<String, String> keys, SeedItemIndex index) {
+        for (Map.Entry<String, ProjectCachedConfig> entry : configs.entrySet()) {
+            indexItems(keys, index, entry.getKey(), null, entry.getValue());
+        }
+    }
+
+    /**
+     * Replaces the full names indexed for a key
+     */
+    private static void indexItems(Map<String, String> keys, SeedItemIndex index, String key, ProjectCachedConfig previous, ProjectCachedConfig config) {
+        if (previous != null) {
+            keys.remove(previous.getProjectFolder(), key);
+            keys.remove(previous.getProjectSeedJob(), key);
+            index.remove(previous.getProjectFolder(), key);
+        }
+        if (config != null) {
+            keys.put(config.getProjectFolder(), key);
+            keys.put(config.getProjectSeedJob(), key);
+            index.put(config.getProjectFolder(), key);
+        }
     }
 
-    private static void removeProjectConfiguration(String name) {
+    private synchronized void removePullRequestSlots(String name) {
+        if (pullRequestSlots.remove(name) != null) {
+            journal.remove(SLOTS_RECORD, name);
+        }
+    }
+
+    /**
+     * Saves the whole cache and compacts the journal.
+     */
+    @Override
+    public void save() {
+        ensureLoaded();
+        saveCache();
+    }
+
+    private synchronized void saveCache() {
+        if (BulkChange.contains(this)) {
+            return;
+        }
+        try {
+            // Changes done from now on are replayed over the saved file
+            journalSegment = journal.rotate();
+            if (BINARY_SNAPSHOT) {
+                saveSnapshot();
+            } else {
+                getConfigFile().write(this);
+                SaveableListener.fireOnChange(this, getConfigFile());
+                ProjectSeedSnapshot.purge(getSnapshotDir(), Integer.MAX_VALUE);
+            }
+            journal.purge(journalSegment);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, String.format("Failed to save %s", getConfigFile()), ex);
+        }
+    }
+
+    /**
+     * Writes a new binary snapshot. The configurations which have not been decoded are copied as they are.
+     */
+    private void saveSnapshot() throws IOException {
+        Map<String, ProjectSeedSnapshot.Entry> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, ProjectCachedConfig> entry : projectSeeds.entrySet()) {
+            ProjectCachedConfig config = entry.getValue();
+            entries.put(entry.getKey(), new ProjectSeedSnapshot.Entry(
+                    entry.getKey(),
+                    config.getProjectFolder(),
+                    config.getProjectSeedJob(),
+                    encode(config)
+            ));
+        }
+        ProjectSeedSnapshot previous = snapshot;
+        if (previous != null) {
+            for (int i = 0; i < previous.size(); i++) {
+                String key = previous.getKey(i);
+                if (!entries.containsKey(key) && !snapshotRemovals.contains(key)) {
+                    entries.put(key, new ProjectSeedSnapshot.Entry(
+                            key,
+                            previous.getProjectFolder(i),
+                            previous.getProjectSeedJob(i),
+                            previous.getRecord(i)
+                    ));
+                }
+            }
+        }
+        File file = ProjectSeedSnapshot.write(
+                getSnapshotDir(),
+                journalSegment,
+                encode(new HashMap<>(pullRequestSlots)),
+                entries.values()
+        );
+        ProjectSeedSnapshot saved = ProjectSeedSnapshot.open(file);
+        synchronized (journal) {
+            // Removals of keys which are not in the new snapshot are not needed any longer
+            List<String> removals = new ArrayList<>(snapshotRemovals);
+            for (String key : removals) {
+                if (saved.indexOf(key) < 0) {
+                    snapshotRemovals.remove(key);
+                }
+            }
+            snapshot = saved;
+        }
+        ProjectSeedSnapshot.purge(getSnapshotDir(), journalSegment);
+    }
+
+    private void compactIfNeeded() {
+        ProjectSeedSnapshot currentSnapshot = snapshot;
+        int size = projectSeeds.size() + (currentSnapshot != null ? currentSnapshot.size() : 0);
+        if (journal.getSegmentRecords() >= Math.max(COMPACTION_THRESHOLD, size)) {
+            save();
+        }
+    }
+
+    /**
+     * Writes the pending changes when Jenkins stops.
+     */
+    @Terminator
+    public static void flushJournal() throws IOException {
         ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
-        ProjectCachedConfig removed = descriptor.projectSeeds.remove(name);
-        if (removed != null) {
-            descriptor.save();
+        descriptor.ensureLoaded();
+        descriptor.journal.close();
+    }
+
+    /**
+     * Gets the pull request slot leased by a branch, or <code>null</code> if none.
+     */
+    public String getPullRequestSlot(String project, String branch) {
+        ensureLoaded();
+        synchronized (this) {
+            PullRequestSlots slots = pullRequestSlots.get(project);
+            return slots != null ? slots.getSlot(branch) : null;
+        }
+    }
+
+    /**
+     * Leases a pull request slot for a branch.
+     *
+     * @return Leased slot or <code>null</code> if all slots are leased
+     */
+    public String leasePullRequestSlot(String project, String branch, int size) {
+        ensureLoaded();
+        synchronized (this) {
+            PullRequestSlots slots = pullRequestSlots.get(project);
+            if (slots == null) {
+                slots = new PullRequestSlots();
+                pullRequestSlots.put(project, slots);
+            }
+            String slot = slots.getSlot(branch);
+            if (slot == null) {
+                slot = slots.lease(branch, size);
+                if (slot != null) {
+                    journal.put(SLOTS_RECORD, project, new PullRequestSlots(slots));
+                }
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Releases the pull request slot leased by a branch.
+     *
+     * @return Released slot or <code>null</code> if the branch did not lease any slot
+     */
+    public String releasePullRequestSlot(String project, String branch) {
+        ensureLoaded();
+        synchronized (this) {
+            PullRequestSlots slots = pullRequestSlots.get(project);
+            String slot = slots != null ? slots.release(branch) : null;
+            if (slot != null) {
+                if (slots.isEmpty()) {
+                    pullRequestSlots.remove(project);
+                    journal.remove(SLOTS_RECORD, project);
+                } else {
+                    journal.put(SLOTS_RECORD, project, new PullRequestSlots(slots));
+                }
+            }
+            return slot;
         }
     }
 
@@ -69,7 +693,114 @@ public class ProjectSeedCacheDescriptor extends Descriptor<ProjectSeedCacheDescr
      * @return Cached configuration or <code>null</code>.
      */
     public ProjectCachedConfig getProjectSavedConfiguration(String projectName) {
-        return projectSeeds.get(projectName);
+        ProjectCachedConfig config = getCachedConfiguration(projectName);
+        if (config != null) {
+            statistics.accessed(projectName);
+        }
+        return config;
+    }
+
+    /**
+     * Gets the cached configuration for a key, without recording any access.
+     *
+     * @return Cached configuration or <code>null</code>.
+     */
+    public ProjectCachedConfig getCachedConfiguration(String key) {
+        ensureLoaded();
+        ProjectCachedConfig config = projectSeeds.get(key);
+        if (config == null) {
+            ProjectSeedSnapshot currentSnapshot = snapshot;
+            if (currentSnapshot != null && currentSnapshot.indexOf(key) >= 0) {
+                // Decoded on first access
+                synchronized (journal) {
+                    config = getEntry(key);
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Gets the configuration for a key without keeping it decoded, to inspect the cache without
+     * growing it.
+     *
+     * @return Cached configuration or <code>null</code>.
+     */
+    public ProjectCachedConfig inspectConfiguration(String key) {
+        ensureLoaded();
+        ProjectCachedConfig config = projectSeeds.get(key);
+        ProjectSeedSnapshot currentSnapshot = snapshot;
+        if (config == null && currentSnapshot != null && !snapshotRemovals.contains(key)) {
+            int index = currentSnapshot.indexOf(key);
+            if (index >= 0) {
+                config = decode(currentSnapshot.getRecord(index));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Sorted keys of all the cached configurations
+     */
+    public List<String> getKeys() {
+        ensureLoaded();
+        return new ArrayList<>(sortedKeys);
+    }
+
+    /**
+     * One page of the sorted keys of the cached configurations
+     */
+    public List<String> getKeys(int start, int limit) {
+        ensureLoaded();
+        List<String> keys = new ArrayList<>(Math.min(limit, keyCount));
+        Iterator<String> iterator = sortedKeys.iterator();
+        for (int i = 0; i < start && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (keys.size() < limit && iterator.hasNext()) {
+            keys.add(iterator.next());
+        }
+        return keys;
+    }
+
+    /**
+     * Number of cached configurations
+     */
+    public int getKeyCount() {
+        ensureLoaded();
+        return keyCount;
+    }
+
+    /**
+     * Resolves any item to the project, the branch and the role it has in the naming strategy of
+     * the project, by walking its full name once in the index of the project folders.
+     *
+     * @return Resolved item, or <code>null</code> if the item is not managed by the Seed
+     */
+    public SeedItem resolveItem(String fullName) {
+        ensureLoaded();
+        for (String key : itemIndex.getKeys(fullName)) {
+            ProjectCachedConfig config = getCachedConfiguration(key);
+            if (config != null) {
+                SeedItem item = config.resolveItem(fullName);
+                if (item != null) {
+                    return item;
+                }
+            }
+        }
+        return null;
+    }
+
+    public ProjectSeedCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Size in bytes of the mapped binary snapshot, if any
+     */
+    public long getMappedSize() {
+        ProjectSeedSnapshot currentSnapshot = snapshot;
+        return currentSnapshot != null ? currentSnapshot.getFile().length() : 0;
     }
 
     /**
@@ -90,12 +821,16 @@ public class ProjectSeedCacheDescriptor extends Descriptor<ProjectSeedCacheDescr
 
         @Override
         public void onDeleted(Item item) {
-            removeProjectConfiguration(item.getFullName());
+            getDescriptor().onItemRemoved(item.getFullName());
         }
 
         @Override
         public void onLocationChanged(Item item, String oldFullName, String newFullName) {
-            removeProjectConfiguration(oldFullName);
+            getDescriptor().onItemRemoved(oldFullName);
+        }
+
+        private ProjectSeedCacheDescriptor getDescriptor() {
+            return Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
         }
 
     }
@@ -1,14 +1,64 @@
 package net.nemerosa.jenkins.seed.cache;
 
 import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+
+import javax.inject.Inject;
 
 public class ProjectSeedCacheImpl implements ProjectSeedCache {
 
+    private final SeedMetrics metrics;
+    private final ProjectSeedCacheBackend backend;
+
+    @Inject
+    public ProjectSeedCacheImpl(SeedMetrics metrics, ProjectSeedCacheBackend backend) {
+        this.metrics = metrics;
+        this.backend = backend;
+    }
+
     @Override
     public ProjectCachedConfig getProjectPipelineConfig(String project) {
         ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
         // Gets the project seed
-        return descriptor.getProjectSavedConfiguration(project);
+        ProjectCachedConfig config = descriptor.getProjectSavedConfiguration(project);
+        // ... or the one published by another controller
+        if (config == null) {
+            config = backend.get(project);
+            if (config != null) {
+                metrics.increment("cache.sharedHit");
+            }
+        }
+        metrics.increment(config != null ? "cache.hit" : "cache.miss");
+        return config;
+    }
+
+    @Override
+    public String getPullRequestSlot(String project, String branch) {
+        return getDescriptor().getPullRequestSlot(project, branch);
+    }
+
+    @Override
+    public String leasePullRequestSlot(String project, String branch, int size) {
+        return getDescriptor().leasePullRequestSlot(project, branch, size);
+    }
+
+    @Override
+    public String releasePullRequestSlot(String project, String branch) {
+        return getDescriptor().releasePullRequestSlot(project, branch);
+    }
+
+    @Override
+    public boolean isReady() {
+        return getDescriptor().isLoaded();
+    }
+
+    @Override
+    public void awaitReady() throws InterruptedException {
+        getDescriptor().waitForLoading();
+    }
+
+    private ProjectSeedCacheDescriptor getDescriptor() {
+        return Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
     }
 
 }
@@ -0,0 +1,179 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import com.google.common.base.Functions;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Project;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.config.ProjectParameters;
+import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
+import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import net.nemerosa.jenkins.seed.generator.BranchGenerationStep;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rebuilds the {@link ProjectSeedCacheDescriptor} from the existing project seeds, when its file has been
+ * lost or reset.
+ * <p>
+ * Each project seed embeds the configuration of its project in its {@link BranchGenerationStep}, with the
+ * project level paths already resolved, which is enough to route the events. The top level items are scanned
+ * in parallel and the result replaces the whole cache at once.
+ * <p>
+ * At startup, the check and the rebuild run in the background once the cache has been loaded, so that
+ * they never block the initialisation of Jenkins.
+ */
+public class ProjectSeedCacheRebuild {
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectSeedCacheRebuild.class.getName());
+
+    /**
+     * Number of top level items scanned in parallel
+     */
+    private static final int THREADS = Integer.getInteger(ProjectSeedCacheRebuild.class.getName() + ".threads", 4);
+
+    /**
+     * Starts rebuilding the cache in the background, if it is empty once loaded, when all the jobs
+     * have been loaded
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void rebuildIfEmpty() {
+        new NamingThreadFactory(new DaemonThreadFactory(), "Seed cache rebuild").newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
+                    descriptor.waitForLoading();
+                    if (descriptor.isEmpty()) {
+                        Map<String, ProjectCachedConfig> configs = scanConfigurations(descriptor);
+                        // Not replacing the projects seeded in the meantime
+                        if (!configs.isEmpty() && descriptor.isEmpty()) {
+                            descriptor.replaceProjectConfigurations(configs);
+                            LOGGER.info(String.format("Project seed cache rebuilt with %d projects", configs.size()));
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    LOGGER.log(Level.WARNING, "Project seed cache rebuild interrupted", ex);
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Could not rebuild the project seed cache", ex);
+                }
+            }
+        }).start();
+    }
+
+    /**
+     * Replaces the content of the cache by the configurations of the existing project seeds.
+     *
+     * @return Number of cached projects
+     */
+    public static int rebuild() throws InterruptedException {
+        ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
+        Map<String, ProjectCachedConfig> configs = scanConfigurations(descriptor);
+        if (!configs.isEmpty()) {
+            descriptor.replaceProjectConfigurations(configs);
+        }
+        return configs.size();
+    }
+
+    /**
+     * Configurations of the existing project seeds, indexed by cache key
+     */
+    private static Map<String, ProjectCachedConfig> scanConfigurations(ProjectSeedCacheDescriptor descriptor) throws InterruptedException {
+        Map<String, ProjectCachedConfig> configs = new HashMap<>();
+        for (BranchGenerationStep step : scan()) {
+            ProjectPipelineConfig projectConfig = step.getProjectConfig();
+            // Values are already expanded in the project seeds
+            ProjectParameters parameters = projectConfig.getProjectParameters(Functions.<String>identity());
+            String key = descriptor.getProjectTriggerIdentifierOrName(parameters);
+            ProjectCachedConfig previous = configs.put(key, new ProjectCachedConfig(
+                    new ProjectSeed(parameters),
+                    projectConfig.getPipelineConfig()
+            ));
+            if (previous != null) {
+                LOGGER.warning(String.format("Several project seeds are registered for %s", key));
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Collects the branch generation steps of all the jobs, one task per top level item
+     */
+    private static List<BranchGenerationStep> scan() throws InterruptedException {
+        List<Callable<List<BranchGenerationStep>>> tasks = new ArrayList<>();
+        for (final Item item : Jenkins.getInstance().getItems()) {
+            tasks.add(new Callable<List<BranchGenerationStep>>() {
+                @Override
+                public List<BranchGenerationStep> call() throws Exception {
+                    SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
+                    try {
+                        return scan(item);
+                    } finally {
+                        SecurityContextHolder.setContext(orig);
+                    }
+                }
+            });
+        }
+        List<BranchGenerationStep> steps = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return steps;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(THREADS, tasks.size()),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Seed cache rebuild")
+        );
+        try {
+            for (Future<List<BranchGenerationStep>> future : pool.invokeAll(tasks)) {
+                try {
+                    steps.addAll(future.get());
+                } catch (ExecutionException ex) {
+                    // Not blocking - the other items are still scanned
+                    LOGGER.log(Level.WARNING, "Could not scan the project seeds", ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return steps;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static List<BranchGenerationStep> scan(Item item) {
+        Collection<Project> projects;
+        if (item instanceof Project) {
+            projects = Collections.singletonList((Project) item);
+        } else if (item instanceof ItemGroup) {
+            projects = Items.getAllItems((ItemGroup) item, Project.class);
+        } else {
+            return new ArrayList<>();
+        }
+        List<BranchGenerationStep> steps = new ArrayList<>();
+        for (Project project : projects) {
+            BranchGenerationStep step = (BranchGenerationStep) project.getBuildersList().get(BranchGenerationStep.class);
+            if (step != null && step.getProjectConfig() != null) {
+                steps.add(step);
+            }
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,122 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import net.nemerosa.jenkins.seed.config.ProjectSeed;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last access time and approximate memory of the entries of the {@link ProjectSeedCacheDescriptor}.
+ * <p>
+ * The statistics are maintained when the entries are changed or looked up, so that reading them never
+ * requires going through the cache. Sizes are estimates of the heap used by the decoded entries; the
+ * strategies are shared between the entries and are not counted.
+ */
+public class ProjectSeedCacheStatistics {
+
+    /**
+     * Object header and references, rounded
+     */
+    private static final int OBJECT_SIZE = 32;
+
+    /**
+     * Entry of the index, with its key
+     */
+    private static final int INDEX_ENTRY_SIZE = 32;
+
+    public static class EntryStatistics {
+
+        private volatile int approximateSize;
+        private volatile long lastAccess;
+
+        /**
+         * Estimated size in bytes
+         */
+        public int getApproximateSize() {
+            return approximateSize;
+        }
+
+        /**
+         * Time of the last lookup in milliseconds, or <code>0</code> if never looked up
+         */
+        public long getLastAccess() {
+            return lastAccess;
+        }
+    }
+
+    private final ConcurrentMap<String, EntryStatistics> entries = new ConcurrentHashMap<>();
+    private final AtomicLong approximateSize = new AtomicLong();
+
+    /**
+     * Registers a new or decoded entry, keeping its last access time
+     */
+    void put(String key, ProjectCachedConfig config) {
+        EntryStatistics statistics = getOrCreate(key);
+        int size = estimate(key, config);
+        synchronized (statistics) {
+            approximateSize.addAndGet(size - statistics.approximateSize);
+            statistics.approximateSize = size;
+        }
+    }
+
+    void remove(String key) {
+        EntryStatistics statistics = entries.remove(key);
+        if (statistics != null) {
+            synchronized (statistics) {
+                approximateSize.addAndGet(-statistics.approximateSize);
+                statistics.approximateSize = 0;
+            }
+        }
+    }
+
+    void clear() {
+        for (String key : entries.keySet()) {
+            remove(key);
+        }
+    }
+
+    void accessed(String key) {
+        getOrCreate(key).lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Statistics of an entry, or <code>null</code> if the entry has never been decoded nor looked up
+     */
+    public EntryStatistics get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Estimated size in bytes of all the decoded entries
+     */
+    public long getApproximateSize() {
+        return approximateSize.get();
+    }
+
+    private EntryStatistics getOrCreate(String key) {
+        EntryStatistics statistics = entries.get(key);
+        if (statistics == null) {
+            EntryStatistics newStatistics = new EntryStatistics();
+            statistics = entries.putIfAbsent(key, newStatistics);
+            if (statistics == null) {
+                statistics = newStatistics;
+            }
+        }
+        return statistics;
+    }
+
+    static int estimate(String key, ProjectCachedConfig config) {
+        ProjectSeed seed = config.getSeed();
+        return INDEX_ENTRY_SIZE + estimate(key)
+                + OBJECT_SIZE
+                + OBJECT_SIZE + estimate(seed.getProject())
+                + estimate(seed.getTriggerIdentifier())
+                + estimate(seed.getTriggerType())
+                + estimate(seed.getTriggerSecret());
+    }
+
+    private static int estimate(String value) {
+        return value != null ? OBJECT_SIZE + 2 * value.length() : 0;
+    }
+}
@@ -0,0 +1,367 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import com.thoughtworks.xstream.XStream;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only change log of the {@link ProjectSeedCacheDescriptor}.
+ * <p>
+ * Each change of an entry is written as one record, so that saving a project costs the size of this
+ * project only. Records are written behind, in batches, and several changes of the same entry between
+ * two flushes are written as one record.
+ * <p>
+ * The log is split into numbered segments. To compact the log, the descriptor {@linkplain #rotate() rotates}
+ * it, saves a snapshot of the whole cache and {@linkplain #purge(int) deletes} the previous segments. A record
+ * always replaces or removes a whole entry, so replaying a segment over a snapshot taken after the start of
+ * this segment gives the same state.
+ */
+class ProjectSeedJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectSeedJournal.class.getName());
+
+    /**
+     * Delay in milliseconds between a change and the flush of its record
+     */
+    private static final long FLUSH_DELAY = Long.getLong(ProjectSeedJournal.class.getName() + ".flushDelay", 1000L);
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Suffix of the segments which could not be replayed, kept aside for analysis
+     */
+    private static final String UNREADABLE_SUFFIX = ".unreadable";
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * Applies the replayed records
+     */
+    interface Replay {
+
+        void put(String type, String key, Object value);
+
+        void remove(String type, String key);
+
+    }
+
+    private final File dir;
+    private final XStream xStream;
+    private final Runnable afterFlush;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed cache journal")
+    );
+
+    /**
+     * Records not written yet, indexed by type and key. A <code>null</code> value is a removal.
+     */
+    private final Map<String, Record> pending = new LinkedHashMap<>();
+
+    private int segment;
+    private int segmentRecords;
+    private DataOutputStream output;
+    private FileOutputStream file;
+    private boolean flushScheduled;
+
+    /**
+     * @param dir        Directory of the segments
+     * @param xStream    Serialization of the values
+     * @param afterFlush Called after each scheduled flush, outside of any lock
+     */
+    ProjectSeedJournal(File dir, XStream xStream, Runnable afterFlush) {
+        this.dir = dir;
+        this.xStream = xStream;
+        this.afterFlush = afterFlush;
+    }
+
+    /**
+     * Replays the segments starting from the given one and opens a new segment for the next records.
+     * Segments before the given one are deleted.
+     * <p>
+     * A segment which cannot be read is replayed up to its first unreadable record and renamed, so that it
+     * is not deleted by the next compaction. The new segment is opened in any case.
+     *
+     * @param from First segment which is not part of the snapshot
+     * @return Number of replayed records
+     */
+    synchronized int replay(int from, Replay replay) throws IOException {
+        int count = 0;
+        int last = from - 1;
+        for (int number : getSegments()) {
+            File segmentFile = getSegmentFile(number);
+            if (number < from) {
+                delete(segmentFile);
+            } else {
+                count += replay(segmentFile, replay);
+                last = number;
+            }
+        }
+        open(last + 1);
+        return count;
+    }
+
+    /**
+     * Records the new value of an entry
+     */
+    synchronized void put(String type, String key, Object value) {
+        record(new Record(type, key, value));
+    }
+
+    /**
+     * Records the removal of an entry
+     */
+    synchronized void remove(String type, String key) {
+        record(new Record(type, key, null));
+    }
+
+    /**
+     * Number of records in the current segment
+     */
+    synchronized int getSegmentRecords() {
+        return segmentRecords;
+    }
+
+    /**
+     * Writes the pending records and starts a new segment.
+     *
+     * @return Number of the new segment
+     */
+    synchronized int rotate() throws IOException {
+        flush();
+        close(output);
+        open(segment + 1);
+        return segment;
+    }
+
+    /**
+     * Deletes the segments before the given one
+     */
+    void purge(int before) {
+        for (int number : getSegments()) {
+            if (number < before) {
+                delete(getSegmentFile(number));
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records. If they cannot be written, the segment is truncated after the last
+     * complete record and the records are kept pending.
+     */
+    synchronized void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (output == null) {
+            open(segment);
+        }
+        // Nothing is buffered between two flushes
+        long offset = file.getChannel().size();
+        try {
+            for (Record record : pending.values()) {
+                if (record.value != null) {
+                    byte[] bytes = xStream.toXML(record.value).getBytes(StandardCharsets.UTF_8);
+                    output.writeByte(PUT);
+                    output.writeUTF(record.type);
+                    output.writeUTF(record.key);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                } else {
+                    output.writeByte(REMOVE);
+                    output.writeUTF(record.type);
+                    output.writeUTF(record.key);
+                }
+            }
+            output.flush();
+            file.getChannel().force(false);
+        } catch (IOException | RuntimeException ex) {
+            truncate(offset);
+            throw ex;
+        }
+        segmentRecords += pending.size();
+        pending.clear();
+    }
+
+    /**
+     * Writes the pending records and stops the background flush
+     */
+    synchronized void close() throws IOException {
+        executor.shutdownNow();
+        flush();
+        close(output);
+    }
+
+    private void record(Record record) {
+        pending.remove(record.getId());
+        pending.put(record.getId(), record);
+        if (!flushScheduled && !executor.isShutdown()) {
+            flushScheduled = true;
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    scheduledFlush();
+                }
+            }, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void scheduledFlush() {
+        synchronized (this) {
+            flushScheduled = false;
+            try {
+                flush();
+            } catch (IOException ex) {
+                // Records are kept and written again by the next flush
+                LOGGER.log(Level.SEVERE, String.format("Cannot write the seed cache journal in %s", dir), ex);
+                return;
+            }
+        }
+        afterFlush.run();
+    }
+
+    /**
+     * Drops a partially written batch of records
+     */
+    private void truncate(long offset) {
+        try {
+            file.getChannel().truncate(offset);
+            // Drops the bytes still buffered
+            output = new DataOutputStream(new BufferedOutputStream(file));
+        } catch (IOException ex) {
+            // The partial record ends the segment and is ignored by the replay
+            LOGGER.log(Level.SEVERE, String.format("Cannot truncate the journal segment %s, starting a new one", getSegmentFile(segment)), ex);
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // Already reported
+            }
+            output = null;
+            segment++;
+        }
+    }
+
+    private int replay(File segmentFile, Replay replay) {
+        int count = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segmentFile)))) {
+            while (true) {
+                byte operation;
+                try {
+                    operation = input.readByte();
+                } catch (EOFException ignored) {
+                    break;
+                }
+                try {
+                    String type = input.readUTF();
+                    String key = input.readUTF();
+                    if (operation == PUT) {
+                        byte[] bytes = new byte[input.readInt()];
+                        input.readFully(bytes);
+                        replay.put(type, key, xStream.fromXML(new String(bytes, StandardCharsets.UTF_8)));
+                    } else {
+                        replay.remove(type, key);
+                    }
+                    count++;
+                } catch (EOFException ex) {
+                    // Last record was not completely written
+                    LOGGER.warning(String.format("Ignoring the truncated last record of %s", segmentFile));
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            File unreadable = new File(dir, segmentFile.getName() + UNREADABLE_SUFFIX);
+            LOGGER.log(Level.SEVERE, String.format("Cannot replay the journal segment %s after %d records, kept as %s", segmentFile, count, unreadable), ex);
+            if (!segmentFile.renameTo(unreadable)) {
+                LOGGER.severe(String.format("Cannot rename the journal segment %s", segmentFile));
+            }
+        }
+        return count;
+    }
+
+    private void open(int number) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Cannot create the journal directory at %s", dir));
+        }
+        segment = number;
+        segmentRecords = 0;
+        output = null;
+        file = new FileOutputStream(getSegmentFile(number), true);
+        output = new DataOutputStream(new BufferedOutputStream(file));
+    }
+
+    private List<Integer> getSegments() {
+        List<Integer> segments = new ArrayList<>();
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        segments.add(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // Not a segment
+                    }
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private File getSegmentFile(int number) {
+        return new File(dir, String.format("%08d%s", number, SEGMENT_SUFFIX));
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            LOGGER.warning(String.format("Cannot delete the journal segment at %s", file));
+        }
+    }
+
+    private static void close(DataOutputStream output) {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot close the journal segment", ex);
+            }
+        }
+    }
+
+    private static class Record {
+
+        private final String type;
+        private final String key;
+        private final Object value;
+
+        Record(String type, String key, Object value) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+
+        String getId() {
+            return type + ":" + key;
+        }
+    }
+}
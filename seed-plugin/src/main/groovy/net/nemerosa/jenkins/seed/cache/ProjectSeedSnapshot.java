@@ -0,0 +1,319 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Binary snapshot of the {@link ProjectSeedCacheDescriptor}, read through a memory-mapped file.
+ * <p>
+ * The file starts with an index of fixed-size entries, sorted by key, which point to the key, the
+ * project folder, the project seed and the serialized configuration of each project. A key is found
+ * by a binary search in the index and a configuration is only decoded when it is needed.
+ * <p>
+ * Snapshots are named after the first journal segment they do not cover.
+ */
+class ProjectSeedSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectSeedSnapshot.class.getName());
+
+    private static final int MAGIC = 0x53454544;
+    private static final int END_MAGIC = 0x44454553;
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * Magic, version, segment, count, slots offset and length
+     */
+    private static final int HEADER_SIZE = 6 * 4;
+
+    /**
+     * Offsets and lengths of the key, project folder, project seed and record
+     */
+    private static final int ENTRY_SIZE = 8 * 4;
+
+    /**
+     * Entry to write
+     */
+    static class Entry {
+
+        private final String key;
+        private final String projectFolder;
+        private final String projectSeedJob;
+        private final byte[] record;
+
+        Entry(String key, String projectFolder, String projectSeedJob, byte[] record) {
+            this.key = key;
+            this.projectFolder = projectFolder;
+            this.projectSeedJob = projectSeedJob;
+            this.record = record;
+        }
+    }
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int segment;
+    private final int size;
+
+    private ProjectSeedSnapshot(File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE + 4 || buffer.getInt(0) != MAGIC || buffer.getInt(buffer.limit() - 4) != END_MAGIC) {
+            throw new IOException(String.format("%s is not a complete cache snapshot", file));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(String.format("%s has an unsupported version", file));
+        }
+        segment = buffer.getInt(8);
+        size = buffer.getInt(12);
+        if (size < 0 || HEADER_SIZE + (long) size * ENTRY_SIZE > buffer.limit()) {
+            throw new IOException(String.format("%s has an invalid index", file));
+        }
+        checkBounds(buffer.getInt(16), buffer.getInt(20));
+        for (int i = 0; i < size; i++) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            for (int field = 0; field < 4; field++) {
+                checkBounds(buffer.getInt(entry + field * 8), buffer.getInt(entry + field * 8 + 4));
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot file
+     */
+    static ProjectSeedSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ProjectSeedSnapshot(file, buffer);
+        }
+    }
+
+    /**
+     * Maps the most recent readable snapshot of a directory, or returns <code>null</code> if there is none.
+     */
+    static ProjectSeedSnapshot openLatest(File dir) {
+        List<File> files = getFiles(dir);
+        Collections.reverse(files);
+        for (File file : files) {
+            try {
+                return open(file);
+            } catch (IOException ex) {
+                LOGGER.warning(String.format("Ignoring the cache snapshot %s: %s", file, ex.getMessage()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes a snapshot in a directory.
+     *
+     * @return Written file
+     */
+    static File write(File dir, int segment, byte[] slots, Collection<Entry> entries) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Cannot create the snapshot directory at %s", dir));
+        }
+        List<Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.key.compareTo(b.key);
+            }
+        });
+        List<byte[]> data = new ArrayList<>();
+        data.add(slots);
+        for (Entry entry : sorted) {
+            data.add(entry.key.getBytes(StandardCharsets.UTF_8));
+            data.add(entry.projectFolder.getBytes(StandardCharsets.UTF_8));
+            data.add(entry.projectSeedJob.getBytes(StandardCharsets.UTF_8));
+            data.add(entry.record);
+        }
+
+        File target = getFile(dir, segment);
+        File tmp = new File(dir, target.getName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(segment);
+            output.writeInt(sorted.size());
+            // Offsets of the slots and of the fields of the entries, in the same order as the data
+            int offset = HEADER_SIZE + sorted.size() * ENTRY_SIZE;
+            for (byte[] bytes : data) {
+                output.writeInt(offset);
+                output.writeInt(bytes.length);
+                offset += bytes.length;
+            }
+            for (byte[] bytes : data) {
+                output.write(bytes);
+            }
+            output.writeInt(END_MAGIC);
+            output.flush();
+            // The older snapshots and journal segments are purged once the snapshot is written
+            file.getChannel().force(true);
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        force(dir);
+        return target;
+    }
+
+    /**
+     * Writes the renaming of a snapshot to the disk
+     */
+    private static void force(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // Directories cannot be opened on all platforms
+            LOGGER.fine(String.format("Cannot force the snapshot directory %s: %s", dir, ex.getMessage()));
+        }
+    }
+
+    /**
+     * Deletes the snapshots of a directory which are older than the given segment
+     */
+    static void purge(File dir, int before) {
+        for (File file : getFiles(dir)) {
+            if (getSegment(file) < before && !file.delete()) {
+                // Still mapped on some platforms, deleted by the next purge
+                LOGGER.fine(String.format("Cannot delete the cache snapshot %s", file));
+            }
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * First journal segment which is not part of this snapshot
+     */
+    int getSegment() {
+        return segment;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Position of a key in the index, or <code>-1</code> if not found
+     */
+    int indexOf(String key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = getKey(middle).compareTo(key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    String getKey(int index) {
+        return getString(index, 0);
+    }
+
+    String getProjectFolder(int index) {
+        return getString(index, 1);
+    }
+
+    String getProjectSeedJob(int index) {
+        return getString(index, 2);
+    }
+
+    /**
+     * Serialized configuration
+     */
+    byte[] getRecord(int index) {
+        return getBytes(HEADER_SIZE + index * ENTRY_SIZE + 3 * 8);
+    }
+
+    /**
+     * Serialized pull request slots
+     */
+    byte[] getSlots() {
+        return getBytes(16);
+    }
+
+    private String getString(int index, int field) {
+        return new String(getBytes(HEADER_SIZE + index * ENTRY_SIZE + field * 8), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the bytes pointed by an offset and a length
+     */
+    private byte[] getBytes(int position) {
+        int offset = buffer.getInt(position);
+        byte[] bytes = new byte[buffer.getInt(position + 4)];
+        // Absolute reads on a private view, the buffer being shared between threads
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return bytes;
+    }
+
+    private void checkBounds(int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || (long) offset + length > buffer.limit() - 4) {
+            throw new IOException(String.format("%s has an invalid entry", file));
+        }
+    }
+
+    private static List<File> getFiles(File dir) {
+        List<File> files = new ArrayList<>();
+        File[] list = dir.listFiles();
+        if (list != null) {
+            for (File file : list) {
+                if (getSegment(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Integer.compare(getSegment(a), getSegment(b));
+            }
+        });
+        return files;
+    }
+
+    private static int getSegment(File file) {
+        String name = file.getName();
+        if (name.endsWith(SUFFIX)) {
+            try {
+                return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+            } catch (NumberFormatException ignored) {
+                // Not a snapshot
+            }
+        }
+        return -1;
+    }
+
+    private static File getFile(File dir, int segment) {
+        return new File(dir, String.format("%08d%s", segment, SUFFIX));
+    }
+}
@@ -0,0 +1,85 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Leases of the pull request slots of a project.
+ *
+ * @see net.nemerosa.jenkins.seed.config.EventStrategyConfig#pullRequestSlots
+ */
+public class PullRequestSlots {
+
+    /**
+     * Prefix for the name of the slots. This name is used as a branch name to compute
+     * the paths of the slot pipeline.
+     */
+    public static final String SLOT_PREFIX = "pr-slot-";
+
+    /**
+     * Leased branches, indexed by slot
+     */
+    private final Map<String, String> leases = new TreeMap<>();
+
+    public PullRequestSlots() {
+    }
+
+    /**
+     * Copy of the leases
+     */
+    public PullRequestSlots(PullRequestSlots slots) {
+        leases.putAll(slots.leases);
+    }
+
+    /**
+     * Gets the slot leased by a branch, or <code>null</code> if none.
+     */
+    public String getSlot(String branch) {
+        for (Map.Entry<String, String> entry : leases.entrySet()) {
+            if (entry.getValue().equals(branch)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Leases a slot for a branch.
+     *
+     * @param branch Branch to lease a slot for
+     * @param size   Size of the pool
+     * @return Leased slot (the same one if the branch has already leased one), or <code>null</code>
+     * if all slots are leased.
+     */
+    public String lease(String branch, int size) {
+        String slot = getSlot(branch);
+        if (slot != null) {
+            return slot;
+        }
+        for (int i = 1; i <= size; i++) {
+            slot = SLOT_PREFIX + i;
+            if (!leases.containsKey(slot)) {
+                leases.put(slot, branch);
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases the slot leased by a branch
+     *
+     * @return Released slot or <code>null</code> if the branch did not lease any slot
+     */
+    public String release(String branch) {
+        String slot = getSlot(branch);
+        if (slot != null) {
+            leases.remove(slot);
+        }
+        return slot;
+    }
+
+    public boolean isEmpty() {
+        return leases.isEmpty();
+    }
+}
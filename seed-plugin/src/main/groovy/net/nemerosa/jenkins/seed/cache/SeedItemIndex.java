@@ -0,0 +1,85 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keys of the cached projects, in a trie of the segments of their project folders.
+ * <p>
+ * The keys whose project folder contains an item are found in a single walk of the item full name,
+ * whatever the number of projects. The index is changed by a single writer at a time, with the lock
+ * on the journal, and read without any lock.
+ */
+class SeedItemIndex {
+
+    private static class Node {
+
+        private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>();
+
+        /**
+         * Keys of the projects having this folder
+         */
+        private final List<String> keys = new CopyOnWriteArrayList<>();
+    }
+
+    private final Node root = new Node();
+
+    void put(String projectFolder, String key) {
+        Node node = root;
+        for (String segment : projectFolder.split("/")) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+        }
+        if (!node.keys.contains(key)) {
+            node.keys.add(key);
+        }
+    }
+
+    void remove(String projectFolder, String key) {
+        remove(root, projectFolder.split("/"), 0, key);
+    }
+
+    /**
+     * @return <code>true</code> if the node can be pruned
+     */
+    private static boolean remove(Node node, String[] segments, int index, String key) {
+        if (index == segments.length) {
+            node.keys.remove(key);
+        } else {
+            Node child = node.children.get(segments[index]);
+            if (child != null && remove(child, segments, index + 1, key)) {
+                node.children.remove(segments[index], child);
+            }
+        }
+        return node.keys.isEmpty() && node.children.isEmpty();
+    }
+
+    /**
+     * Keys of the projects whose folder is the item or contains it, the deepest folders first
+     */
+    List<String> getKeys(String fullName) {
+        List<String> keys = new ArrayList<>();
+        Node node = root;
+        int start = 0;
+        while (node != null && start <= fullName.length()) {
+            int end = fullName.indexOf('/', start);
+            if (end < 0) {
+                end = fullName.length();
+            }
+            node = node.children.get(fullName.substring(start, end));
+            if (node != null) {
+                // Deepest first
+                keys.addAll(0, node.keys);
+            }
+            start = end + 1;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,122 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import hudson.init.Terminator;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.SeedPlugin;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shares the project configurations with the other controllers using the same
+ * {@linkplain SeedPlugin#getSharedCacheDirectory() shared cache directory}.
+ * <p>
+ * The configurations saved by the project seeds of this controller are published in the directory, and
+ * the projects which are not known locally are looked up in it. A configuration is only withdrawn by the
+ * controller which published it.
+ */
+public class SharedProjectSeedCache implements ProjectSeedCacheBackend {
+
+    private static final Logger LOGGER = Logger.getLogger(SharedProjectSeedCache.class.getName());
+
+    private volatile SharedProjectSeedStore store;
+
+    /**
+     * Directory which could not be opened, not tried again until the configuration changes
+     */
+    private volatile String failedDirectory;
+
+    /**
+     * Gets the published configuration of a project, or <code>null</code> if none or if sharing is disabled
+     */
+    @Override
+    public ProjectCachedConfig get(String key) {
+        SharedProjectSeedStore currentStore = getStore();
+        return currentStore != null ? currentStore.get(key) : null;
+    }
+
+    /**
+     * Publishes the configuration of a project, unless it is already published
+     */
+    @Override
+    public void publish(String key, ProjectCachedConfig config) {
+        SharedProjectSeedStore currentStore = getStore();
+        if (currentStore != null && !config.equals(currentStore.get(key))) {
+            try {
+                currentStore.put(key, config);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Cannot publish the configuration of %s in the shared cache", key), ex);
+            }
+        }
+    }
+
+    @Override
+    public void publish(Map<String, ProjectCachedConfig> configs) {
+        for (Map.Entry<String, ProjectCachedConfig> entry : configs.entrySet()) {
+            publish(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void withdraw(String key) {
+        SharedProjectSeedStore currentStore = getStore();
+        if (currentStore != null) {
+            try {
+                currentStore.remove(key);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Cannot withdraw the configuration of %s from the shared cache", key), ex);
+            }
+        }
+    }
+
+    /**
+     * Store for the configured directory, opened on first use and opened again when the directory changes
+     */
+    private SharedProjectSeedStore getStore() {
+        SeedPlugin plugin = SeedPlugin.getSeedPlugin();
+        String path = plugin != null ? StringUtils.trimToNull(plugin.getSharedCacheDirectory()) : null;
+        SharedProjectSeedStore currentStore = store;
+        if (currentStore != null && path != null && currentStore.getDir().getPath().equals(path)) {
+            return currentStore;
+        }
+        synchronized (this) {
+            currentStore = store;
+            if (currentStore != null && path != null && currentStore.getDir().getPath().equals(path)) {
+                return currentStore;
+            }
+            if (currentStore != null) {
+                currentStore.close();
+                store = null;
+            }
+            if (path == null || path.equals(failedDirectory)) {
+                return null;
+            }
+            try {
+                store = new SharedProjectSeedStore(new File(path), Jenkins.getInstance().getLegacyInstanceId());
+                failedDirectory = null;
+                LOGGER.info(String.format("Project configurations shared through %s", path));
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, String.format("Cannot share the project configurations through %s", path), ex);
+                failedDirectory = path;
+            }
+            return store;
+        }
+    }
+
+    private synchronized void close() {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    @Terminator
+    public static void closeStore() {
+        SeedContainer.getInstance(SharedProjectSeedCache.class).close();
+    }
+}
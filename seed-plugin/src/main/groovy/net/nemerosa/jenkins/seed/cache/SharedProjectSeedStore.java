@@ -0,0 +1,446 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.security.NoTypePermission;
+import com.thoughtworks.xstream.security.NullPermission;
+import com.thoughtworks.xstream.security.PrimitiveTypePermission;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.Secret;
+import net.nemerosa.jenkins.seed.config.EventStrategyConfig;
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig;
+import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Project configurations shared by several controllers through a directory.
+ * <p>
+ * Each project is stored in its own record file, together with a version and the controller which wrote it.
+ * Records are written under a file lock and replaced atomically, so that they can be read without any lock.
+ * <p>
+ * The trigger secrets are not written in clear but encrypted by {@link Secret}: the controllers sharing
+ * the directory must share their secret key as well, otherwise the records of the projects having a secret
+ * are ignored. Since the directory is written by other hosts, only the types of the records are read.
+ * <p>
+ * Read records are kept in a near-cache, including the missing ones. The directory is watched and only the
+ * changed records are read again. Since changes made by other hosts are not always notified on network file
+ * systems, the cached records are also checked against the modification time of their file at regular
+ * intervals.
+ */
+class SharedProjectSeedStore {
+
+    private static final Logger LOGGER = Logger.getLogger(SharedProjectSeedStore.class.getName());
+
+    /**
+     * Interval in seconds between two checks of the cached records, disabled when 0
+     */
+    private static final long POLL_INTERVAL = Long.getLong(SharedProjectSeedStore.class.getName() + ".pollInterval", 60L);
+
+    private static final String RECORD_SUFFIX = ".xml";
+    private static final String LOCK_SUFFIX = ".lock";
+
+    /**
+     * Stored project configuration
+     */
+    static class Record {
+
+        private final long version;
+        private final String origin;
+        private final ProjectCachedConfig config;
+
+        Record(long version, String origin, ProjectCachedConfig config) {
+            this.version = version;
+            this.origin = origin;
+            this.config = config;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        String getOrigin() {
+            return origin;
+        }
+
+        ProjectCachedConfig getConfig() {
+            return config;
+        }
+    }
+
+    /**
+     * Record as written in its file
+     */
+    private static class StoredRecord {
+
+        private final long version;
+        private final String origin;
+
+        /**
+         * Configuration without its trigger secret
+         */
+        private final ProjectCachedConfig config;
+
+        /**
+         * Encrypted trigger secret, <code>null</code> if none
+         */
+        private final String triggerSecret;
+
+        private StoredRecord(Record record) {
+            ProjectSeed seed = record.getConfig().getSeed();
+            this.version = record.getVersion();
+            this.origin = record.getOrigin();
+            this.config = new ProjectCachedConfig(
+                    new ProjectSeed(seed.getProject(), seed.getTriggerIdentifier(), seed.getTriggerType(), ""),
+                    record.getConfig().getNamingStrategy(),
+                    record.getConfig().getEventStrategy()
+            );
+            this.triggerSecret = StringUtils.isNotBlank(seed.getTriggerSecret()) ? Secret.fromString(seed.getTriggerSecret()).getEncryptedValue() : null;
+        }
+
+        /**
+         * @return Record or <code>null</code> if the trigger secret cannot be decrypted
+         */
+        private Record toRecord() {
+            if (triggerSecret == null) {
+                return new Record(version, origin, config);
+            }
+            Secret secret = Secret.decrypt(triggerSecret);
+            if (secret == null) {
+                return null;
+            }
+            ProjectSeed seed = config.getSeed();
+            return new Record(version, origin, new ProjectCachedConfig(
+                    new ProjectSeed(seed.getProject(), seed.getTriggerIdentifier(), seed.getTriggerType(), secret.getPlainText()),
+                    config.getNamingStrategy(),
+                    config.getEventStrategy()
+            ));
+        }
+    }
+
+    /**
+     * Notified when a record has been read again
+     */
+    interface Listener {
+
+        void refreshed(String key);
+
+    }
+
+    /**
+     * Record kept in the near-cache, with the identity and modification time of its file. Records being
+     * replaced by renaming, a changed record always gets a new file identity where it is supported.
+     */
+    private static class CachedRecord {
+
+        private final Record record;
+        private final Object fileKey;
+        private final long lastModified;
+
+        private CachedRecord(Record record, BasicFileAttributes attributes) {
+            this.record = record;
+            this.fileKey = attributes != null ? attributes.fileKey() : null;
+            this.lastModified = attributes != null ? attributes.lastModifiedTime().toMillis() : 0L;
+        }
+
+        private boolean isChanged(BasicFileAttributes attributes) {
+            return attributes == null
+                    || record == null
+                    || attributes.lastModifiedTime().toMillis() != lastModified
+                    || (fileKey != null && !fileKey.equals(attributes.fileKey()));
+        }
+    }
+
+    /**
+     * Missing record
+     */
+    private static final CachedRecord MISSING = new CachedRecord(null, null);
+
+    private final File dir;
+    private final XStream xStream;
+    private final String origin;
+    private final Map<String, CachedRecord> records = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final WatchService watchService;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed shared cache")
+    );
+
+    /**
+     * @param origin Identifier of this controller
+     */
+    SharedProjectSeedStore(File dir, String origin) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Cannot create the shared cache directory at %s", dir));
+        }
+        this.dir = dir;
+        this.xStream = createXStream();
+        this.origin = origin;
+        watchService = dir.toPath().getFileSystem().newWatchService();
+        dir.toPath().register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+        );
+        new NamingThreadFactory(new DaemonThreadFactory(), "Seed shared cache watcher").newThread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }).start();
+        if (POLL_INTERVAL > 0) {
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    poll();
+                }
+            }, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Serialization restricted to the types of the records
+     */
+    private static XStream createXStream() {
+        XStream xStream = new XStream();
+        xStream.addPermission(NoTypePermission.NONE);
+        xStream.addPermission(NullPermission.NULL);
+        xStream.addPermission(PrimitiveTypePermission.PRIMITIVES);
+        xStream.allowTypes(new Class[]{
+                String.class,
+                StoredRecord.class,
+                ProjectCachedConfig.class,
+                ProjectSeed.class,
+                NamingStrategyConfig.class,
+                EventStrategyConfig.class
+        });
+        return xStream;
+    }
+
+    File getDir() {
+        return dir;
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the configuration of a project, or <code>null</code> if none is stored
+     */
+    ProjectCachedConfig get(String key) {
+        Record record = getRecord(key);
+        return record != null ? record.getConfig() : null;
+    }
+
+    /**
+     * Gets the record of a project, or <code>null</code> if none is stored
+     */
+    Record getRecord(String key) {
+        CachedRecord cached = records.get(key);
+        if (cached == null) {
+            cached = read(key);
+            records.put(key, cached);
+        }
+        return cached.record;
+    }
+
+    /**
+     * Stores the configuration of a project, as a new version of its record.
+     *
+     * @return Stored record
+     */
+    synchronized Record put(String key, ProjectCachedConfig config) throws IOException {
+        try (FileChannel channel = openLock(key); FileLock ignored = channel.lock()) {
+            Record current = read(key).record;
+            Record record = new Record(current != null ? current.getVersion() + 1 : 1L, origin, config);
+            write(key, record);
+            records.put(key, read(key));
+            return record;
+        }
+    }
+
+    /**
+     * Removes the record of a project, only if it has been written by this controller.
+     *
+     * @return <code>true</code> if the record has been removed
+     */
+    synchronized boolean remove(String key) throws IOException {
+        try (FileChannel channel = openLock(key); FileLock ignored = channel.lock()) {
+            Record current = read(key).record;
+            if (current == null || !origin.equals(current.getOrigin())) {
+                return false;
+            }
+            Files.deleteIfExists(getFile(key).toPath());
+            records.put(key, MISSING);
+            return true;
+        }
+    }
+
+    void close() {
+        executor.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot close the watcher of the shared cache", ex);
+        }
+    }
+
+    /**
+     * Reads the record of a project again if its file has changed
+     */
+    void refresh(String key) {
+        CachedRecord cached = records.get(key);
+        if (cached != null && cached.isChanged(readAttributes(key))) {
+            CachedRecord changed = read(key);
+            // A concurrent write in this controller may have cached a newer version
+            if (!records.replace(key, cached, changed)) {
+                records.remove(key);
+            }
+            for (Listener listener : listeners) {
+                listener.refreshed(key);
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Changes have been lost
+                        records.clear();
+                    } else {
+                        String key = getKey(((Path) event.context()).getFileName().toString());
+                        if (key != null) {
+                            refresh(key);
+                        }
+                    }
+                }
+                if (!watchKey.reset()) {
+                    LOGGER.warning(String.format("Shared cache directory %s is not watched any longer", dir));
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Closed
+        }
+    }
+
+    private void poll() {
+        for (String key : records.keySet()) {
+            refresh(key);
+        }
+    }
+
+    private BasicFileAttributes readAttributes(String key) {
+        try {
+            return Files.readAttributes(getFile(key).toPath(), BasicFileAttributes.class);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private CachedRecord read(String key) {
+        File file = getFile(key);
+        // Attributes read first, so that a change during the read is detected later
+        BasicFileAttributes attributes = readAttributes(key);
+        if (attributes == null) {
+            return MISSING;
+        }
+        try {
+            String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            Record record = ((StoredRecord) xStream.fromXML(xml)).toRecord();
+            if (record == null) {
+                LOGGER.warning(String.format("Cannot decrypt the trigger secret of the shared cache record at %s", file));
+                return MISSING;
+            }
+            return new CachedRecord(record, attributes);
+        } catch (IOException ex) {
+            // Deleted in the meantime
+            return MISSING;
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, String.format("Cannot read the shared cache record at %s", file), ex);
+            return MISSING;
+        }
+    }
+
+    private void write(String key, Record record) throws IOException {
+        File target = getFile(key);
+        File tmp = new File(dir, "." + target.getName() + ".tmp");
+        Files.write(tmp.toPath(), xStream.toXML(new StoredRecord(record)).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens the file used to lock the record of a project against the other controllers. The lock file
+     * is kept, so that all the controllers always lock the same file. Within this controller, the writes
+     * are serialized by the store itself.
+     */
+    private FileChannel openLock(String key) throws IOException {
+        return FileChannel.open(
+                new File(dir, encode(key) + LOCK_SUFFIX).toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE
+        );
+    }
+
+    private File getFile(String key) {
+        return new File(dir, encode(key) + RECORD_SUFFIX);
+    }
+
+    private static String encode(String key) {
+        try {
+            return URLEncoder.encode(key, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Key of a record file, or <code>null</code> for any other file
+     */
+    private static String getKey(String fileName) {
+        if (!fileName.endsWith(RECORD_SUFFIX) || fileName.startsWith(".")) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(fileName.substring(0, fileName.length() - RECORD_SUFFIX.length()), "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
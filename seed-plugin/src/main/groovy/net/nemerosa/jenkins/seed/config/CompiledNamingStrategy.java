@@ -0,0 +1,243 @@
+package net.nemerosa.jenkins.seed.config;
+
+import net.nemerosa.jenkins.seed.support.CompiledTemplate;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Naming strategy compiled once for a {@link NamingStrategyConfig}: ignored branch prefixes in a trie,
+ * expressions compiled into templates and a table-driven normalisation.
+ */
+class CompiledNamingStrategy {
+
+    /**
+     * Characters kept by the normalisation, any other character being replaced by a dash
+     */
+    private static final boolean[] ALLOWED = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            ALLOWED[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            ALLOWED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ALLOWED[c] = true;
+        }
+        ALLOWED['.'] = true;
+        ALLOWED['_'] = true;
+        ALLOWED['-'] = true;
+    }
+
+    /**
+     * Node of the trie of the ignored prefixes
+     */
+    private static class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /**
+         * Positions, in the configured list, of the prefixes ending at this node
+         */
+        private int[] positions = new int[0];
+
+        private Node child(char c) {
+            Node child = children.get(c);
+            if (child == null) {
+                child = new Node();
+                children.put(c, child);
+            }
+            return child;
+        }
+    }
+
+    private final Node prefixes = new Node();
+    private final boolean hasPrefixes;
+
+    private final CompiledTemplate projectFolder;
+    private final CompiledTemplate projectSeed;
+    private final CompiledTemplate projectDestructor;
+    private final CompiledTemplate branchName;
+    private final CompiledTemplate branchFolder;
+    private final CompiledTemplate branchSeed;
+    private final CompiledTemplate branchStart;
+
+    CompiledNamingStrategy(NamingStrategyConfig config) {
+        List<String> lines = LineParser.parseLines(config.getIgnoredBranchPrefixes());
+        for (int position = 0; position < lines.size(); position++) {
+            Node node = prefixes;
+            for (char c : lines.get(position).toCharArray()) {
+                node = node.child(c);
+            }
+            node.positions = Arrays.copyOf(node.positions, node.positions.length + 1);
+            node.positions[node.positions.length - 1] = position;
+        }
+        hasPrefixes = !lines.isEmpty();
+
+        projectFolder = compile(config.getProjectFolderPath(), "${project}", "project", false);
+        projectSeed = compile(config.getProjectSeedName(), "${project}-seed", "project", false);
+        projectDestructor = compile(config.getProjectDestructorName(), "${project}-destructor", "project", false);
+        branchName = compile(config.getBranchName(), "${branch}", "branch", false);
+        branchFolder = compile(config.getBranchFolderPath(), "${project}-*", "project", true);
+        branchSeed = compile(config.getBranchSeedName(), "${project}-*-seed", "project", true);
+        branchStart = compile(config.getBranchStartName(), "${project}-*-build", "project", true);
+    }
+
+    String getProjectFolder(String project) {
+        return projectFolder.render(project);
+    }
+
+    String getProjectSeedJob(String project) {
+        return projectSeed.render(project);
+    }
+
+    String getProjectDestructorJob(String project) {
+        return projectDestructor.render(project);
+    }
+
+    String getBranchName(String branch) {
+        return branchName.render(normalise(removePrefixes(branch)));
+    }
+
+    String getBranchFolderPath(String project, String branch) {
+        return branchFolder.render(project, getBranchName(branch));
+    }
+
+    String getBranchSeedName(String project, String branch) {
+        return branchSeed.render(project, getBranchName(branch));
+    }
+
+    String getBranchStartName(String project, String branch) {
+        return branchStart.render(project, getBranchName(branch));
+    }
+
+    String getBranchFolderPathForName(String project, String branchName) {
+        return branchFolder.render(project, branchName);
+    }
+
+    String getBranchSeedNameForName(String project, String branchName) {
+        return branchSeed.render(project, branchName);
+    }
+
+    String getBranchStartNameForName(String project, String branchName) {
+        return branchStart.render(project, branchName);
+    }
+
+    /**
+     * Resolves an item from its full name, inverting the naming of the project.
+     *
+     * @return Resolved item, or <code>null</code> if the item is not in the project folder
+     */
+    SeedItem resolve(String project, String fullName) {
+        String folder = getProjectFolder(project);
+        if (fullName.equals(folder)) {
+            return new SeedItem(project, null, SeedItemRole.PROJECT_FOLDER);
+        } else if (!fullName.startsWith(folder) || fullName.length() <= folder.length() + 1 || fullName.charAt(folder.length()) != '/') {
+            return null;
+        }
+        String path = fullName.substring(folder.length() + 1);
+        if (path.equals(getProjectSeedJob(project))) {
+            return new SeedItem(project, null, SeedItemRole.PROJECT_SEED);
+        } else if (path.equals(getProjectDestructorJob(project))) {
+            return new SeedItem(project, null, SeedItemRole.PROJECT_DESTRUCTOR);
+        }
+        // Branch folder, which may have several levels, then the item in it
+        int end = path.indexOf('/');
+        while (true) {
+            String branchPath = end < 0 ? path : path.substring(0, end);
+            String branch = branchFolder.match(project, branchPath);
+            if (branch != null) {
+                if (end < 0) {
+                    return new SeedItem(project, branch, SeedItemRole.BRANCH_FOLDER);
+                }
+                String name = path.substring(end + 1);
+                if (name.equals(branchSeed.render(project, branch))) {
+                    return new SeedItem(project, branch, SeedItemRole.BRANCH_SEED);
+                } else if (name.equals(branchStart.render(project, branch))) {
+                    return new SeedItem(project, branch, SeedItemRole.BRANCH_START);
+                } else {
+                    return new SeedItem(project, branch, SeedItemRole.BRANCH_ITEM);
+                }
+            }
+            if (end < 0) {
+                return new SeedItem(project, null, SeedItemRole.PROJECT_ITEM);
+            }
+            end = path.indexOf('/', end + 1);
+        }
+    }
+
+    /**
+     * Removes the ignored prefixes the same way as removing each of them in turn, in the configured order:
+     * at each step, the first remaining prefix which starts the branch is removed.
+     */
+    String removePrefixes(String branch) {
+        if (!hasPrefixes) {
+            return branch;
+        }
+        int start = 0;
+        int next = 0;
+        while (true) {
+            int found = -1;
+            int end = start;
+            Node node = prefixes;
+            for (int i = start; i < branch.length(); i++) {
+                node = node.children.get(branch.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                for (int position : node.positions) {
+                    if (position >= next && (found < 0 || position < found)) {
+                        found = position;
+                        end = i + 1;
+                    }
+                }
+            }
+            if (found < 0) {
+                return start > 0 ? branch.substring(start) : branch;
+            }
+            start = end;
+            next = found + 1;
+        }
+    }
+
+    /**
+     * Replaces any character which is not a letter, a digit, a dot, an underscore or a dash by a dash
+     */
+    static String normalise(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c >= 128 || !ALLOWED[c]) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(length);
+        builder.append(value, 0, i);
+        while (i < length) {
+            int codePoint = value.codePointAt(i);
+            builder.append(codePoint < 128 && ALLOWED[codePoint] ? (char) codePoint : '-');
+            // A supplementary character is replaced by a single dash
+            i += Character.charCount(codePoint);
+        }
+        return builder.toString();
+    }
+
+    private static CompiledTemplate compile(String expression, String defaultExpression, String name, boolean branchPlaceholder) {
+        return CompiledTemplate.compile(
+                StringUtils.isNotBlank(expression) ? expression : defaultExpression,
+                name,
+                branchPlaceholder
+        );
+    }
+
+}
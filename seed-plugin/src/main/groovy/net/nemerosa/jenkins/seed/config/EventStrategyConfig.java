@@ -29,11 +29,34 @@ public class EventStrategyConfig {
     @Wither
     private final boolean trigger;
 
+    /**
+     * Number of reusable pipeline slots for the pull request branches. When greater than 0, an opened pull request
+     * leases a free slot, whose pipeline is re-pointed to the pull request branch, instead of getting its own
+     * pipeline. The slot is released when the pull request is merged or deleted. If 0 (default), each pull request
+     * branch gets its own pipeline.
+     */
+    @Wither
+    private final int pullRequestSlots;
+
+    /**
+     * Path to a shared release pipeline job, relative to the project folder. When set, the creation and commit
+     * events for tags launch this job, with the tag as <code>TAG</code> parameter, instead of creating a pipeline
+     * for each tag. If blank (default), tags are managed like branches.
+     */
+    @Wither
+    private final String tagPipeline;
+
     @DataBoundConstructor
-    public EventStrategyConfig(boolean delete, boolean auto, boolean trigger) {
+    public EventStrategyConfig(boolean delete, boolean auto, boolean trigger, int pullRequestSlots, String tagPipeline) {
         this.delete = delete;
         this.auto = auto;
         this.trigger = trigger;
+        this.pullRequestSlots = pullRequestSlots;
+        this.tagPipeline = tagPipeline;
+    }
+
+    public EventStrategyConfig(boolean delete, boolean auto, boolean trigger) {
+        this(delete, auto, trigger, 0, "");
     }
 
     public EventStrategyConfig() {
@@ -1,12 +1,29 @@
 package net.nemerosa.jenkins.seed.config;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class LineParser {
 
+    /**
+     * Parsed lines, by text instance. The texts come from the configurations and are kept as long
+     * as their configuration.
+     */
+    private static final LoadingCache<String, List<String>> LINES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<String, List<String>>() {
+                @Override
+                public List<String> load(String text) {
+                    return Collections.unmodifiableList(parseLines(text));
+                }
+            });
+
     public static List<String> parseLines(String text) {
         List<String> list = new ArrayList<>();
         if (StringUtils.isNotBlank(text)) {
@@ -21,4 +38,16 @@ public class LineParser {
         return list;
     }
 
+    /**
+     * Same as {@link #parseLines(String)}, but the lines of a given text instance are parsed only once.
+     *
+     * @return Read-only list of lines
+     */
+    public static List<String> getLines(String text) {
+        if (StringUtils.isBlank(text)) {
+            return Collections.emptyList();
+        }
+        return LINES.getUnchecked(text);
+    }
+
 }
@@ -1,14 +1,13 @@
 package net.nemerosa.jenkins.seed.config;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import lombok.Data;
 import lombok.experimental.Wither;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 
-import java.util.List;
-
-import static net.nemerosa.jenkins.seed.support.Evaluator.evaluate;
-
 @Data
 public class NamingStrategyConfig {
 
@@ -17,6 +16,19 @@ public class NamingStrategyConfig {
      */
     public static final String BRANCH_PLACEHOLDER = "*";
 
+    /**
+     * Compiled strategies, built once per configuration instance. Since a configuration is never
+     * modified but replaced, they never need to be invalidated.
+     */
+    private static final LoadingCache<NamingStrategyConfig, CompiledNamingStrategy> COMPILED = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<NamingStrategyConfig, CompiledNamingStrategy>() {
+                @Override
+                public CompiledNamingStrategy load(NamingStrategyConfig config) {
+                    return new CompiledNamingStrategy(config);
+                }
+            });
+
     /**
      * Path to the project folder
      */
@@ -93,48 +105,82 @@ public class NamingStrategyConfig {
     }
 
     public String getProjectFolder(String project) {
-        return evaluate(projectFolderPath, "${project}", "project", project);
+        return getCompiled().getProjectFolder(project);
     }
 
     public String getProjectSeedJob(String project) {
-        return evaluate(projectSeedName, "${project}-seed", "project", project);
+        return getCompiled().getProjectSeedJob(project);
     }
 
     public String getProjectDestructorJob(String project) {
-        return evaluate(projectDestructorName, "${project}-destructor", "project", project);
+        return getCompiled().getProjectDestructorJob(project);
     }
 
     public String getBranchName(String branch) {
-        String value = branch;
-        // Gets the branch prefixes
-        List<String> prefixes = LineParser.parseLines(ignoredBranchPrefixes);
-        // Removes branch prefixes
-        for (String prefix : prefixes) {
-            value = StringUtils.removeStart(value, prefix);
-        }
-        // Normalisation
-        value = normalise(value);
-        // Evaluation
-        return evaluate(branchName, "${branch}", "branch", value);
+        return getCompiled().getBranchName(branch);
     }
 
     public String getBranchFolderPath(String project, String branch) {
-        return evaluate(branchFolderPath, "${project}-*", "project", project)
-                .replace(BRANCH_PLACEHOLDER, getBranchName(branch));
+        return getCompiled().getBranchFolderPath(project, branch);
     }
 
     public String getBranchSeedName(String project, String branch) {
-        return evaluate(branchSeedName, "${project}-*-seed", "project", project)
-                .replace(BRANCH_PLACEHOLDER, getBranchName(branch));
+        return getCompiled().getBranchSeedName(project, branch);
     }
 
     public String getBranchStartName(String project, String branch) {
-        return evaluate(branchStartName, "${project}-*-build", "project", project)
-                .replace(BRANCH_PLACEHOLDER, getBranchName(branch));
+        return getCompiled().getBranchStartName(project, branch);
+    }
+
+    /**
+     * Path to the branch folder for a branch known only by its name, as returned by
+     * {@link #getBranchName(String)} or {@link #resolve(String, String)}.
+     */
+    public String getBranchFolderPathForName(String project, String branchName) {
+        return getCompiled().getBranchFolderPathForName(project, branchName);
+    }
+
+    /**
+     * Name of the branch seed for a branch known only by its name
+     *
+     * @see #getBranchFolderPathForName(String, String)
+     */
+    public String getBranchSeedNameForName(String project, String branchName) {
+        return getCompiled().getBranchSeedNameForName(project, branchName);
+    }
+
+    /**
+     * Name of the branch start job for a branch known only by its name
+     *
+     * @see #getBranchFolderPathForName(String, String)
+     */
+    public String getBranchStartNameForName(String project, String branchName) {
+        return getCompiled().getBranchStartNameForName(project, branchName);
+    }
+
+    /**
+     * Checks if both strategies give the same name to any branch
+     */
+    public boolean isSameBranchName(NamingStrategyConfig other) {
+        return StringUtils.equals(StringUtils.trimToEmpty(branchName), StringUtils.trimToEmpty(other.branchName))
+                && StringUtils.equals(StringUtils.trimToEmpty(ignoredBranchPrefixes), StringUtils.trimToEmpty(other.ignoredBranchPrefixes));
+    }
+
+    /**
+     * Resolves an item of a project from its full name.
+     *
+     * @return Resolved item, or <code>null</code> if the item does not belong to the project
+     */
+    public SeedItem resolve(String project, String fullName) {
+        return getCompiled().resolve(project, fullName);
     }
 
     public static String normalise(String value) {
-        return value.replaceAll("[^A-Za-z0-9._-]", "-");
+        return CompiledNamingStrategy.normalise(value);
+    }
+
+    private CompiledNamingStrategy getCompiled() {
+        return COMPILED.getUnchecked(this);
     }
 
 }
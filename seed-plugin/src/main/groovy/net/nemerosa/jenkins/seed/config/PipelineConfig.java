@@ -25,6 +25,13 @@ public class PipelineConfig {
     @Wither
     private final String authorisations;
 
+    /**
+     * Boolean to generate the authorisations of the project folder in a compact form, grouped by user or group,
+     * without the redundant permissions and with references to the authorisation roles.
+     */
+    @Wither
+    private final boolean compactAuthorisations;
+
     /**
      * Boolean which configures the project generator to have an extra BRANCH_SCM parameter
      */
@@ -78,6 +85,7 @@ public class PipelineConfig {
         this(
                 false, // No destructor by default
                 "", // No authorisations
+                false, // Authorisations as they are
                 false, // No branch SCM parameter
                 "", // No extra parameter
                 "", // No extra DSL
@@ -93,9 +101,10 @@ public class PipelineConfig {
      * Default constructor with default values
      */
     @DataBoundConstructor
-    public PipelineConfig(boolean destructor, String authorisations, boolean branchSCMParameter, String branchParameters, String generationExtension, String pipelineGenerationExtension, boolean disableDslScript, String scriptDirectory, NamingStrategyConfig namingStrategy, EventStrategyConfig eventStrategy) {
+    public PipelineConfig(boolean destructor, String authorisations, boolean compactAuthorisations, boolean branchSCMParameter, String branchParameters, String generationExtension, String pipelineGenerationExtension, boolean disableDslScript, String scriptDirectory, NamingStrategyConfig namingStrategy, EventStrategyConfig eventStrategy) {
         this.destructor = destructor;
         this.authorisations = authorisations;
+        this.compactAuthorisations = compactAuthorisations;
         this.branchSCMParameter = branchSCMParameter;
         this.branchParameters = branchParameters;
         this.generationExtension = generationExtension;
@@ -119,16 +128,10 @@ public class PipelineConfig {
     }
 
     public List<String> getProjectAuthorisations(ProjectParameters parameters) {
-        List<String> list = new ArrayList<>();
-        if (StringUtils.isNotBlank(authorisations)) {
-            String[] array = StringUtils.split(authorisations, "\n");
-            for (String line : array) {
-                line = StringUtils.trim(line);
-                if (StringUtils.isNotBlank(line) && !StringUtils.startsWith(line, "#")) {
-                    String token = StringUtils.replace(line, "*", parameters.getProject());
-                    list.add(token);
-                }
-            }
+        List<String> lines = LineParser.getLines(authorisations);
+        List<String> list = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            list.add(StringUtils.replace(line, "*", parameters.getProject()));
         }
         return list;
     }
@@ -140,7 +143,7 @@ public class PipelineConfig {
      * @return List of extra parameters (name : description)
      */
     public Map<String, String> getBranchParameters(ProjectParameters parameters) {
-        List<String> lines = LineParser.parseLines(branchParameters);
+        List<String> lines = LineParser.getLines(branchParameters);
         Map<String, String> list = new LinkedHashMap<>();
         for (String line : lines) {
             String token = StringUtils.replace(line, "*", parameters.getProject());
@@ -0,0 +1,127 @@
+package net.nemerosa.jenkins.seed.config;
+
+import lombok.Data;
+import lombok.experimental.Wither;
+
+/**
+ * Partial change of a {@link PipelineConfig}, applied to already generated projects without running their
+ * project seeds again. Only the properties which are not <code>null</code> are changed.
+ * <p>
+ * Only the event strategy and the branch level naming can be patched. The other properties are only taken
+ * into account when the project items are generated, and the project level naming defines where the project
+ * seed itself is generated.
+ */
+@Data
+public class PipelineConfigPatch {
+
+    @Wither
+    private final Boolean delete;
+
+    @Wither
+    private final Boolean auto;
+
+    @Wither
+    private final Boolean trigger;
+
+    @Wither
+    private final Integer pullRequestSlots;
+
+    @Wither
+    private final String tagPipeline;
+
+    @Wither
+    private final String branchFolderPath;
+
+    @Wither
+    private final String branchSeedName;
+
+    @Wither
+    private final String branchStartName;
+
+    @Wither
+    private final String branchName;
+
+    @Wither
+    private final String ignoredBranchPrefixes;
+
+    public PipelineConfigPatch() {
+        this(null, null, null, null, null, null, null, null, null, null);
+    }
+
+    public PipelineConfigPatch(Boolean delete, Boolean auto, Boolean trigger, Integer pullRequestSlots, String tagPipeline, String branchFolderPath, String branchSeedName, String branchStartName, String branchName, String ignoredBranchPrefixes) {
+        this.delete = delete;
+        this.auto = auto;
+        this.trigger = trigger;
+        this.pullRequestSlots = pullRequestSlots;
+        this.tagPipeline = tagPipeline;
+        this.branchFolderPath = branchFolderPath;
+        this.branchSeedName = branchSeedName;
+        this.branchStartName = branchStartName;
+        this.branchName = branchName;
+        this.ignoredBranchPrefixes = ignoredBranchPrefixes;
+    }
+
+    /**
+     * Checks if the patch changes the naming of the branches, in which case the existing branches
+     * must be migrated
+     */
+    public boolean isNamingPatch() {
+        return branchFolderPath != null
+                || branchSeedName != null
+                || branchStartName != null
+                || branchName != null
+                || ignoredBranchPrefixes != null;
+    }
+
+    public boolean isEmpty() {
+        return delete == null
+                && auto == null
+                && trigger == null
+                && pullRequestSlots == null
+                && tagPipeline == null
+                && !isNamingPatch();
+    }
+
+    /**
+     * Applies the patch to a configuration
+     *
+     * @return Patched configuration
+     */
+    public PipelineConfig apply(PipelineConfig config) {
+        EventStrategyConfig eventStrategy = config.getEventStrategy();
+        if (delete != null) {
+            eventStrategy = eventStrategy.withDelete(delete);
+        }
+        if (auto != null) {
+            eventStrategy = eventStrategy.withAuto(auto);
+        }
+        if (trigger != null) {
+            eventStrategy = eventStrategy.withTrigger(trigger);
+        }
+        if (pullRequestSlots != null) {
+            eventStrategy = eventStrategy.withPullRequestSlots(pullRequestSlots);
+        }
+        if (tagPipeline != null) {
+            eventStrategy = eventStrategy.withTagPipeline(tagPipeline);
+        }
+        NamingStrategyConfig namingStrategy = config.getNamingStrategy();
+        if (branchFolderPath != null) {
+            namingStrategy = namingStrategy.withBranchFolderPath(branchFolderPath);
+        }
+        if (branchSeedName != null) {
+            namingStrategy = namingStrategy.withBranchSeedName(branchSeedName);
+        }
+        if (branchStartName != null) {
+            namingStrategy = namingStrategy.withBranchStartName(branchStartName);
+        }
+        if (branchName != null) {
+            namingStrategy = namingStrategy.withBranchName(branchName);
+        }
+        if (ignoredBranchPrefixes != null) {
+            namingStrategy = namingStrategy.withIgnoredBranchPrefixes(ignoredBranchPrefixes);
+        }
+        return config
+                .withEventStrategy(eventStrategy)
+                .withNamingStrategy(namingStrategy);
+    }
+}
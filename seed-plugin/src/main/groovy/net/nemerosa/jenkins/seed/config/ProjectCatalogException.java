@@ -0,0 +1,9 @@
+package net.nemerosa.jenkins.seed.config;
+
+import net.nemerosa.jenkins.seed.SeedException;
+
+public class ProjectCatalogException extends SeedException {
+    public ProjectCatalogException(int line, String message, Object... parameters) {
+        super("Project catalog, line %d: %s", line, String.format(message, parameters));
+    }
+}
@@ -0,0 +1,388 @@
+package net.nemerosa.jenkins.seed.config;
+
+import org.apache.commons.lang.StringUtils;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a catalog of projects from YAML:
+ * <pre>
+ * # Pipeline configuration of all the projects, before the projects
+ * defaults:
+ *   destructor: yes
+ *   authorisations: |
+ *     hudson.model.Item.Read:jenkins_*
+ *   naming:
+ *     branch-name: ${BRANCH}
+ *     ignored-branch-prefixes:
+ *       - feature/
+ *   events:
+ *     pull-request-slots: 4
+ * projects:
+ *   - id: nemerosa/ontrack
+ *     name: ontrack
+ *     scm-type: git
+ *     scm-url: https://github.com/nemerosa/ontrack.git
+ *     # Overrides the defaults
+ *     events:
+ *       auto: no
+ * </pre>
+ * The <code>id</code> of a project is its trigger identifier and, when there is no <code>name</code>, its name.
+ * <p>
+ * The catalog is parsed as a stream of events and each project is handed over as soon as it has been read,
+ * so that only one project is held in memory whatever the size of the catalog.
+ */
+public class ProjectCatalogReader {
+
+    /**
+     * Receives the projects of the catalog
+     */
+    public interface Handler {
+
+        void project(ProjectPipelineConfig config) throws IOException, InterruptedException;
+
+    }
+
+    private final Iterator<Event> events;
+
+    private int line;
+
+    private PipelineConfig defaults = new PipelineConfig();
+
+    private ProjectCatalogReader(Reader reader) {
+        this.events = new Yaml().parse(reader).iterator();
+    }
+
+    /**
+     * Reads a catalog and hands its projects over to a handler, in order.
+     *
+     * @return Number of projects
+     */
+    public static int read(Reader reader, Handler handler) throws IOException, InterruptedException {
+        ProjectCatalogReader catalogReader = new ProjectCatalogReader(reader);
+        try {
+            return catalogReader.readCatalog(handler);
+        } catch (MarkedYAMLException ex) {
+            // Line of the syntax error, or of the last read event if not known
+            Mark mark = ex.getProblemMark() != null ? ex.getProblemMark() : ex.getContextMark();
+            throw new ProjectCatalogException(
+                    mark != null ? mark.getLine() + 1 : catalogReader.line,
+                    "%s",
+                    StringUtils.defaultString(ex.getProblem(), ex.getMessage())
+            );
+        } catch (YAMLException ex) {
+            throw new ProjectCatalogException(catalogReader.line, "%s", ex.getMessage());
+        }
+    }
+
+    private int readCatalog(Handler handler) throws IOException, InterruptedException {
+        int count = 0;
+        expect(StreamStartEvent.class);
+        Event event = next();
+        if (event instanceof StreamEndEvent) {
+            // Empty catalog
+            return count;
+        }
+        check(event, DocumentStartEvent.class);
+        expect(MappingStartEvent.class);
+        while (!((event = next()) instanceof MappingEndEvent)) {
+            String key = scalar(event);
+            if ("defaults".equals(key)) {
+                if (count > 0) {
+                    throw new ProjectCatalogException(line, "defaults must be defined before the projects");
+                }
+                int defaultsLine = line;
+                Map<String, Object> values = toMap(readValue(next()), "defaults");
+                // Errors reported at the start of the defaults
+                line = defaultsLine;
+                defaults = toPipelineConfig(new PipelineConfig(), values);
+            } else if ("projects".equals(key)) {
+                event = next();
+                if (event instanceof ScalarEvent && StringUtils.isEmpty(((ScalarEvent) event).getValue())) {
+                    // No project
+                    continue;
+                }
+                check(event, SequenceStartEvent.class);
+                while (!((event = next()) instanceof SequenceEndEvent)) {
+                    int projectLine = line;
+                    Map<String, Object> values = toMap(readValue(event), "project");
+                    // Errors reported at the start of the project
+                    line = projectLine;
+                    handler.project(toProject(values));
+                    count++;
+                }
+            } else {
+                throw new ProjectCatalogException(line, "unknown key %s", key);
+            }
+        }
+        expect(DocumentEndEvent.class);
+        return count;
+    }
+
+    private ProjectPipelineConfig toProject(Map<String, Object> values) {
+        Map<String, Object> pipelineValues = new LinkedHashMap<>(values);
+        String id = string(pipelineValues.remove("id"));
+        String name = string(pipelineValues.remove("name"));
+        String triggerIdentifier = string(pipelineValues.remove("trigger-identifier"));
+        String scmType = string(pipelineValues.remove("scm-type"));
+        String scmUrl = string(pipelineValues.remove("scm-url"));
+        String scmCredentials = string(pipelineValues.remove("scm-credentials"));
+        String triggerType = string(pipelineValues.remove("trigger-type"));
+        String triggerSecret = string(pipelineValues.remove("trigger-secret"));
+        if (StringUtils.isBlank(id) && StringUtils.isBlank(name)) {
+            throw new ProjectCatalogException(line, "a project must have an id or a name");
+        }
+        String project;
+        if (StringUtils.isNotBlank(name)) {
+            project = name;
+            if (StringUtils.isBlank(triggerIdentifier)) {
+                triggerIdentifier = StringUtils.defaultString(id);
+            }
+        } else {
+            project = id;
+        }
+        return new ProjectPipelineConfig(
+                toPipelineConfig(defaults, pipelineValues),
+                project,
+                StringUtils.defaultString(scmType),
+                StringUtils.defaultString(scmUrl),
+                StringUtils.defaultString(scmCredentials),
+                StringUtils.defaultString(triggerIdentifier),
+                StringUtils.defaultString(triggerType),
+                StringUtils.defaultString(triggerSecret)
+        );
+    }
+
+    private PipelineConfig toPipelineConfig(PipelineConfig config, Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            switch (key) {
+                case "destructor":
+                    config = config.withDestructor(bool(key, value));
+                    break;
+                case "authorisations":
+                    config = config.withAuthorisations(lines(value));
+                    break;
+                case "compact-authorisations":
+                    config = config.withCompactAuthorisations(bool(key, value));
+                    break;
+                case "branch-scm-parameter":
+                    config = config.withBranchSCMParameter(bool(key, value));
+                    break;
+                case "branch-parameters":
+                    config = config.withBranchParameters(lines(value));
+                    break;
+                case "generation-extension":
+                    config = config.withGenerationExtension(string(value));
+                    break;
+                case "pipeline-generation-extension":
+                    config = config.withPipelineGenerationExtension(string(value));
+                    break;
+                case "disable-dsl-script":
+                    config = config.withDisableDslScript(bool(key, value));
+                    break;
+                case "script-directory":
+                    config = config.withScriptDirectory(string(value));
+                    break;
+                case "naming":
+                    config = config.withNamingStrategy(toNamingStrategy(config.getNamingStrategy(), toMap(value, key)));
+                    break;
+                case "events":
+                    config = config.withEventStrategy(toEventStrategy(config.getEventStrategy(), toMap(value, key)));
+                    break;
+                default:
+                    throw new ProjectCatalogException(line, "unknown key %s", key);
+            }
+        }
+        return config;
+    }
+
+    private NamingStrategyConfig toNamingStrategy(NamingStrategyConfig config, Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            String value = lines(entry.getValue());
+            switch (entry.getKey()) {
+                case "project-folder-path":
+                    config = config.withProjectFolderPath(value);
+                    break;
+                case "branch-folder-path":
+                    config = config.withBranchFolderPath(value);
+                    break;
+                case "project-seed-name":
+                    config = config.withProjectSeedName(value);
+                    break;
+                case "project-destructor-name":
+                    config = config.withProjectDestructorName(value);
+                    break;
+                case "branch-seed-name":
+                    config = config.withBranchSeedName(value);
+                    break;
+                case "branch-start-name":
+                    config = config.withBranchStartName(value);
+                    break;
+                case "branch-name":
+                    config = config.withBranchName(value);
+                    break;
+                case "ignored-branch-prefixes":
+                    config = config.withIgnoredBranchPrefixes(value);
+                    break;
+                default:
+                    throw new ProjectCatalogException(line, "unknown key naming.%s", entry.getKey());
+            }
+        }
+        return config;
+    }
+
+    private EventStrategyConfig toEventStrategy(EventStrategyConfig config, Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            switch (key) {
+                case "delete":
+                    config = config.withDelete(bool(key, value));
+                    break;
+                case "auto":
+                    config = config.withAuto(bool(key, value));
+                    break;
+                case "trigger":
+                    config = config.withTrigger(bool(key, value));
+                    break;
+                case "pull-request-slots":
+                    try {
+                        config = config.withPullRequestSlots(Integer.parseInt(string(value)));
+                    } catch (NumberFormatException ex) {
+                        throw new ProjectCatalogException(line, "%s must be a number", key);
+                    }
+                    break;
+                case "tag-pipeline":
+                    config = config.withTagPipeline(string(value));
+                    break;
+                default:
+                    throw new ProjectCatalogException(line, "unknown key events.%s", key);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Reads a value starting with the given event, as a string, a list or a map
+     */
+    private Object readValue(Event event) {
+        if (event instanceof ScalarEvent) {
+            return ((ScalarEvent) event).getValue();
+        } else if (event instanceof SequenceStartEvent) {
+            List<Object> list = new ArrayList<>();
+            while (!((event = next()) instanceof SequenceEndEvent)) {
+                list.add(readValue(event));
+            }
+            return list;
+        } else if (event instanceof MappingStartEvent) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            while (!((event = next()) instanceof MappingEndEvent)) {
+                String key = scalar(event);
+                if (map.put(key, readValue(next())) != null) {
+                    throw new ProjectCatalogException(line, "duplicate key %s", key);
+                }
+            }
+            return map;
+        } else if (event instanceof AliasEvent) {
+            throw new ProjectCatalogException(line, "aliases are not supported");
+        } else {
+            throw new ProjectCatalogException(line, "unexpected %s", event);
+        }
+    }
+
+    private Event next() {
+        if (!events.hasNext()) {
+            throw new ProjectCatalogException(line, "unexpected end of the catalog");
+        }
+        Event event = events.next();
+        if (event.getStartMark() != null) {
+            line = event.getStartMark().getLine() + 1;
+        }
+        return event;
+    }
+
+    private void expect(Class<? extends Event> type) {
+        check(next(), type);
+    }
+
+    private void check(Event event, Class<? extends Event> type) {
+        if (!type.isInstance(event)) {
+            throw new ProjectCatalogException(line, "unexpected %s", event);
+        }
+    }
+
+    private String scalar(Event event) {
+        if (!(event instanceof ScalarEvent)) {
+            throw new ProjectCatalogException(line, "a key was expected");
+        }
+        return ((ScalarEvent) event).getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(Object value, String key) {
+        if (value instanceof Map) {
+            return (Map<String, Object>) value;
+        } else if (value instanceof String && StringUtils.isEmpty((String) value)) {
+            return new LinkedHashMap<>();
+        } else {
+            throw new ProjectCatalogException(line, "%s must be a map", key);
+        }
+    }
+
+    private String string(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        } else {
+            throw new ProjectCatalogException(line, "a single value was expected");
+        }
+    }
+
+    /**
+     * Text value, which can be given as a list of lines
+     */
+    private String lines(Object value) {
+        if (value instanceof List) {
+            List<String> lines = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                lines.add(string(item));
+            }
+            return StringUtils.join(lines, "\n");
+        } else {
+            return string(value);
+        }
+    }
+
+    private boolean bool(String key, Object value) {
+        String text = StringUtils.lowerCase(string(value));
+        if ("true".equals(text) || "yes".equals(text) || "on".equals(text)) {
+            return true;
+        } else if ("false".equals(text) || "no".equals(text) || "off".equals(text)) {
+            return false;
+        } else {
+            throw new ProjectCatalogException(line, "%s must be a boolean", key);
+        }
+    }
+}
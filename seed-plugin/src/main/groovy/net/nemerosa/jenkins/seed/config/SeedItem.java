@@ -0,0 +1,25 @@
+package net.nemerosa.jenkins.seed.config;
+
+import lombok.Data;
+
+/**
+ * Item resolved from its full name through the naming strategy of a project.
+ */
+@Data
+public class SeedItem {
+
+    /**
+     * Project name
+     */
+    private final String project;
+
+    /**
+     * Branch name, as returned by {@link NamingStrategyConfig#getBranchName(String)}, or <code>null</code>
+     * for the project level items. The ignored prefixes and the normalisation cannot be reverted, so this
+     * is not always the name of the branch in the SCM.
+     */
+    private final String branch;
+
+    private final SeedItemRole role;
+
+}
@@ -0,0 +1,32 @@
+package net.nemerosa.jenkins.seed.config;
+
+/**
+ * Role of an item in the naming strategy of a project
+ */
+public enum SeedItemRole {
+
+    PROJECT_FOLDER(false),
+    PROJECT_SEED(false),
+    PROJECT_DESTRUCTOR(false),
+    /**
+     * Any other item in the project folder
+     */
+    PROJECT_ITEM(false),
+    BRANCH_FOLDER(true),
+    BRANCH_SEED(true),
+    BRANCH_START(true),
+    /**
+     * Any other item in a branch folder, like the jobs of the pipeline
+     */
+    BRANCH_ITEM(true);
+
+    private final boolean branch;
+
+    SeedItemRole(boolean branch) {
+        this.branch = branch;
+    }
+
+    public boolean isBranch() {
+        return branch;
+    }
+}
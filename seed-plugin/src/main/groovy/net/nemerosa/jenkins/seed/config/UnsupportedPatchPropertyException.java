@@ -0,0 +1,9 @@
+package net.nemerosa.jenkins.seed.config;
+
+import net.nemerosa.jenkins.seed.SeedException;
+
+public class UnsupportedPatchPropertyException extends SeedException {
+    public UnsupportedPatchPropertyException(String name) {
+        super("Property %s cannot be patched", name);
+    }
+}
@@ -12,6 +12,7 @@ import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -19,6 +20,21 @@ public abstract class AbstractGenerationStep extends Builder {
 
     @Override
     public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+        generate(build, listener, "dsl.groovy", true);
+        // OK
+        return true;
+    }
+
+    /**
+     * Runs the generation in a build.
+     *
+     * @param scriptFile             Name of the workspace file the script is saved into, or <code>null</code>
+     *                               for not saving it
+     * @param rebuildDependencyGraph <code>false</code> when several generations are run in a row and the
+     *                               graph is rebuilt once at the end
+     * @return Full names of the generated items
+     */
+    public List<String> generate(AbstractBuild<?, ?> build, BuildListener listener, String scriptFile, boolean rebuildDependencyGraph) throws InterruptedException, IOException {
 
         // Default environment for the DSL execution
         final EnvVars env = build.getEnvironment(listener);
@@ -50,17 +66,21 @@ public abstract class AbstractGenerationStep extends Builder {
         // Replacements
         script = replaceExtensionPoints(listener, script, context.getExtensions());
 
+        // Pre processing
+        context.preProcessing(build, listener, env);
+
         // Saves the script
-        build.getWorkspace().child("dsl.groovy").write(script, "UTF-8");
+        if (scriptFile != null) {
+            build.getWorkspace().child(scriptFile).write(script, "UTF-8");
+        }
 
         // Runs the script
-        DSLHelper.launchGenerationScript(build, listener, env, script);
+        List<String> generatedItems = DSLHelper.launchGenerationScript(build, listener, env, script, rebuildDependencyGraph);
 
         // Post processing
-        context.postProcessing(build, listener, env);
+        context.postProcessing(build, listener, env, generatedItems);
 
-        // OK
-        return true;
+        return generatedItems;
     }
 
     protected abstract GenerationContext configure(Function<String, String> expandFn, EnvVars env);
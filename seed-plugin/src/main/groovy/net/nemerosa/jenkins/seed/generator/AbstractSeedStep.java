@@ -6,8 +6,11 @@ import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 import net.nemerosa.jenkins.seed.config.ProjectParameters;
 import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
+import net.nemerosa.jenkins.seed.registry.GeneratedItemsRegistry;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -31,15 +34,35 @@ public abstract class AbstractSeedStep extends AbstractGenerationStep {
         return new GenerationContext(
                 config,
                 extensions,
+                new GenerationPreProcessing() {
+                    @Override
+                    public void run(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) throws IOException, InterruptedException {
+                        preProcessing(projectConfig, parameters, build, listener, env);
+                    }
+                },
                 new GenerationPostProcessing() {
                     @Override
-                    public void run(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) {
+                    public void run(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env, List<String> generatedItems) {
+                        GeneratedItemsRegistry.get().record(parameters.getProject(), getGenerationBranch(env), generatedItems);
                         postProcessing(projectConfig, parameters, build, listener, env);
                     }
                 }
         );
     }
 
+    /**
+     * Branch the generated items are registered for. Project level by default.
+     */
+    protected String getGenerationBranch(EnvVars env) {
+        return GeneratedItemsRegistry.PROJECT_LEVEL;
+    }
+
+    /**
+     * Does nothing by default
+     */
+    protected void preProcessing(ProjectPipelineConfig projectConfig, ProjectParameters parameters, AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) throws IOException, InterruptedException {
+    }
+
     /**
      * Does nothing by default
      */
@@ -57,6 +80,7 @@ public abstract class AbstractSeedStep extends AbstractGenerationStep {
     protected void pipelineConfiguration(ProjectPipelineConfig projectConfig, @SuppressWarnings("UnusedParameters") ProjectParameters parameters, Map<String, String> config) {
         config.put("PIPELINE_DESTRUCTOR", String.valueOf(projectConfig.getPipelineConfig().isDestructor()));
         config.put("PIPELINE_AUTHORISATIONS", Objects.toString(projectConfig.getPipelineConfig().getAuthorisations(), ""));
+        config.put("PIPELINE_COMPACT_AUTHORISATIONS", String.valueOf(projectConfig.getPipelineConfig().isCompactAuthorisations()));
         config.put("PIPELINE_BRANCH_SCM_PARAMETER", String.valueOf(projectConfig.getPipelineConfig().isBranchSCMParameter()));
         config.put("PIPELINE_BRANCH_PARAMETERS", Objects.toString(projectConfig.getPipelineConfig().getBranchParameters(), ""));
         config.put("PIPELINE_GENERATION_EXTENSION", Objects.toString(projectConfig.getPipelineConfig().getGenerationExtension(), ""));
@@ -94,6 +118,8 @@ public abstract class AbstractSeedStep extends AbstractGenerationStep {
         config.put("EVENT_STRATEGY_DELETE", String.valueOf(projectConfig.getPipelineConfig().getEventStrategy().isDelete()));
         config.put("EVENT_STRATEGY_AUTO", String.valueOf(projectConfig.getPipelineConfig().getEventStrategy().isAuto()));
         config.put("EVENT_STRATEGY_TRIGGER", String.valueOf(projectConfig.getPipelineConfig().getEventStrategy().isTrigger()));
+        config.put("EVENT_STRATEGY_PULL_REQUEST_SLOTS", String.valueOf(projectConfig.getPipelineConfig().getEventStrategy().getPullRequestSlots()));
+        config.put("EVENT_STRATEGY_TAG_PIPELINE", Objects.toString(projectConfig.getPipelineConfig().getEventStrategy().getTagPipeline(), ""));
     }
 
     protected abstract Map<String, GenerationExtension> getExtensionPoints(EnvVars env, ProjectPipelineConfig projectConfig, ProjectParameters parameters);
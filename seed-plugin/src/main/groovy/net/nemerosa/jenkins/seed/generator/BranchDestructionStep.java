@@ -1,6 +1,5 @@
 package net.nemerosa.jenkins.seed.generator;
 
-import com.google.inject.Guice;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.Launcher;
@@ -9,6 +8,8 @@ import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import net.nemerosa.jenkins.seed.CannotDeleteItemException;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
 import net.nemerosa.jenkins.seed.triggering.*;
 import org.kohsuke.stapler.DataBoundConstructor;
 
@@ -29,7 +30,7 @@ public class BranchDestructionStep extends Builder {
     }
 
     protected SeedService getSeedService() {
-        return Guice.createInjector(new SeedServiceModule()).getInstance(SeedService.class);
+        return SeedContainer.getInstance(SeedService.class);
     }
 
     @Override
@@ -44,15 +45,20 @@ public class BranchDestructionStep extends Builder {
         String theProject = env.expand(project);
         String theBranch = env.expand(branch);
 
-        // Posts an event for the destruction of the branch
-        seedService.post(
-                new SeedEvent(
-                        theProject,
-                        theBranch,
-                        SeedEventType.DELETION,
-                        SeedChannel.SYSTEM
-                )
-        );
+        // Posts an event for the destruction of the branch, and waits for it
+        try {
+            seedService.post(
+                    new SeedEvent(
+                            theProject,
+                            theBranch,
+                            SeedEventType.DELETION,
+                            SeedChannel.SYSTEM
+                    )
+            );
+        } catch (CannotDeleteItemException ex) {
+            ex.printStackTrace(listener.error(ex.getMessage()));
+            return false;
+        }
 
         // OK
         return true;
@@ -6,6 +6,7 @@ import hudson.Extension;
 import hudson.model.AbstractProject;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import net.nemerosa.jenkins.seed.Constants;
 import net.nemerosa.jenkins.seed.config.ProjectParameters;
 import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
 import org.apache.commons.lang.StringUtils;
@@ -55,11 +56,30 @@ public class BranchGenerationStep extends AbstractSeedStep {
      */
     @Override
     protected void branchConfiguration(ProjectPipelineConfig projectConfig, ProjectParameters parameters, Map<String, String> config, EnvVars env) {
-        String branch = getBranchParameter(env);
-        config.put("BRANCH_FOLDER_PATH", projectConfig.getPipelineConfig().getBranchFolderPath(parameters.getProject(), branch));
-        config.put("BRANCH_SEED_NAME", projectConfig.getPipelineConfig().getBranchSeedName(parameters.getProject(), branch));
-        config.put("BRANCH_START_NAME", projectConfig.getPipelineConfig().getBranchStartName(parameters.getProject(), branch));
-        config.put("SEED_BRANCH", projectConfig.getPipelineConfig().getBranchName(branch));
+        String pipeline = getPipelineName(env);
+        config.put("BRANCH_FOLDER_PATH", projectConfig.getPipelineConfig().getBranchFolderPath(parameters.getProject(), pipeline));
+        config.put("BRANCH_SEED_NAME", projectConfig.getPipelineConfig().getBranchSeedName(parameters.getProject(), pipeline));
+        config.put("BRANCH_START_NAME", projectConfig.getPipelineConfig().getBranchStartName(parameters.getProject(), pipeline));
+        config.put("SEED_BRANCH", projectConfig.getPipelineConfig().getBranchName(pipeline));
+        config.put("PIPELINE", pipeline);
+    }
+
+    @Override
+    protected String getGenerationBranch(EnvVars env) {
+        return getPipelineName(env);
+    }
+
+    /**
+     * Name used to compute the paths of the pipeline: the pull request slot if the branch is bound to one,
+     * the branch otherwise. The SCM of the pipeline always uses the <code>BRANCH</code>.
+     */
+    private String getPipelineName(EnvVars env) {
+        String slot = env.get(Constants.PIPELINE_SLOT_PARAMETER, null);
+        if (StringUtils.isNotBlank(slot)) {
+            return slot;
+        } else {
+            return getBranchParameter(env);
+        }
     }
 
     private String getBranchParameter(EnvVars env) {
@@ -1,13 +1,11 @@
 package net.nemerosa.jenkins.seed.generator;
 
-import com.google.inject.Guice;
-import com.google.inject.Injector;
 import hudson.EnvVars;
 import net.nemerosa.jenkins.seed.config.ProjectParameters;
 import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
 import net.nemerosa.jenkins.seed.generator.scm.SCMService;
-import net.nemerosa.jenkins.seed.generator.scm.SCMServiceModule;
 import net.nemerosa.jenkins.seed.generator.scm.SCMServiceRegistry;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
 import org.apache.commons.lang.StringUtils;
 
 public class BranchSeedSCMExtension implements GenerationExtension {
@@ -17,8 +15,6 @@ public class BranchSeedSCMExtension implements GenerationExtension {
     private final String branchParameter;
     private final EnvVars env;
 
-    private final Injector injector = Guice.createInjector(new SCMServiceModule());
-
     public BranchSeedSCMExtension(ProjectPipelineConfig projectConfig, ProjectParameters parameters, String branchParameter, EnvVars env) {
         this.projectConfig = projectConfig;
         this.parameters = parameters;
@@ -29,7 +25,7 @@ public class BranchSeedSCMExtension implements GenerationExtension {
     @Override
     public String generate() {
         // Gets the SCM registry
-        SCMServiceRegistry scmServiceRegistry = injector.getInstance(SCMServiceRegistry.class);
+        SCMServiceRegistry scmServiceRegistry = SeedContainer.getInstance(SCMServiceRegistry.class);
         // Gets the SCM service
         SCMService scmService = scmServiceRegistry.getScm(parameters.getScmType());
         // SCM branch?
@@ -5,6 +5,8 @@ import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 import lombok.Data;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -20,12 +22,21 @@ public class GenerationContext {
      */
     private final Map<String, GenerationExtension> extensions;
 
+    /**
+     * Pre processing task
+     */
+    private final GenerationPreProcessing preProcessing;
+
     /**
      * Post processing task
      */
     private final GenerationPostProcessing postProcessing;
 
-    public void postProcessing(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) {
-        postProcessing.run(build, listener, env);
+    public void preProcessing(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) throws IOException, InterruptedException {
+        preProcessing.run(build, listener, env);
+    }
+
+    public void postProcessing(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env, List<String> generatedItems) {
+        postProcessing.run(build, listener, env, generatedItems);
     }
 }
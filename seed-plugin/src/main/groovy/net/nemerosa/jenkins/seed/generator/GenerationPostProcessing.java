@@ -4,8 +4,10 @@ import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 
+import java.util.List;
+
 public interface GenerationPostProcessing {
 
-    void run(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env);
+    void run(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env, List<String> generatedItems);
 
 }
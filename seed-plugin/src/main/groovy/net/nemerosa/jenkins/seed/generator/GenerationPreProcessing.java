@@ -0,0 +1,13 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import hudson.EnvVars;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+
+import java.io.IOException;
+
+public interface GenerationPreProcessing {
+
+    void run(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) throws IOException, InterruptedException;
+
+}
@@ -0,0 +1,146 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import com.google.common.base.Functions;
+import hudson.BulkChange;
+import hudson.model.Project;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor;
+import net.nemerosa.jenkins.seed.config.PipelineConfig;
+import net.nemerosa.jenkins.seed.config.PipelineConfigPatch;
+import net.nemerosa.jenkins.seed.config.ProjectParameters;
+import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
+import net.nemerosa.jenkins.seed.migration.MigrationPlan;
+import net.nemerosa.jenkins.seed.migration.NamingMigration;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Applies a {@link PipelineConfigPatch} to already generated projects, without running their project seeds.
+ * <p>
+ * For each project, the configuration embedded in the {@link BranchGenerationStep} of its project seed is
+ * replaced, after having migrated its branches if their naming changes. Each project seed is saved once,
+ * and its new configuration is recorded in the journal of the project seed cache like any other change.
+ * <p>
+ * The configuration of the seed job itself is not changed: it must be changed accordingly, or the next run
+ * of a project seed generation restores the previous configuration.
+ */
+public class PipelineConfigRollout {
+
+    private static final Logger LOGGER = Logger.getLogger(PipelineConfigRollout.class.getName());
+
+    /**
+     * Outcome of a rollout, by project key
+     */
+    public static class Result {
+
+        private final List<String> updated = new ArrayList<>();
+        private final List<String> unchanged = new ArrayList<>();
+        private final List<String> missing = new ArrayList<>();
+        private final Map<String, String> failed = new LinkedHashMap<>();
+
+        public List<String> getUpdated() {
+            return updated;
+        }
+
+        public List<String> getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * Projects which are not cached or whose project seed cannot be found
+         */
+        public List<String> getMissing() {
+            return missing;
+        }
+
+        public Map<String, String> getFailed() {
+            return failed;
+        }
+    }
+
+    private final PrintStream logger;
+
+    public PipelineConfigRollout(PrintStream logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Applies the patch to the given projects.
+     *
+     * @param keys Keys of the projects in the project seed cache
+     */
+    public Result rollout(Collection<String> keys, PipelineConfigPatch patch) throws InterruptedException {
+        Result result = new Result();
+        ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
+        for (String key : keys) {
+            try {
+                rollout(descriptor, key, patch, result);
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, String.format("Could not roll the configuration out to %s", key), ex);
+                logger.format("[seed] Could not roll the configuration out to %s: %s%n", key, ex.getMessage());
+                result.getFailed().put(key, ex.getMessage());
+            }
+        }
+        logger.format("[seed] Configuration rolled out to %d projects (%d unchanged, %d missing, %d failed)%n",
+                result.getUpdated().size(), result.getUnchanged().size(), result.getMissing().size(), result.getFailed().size());
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void rollout(ProjectSeedCacheDescriptor descriptor, String key, PipelineConfigPatch patch, Result result) throws IOException, InterruptedException {
+        ProjectCachedConfig cachedConfig = descriptor.getCachedConfiguration(key);
+        Project projectSeed = cachedConfig != null ? Jenkins.getInstance().getItemByFullName(cachedConfig.getProjectSeedJob(), Project.class) : null;
+        BranchGenerationStep step = projectSeed != null ? (BranchGenerationStep) projectSeed.getBuildersList().get(BranchGenerationStep.class) : null;
+        if (step == null || step.getProjectConfig() == null) {
+            result.getMissing().add(key);
+            return;
+        }
+
+        ProjectPipelineConfig projectConfig = step.getProjectConfig();
+        PipelineConfig oldConfig = projectConfig.getPipelineConfig();
+        PipelineConfig newConfig = patch.apply(oldConfig);
+        if (newConfig.equals(oldConfig)) {
+            result.getUnchanged().add(key);
+            return;
+        }
+
+        // Values are already expanded in the project seeds
+        ProjectParameters parameters = projectConfig.getProjectParameters(Functions.<String>identity());
+        if (patch.isNamingPatch()) {
+            MigrationPlan plan = NamingMigration.plan(
+                    parameters.getProject(),
+                    oldConfig,
+                    newConfig
+            );
+            if (!plan.isEmpty()) {
+                new NamingMigration(logger).migrate(plan);
+            }
+        }
+
+        // Project seed saved once
+        try (BulkChange bc = new BulkChange(projectSeed)) {
+            projectSeed.getBuildersList().replace(step, new BranchGenerationStep(new ProjectPipelineConfig(
+                    newConfig,
+                    projectConfig.getProject(),
+                    projectConfig.getScmType(),
+                    projectConfig.getScmUrl(),
+                    projectConfig.getScmCredentials(),
+                    projectConfig.getTriggerIdentifier(),
+                    projectConfig.getTriggerType(),
+                    projectConfig.getTriggerSecret()
+            )));
+            bc.commit();
+        }
+        descriptor.saveProjectConfiguration(parameters, newConfig);
+        result.getUpdated().add(key);
+    }
+}
@@ -0,0 +1,181 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.SeedException;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor;
+import net.nemerosa.jenkins.seed.config.PipelineConfigPatch;
+import net.nemerosa.jenkins.seed.config.UnsupportedPatchPropertyException;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolls a {@link PipelineConfigPatch} out to generated projects, posted as JSON at <code>seed-rollout-api/</code>:
+ * <pre>
+ * {
+ *     "projects": ["project-a", "project-b"],
+ *     "patch": {"auto": false, "branchSeedName": "${branch}-seed"}
+ * }
+ * </pre>
+ * The projects are given by their key in the project seed cache. <code>"all": true</code> selects all the
+ * cached projects instead.
+ * <p>
+ * The rollout runs in the background: the response gives its tracking ID, and its status and outcome are
+ * available at <code>seed-rollout-api/&lt;id&gt;</code>.
+ */
+@Extension
+public class PipelineConfigRolloutAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "seed-rollout-api";
+    }
+
+    @RequirePOST
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        List<String> keys;
+        PipelineConfigPatch patch;
+        try {
+            JSONObject json = JSONObject.fromObject(IOUtils.toString(req.getReader()));
+            if (json.optBoolean("all")) {
+                keys = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class).getKeys();
+            } else {
+                keys = new ArrayList<>();
+                JSONArray projects = json.optJSONArray("projects");
+                if (projects != null) {
+                    for (Object project : projects) {
+                        keys.add(String.valueOf(project));
+                    }
+                }
+            }
+            patch = toPatch(json.optJSONObject("patch"));
+        } catch (JSONException | SeedException ex) {
+            sendError(rsp, ex.getMessage());
+            return;
+        }
+        if (keys.isEmpty() || patch.isEmpty()) {
+            sendError(rsp, "Both projects and patch are required");
+            return;
+        }
+
+        PipelineConfigRolloutStatus status = SeedContainer.getInstance(PipelineConfigRolloutTracker.class).submit(keys, patch);
+
+        rsp.setStatus(StaplerResponse.SC_ACCEPTED);
+        rsp.setContentType("application/json");
+        toJson(status).write(rsp.getWriter());
+    }
+
+    /**
+     * Status of a rollout
+     */
+    public void doDynamic(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        String id = StringUtils.removeStart(StringUtils.defaultString(req.getRestOfPath()), "/");
+        PipelineConfigRolloutStatus status = SeedContainer.getInstance(PipelineConfigRolloutTracker.class).getStatus(id);
+        if (status == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND, String.format("No rollout with ID %s", id));
+            return;
+        }
+        rsp.setStatus(StaplerResponse.SC_OK);
+        rsp.setContentType("application/json");
+        toJson(status).write(rsp.getWriter());
+    }
+
+    private static JSONObject toJson(PipelineConfigRolloutStatus status) {
+        JSONObject json = new JSONObject();
+        json.put("id", status.getId());
+        json.put("state", status.getState().name());
+        json.put("projects", status.getProjects());
+        json.put("submitted", status.getSubmitted());
+        json.put("started", status.getStarted());
+        json.put("finished", status.getFinished());
+        PipelineConfigRollout.Result result = status.getResult();
+        if (result != null) {
+            json.put("updated", result.getUpdated());
+            json.put("unchanged", result.getUnchanged());
+            json.put("missing", result.getMissing());
+            json.put("failed", result.getFailed());
+        }
+        if (status.getError() != null) {
+            json.put("error", status.getError());
+        }
+        return json;
+    }
+
+    private static PipelineConfigPatch toPatch(JSONObject json) {
+        PipelineConfigPatch patch = new PipelineConfigPatch();
+        if (json == null) {
+            return patch;
+        }
+        for (Object name : json.keySet()) {
+            String property = String.valueOf(name);
+            switch (property) {
+                case "delete":
+                    patch = patch.withDelete(json.getBoolean(property));
+                    break;
+                case "auto":
+                    patch = patch.withAuto(json.getBoolean(property));
+                    break;
+                case "trigger":
+                    patch = patch.withTrigger(json.getBoolean(property));
+                    break;
+                case "pullRequestSlots":
+                    patch = patch.withPullRequestSlots(json.getInt(property));
+                    break;
+                case "tagPipeline":
+                    patch = patch.withTagPipeline(json.getString(property));
+                    break;
+                case "branchFolderPath":
+                    patch = patch.withBranchFolderPath(json.getString(property));
+                    break;
+                case "branchSeedName":
+                    patch = patch.withBranchSeedName(json.getString(property));
+                    break;
+                case "branchStartName":
+                    patch = patch.withBranchStartName(json.getString(property));
+                    break;
+                case "branchName":
+                    patch = patch.withBranchName(json.getString(property));
+                    break;
+                case "ignoredBranchPrefixes":
+                    patch = patch.withIgnoredBranchPrefixes(json.getString(property));
+                    break;
+                default:
+                    throw new UnsupportedPatchPropertyException(property);
+            }
+        }
+        return patch;
+    }
+
+    private static void sendError(StaplerResponse rsp, String message) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("status", "ERROR");
+        json.put("message", message);
+        rsp.setStatus(StaplerResponse.SC_BAD_REQUEST);
+        rsp.setContentType("application/json");
+        json.write(rsp.getWriter());
+    }
+}
@@ -0,0 +1,104 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of an accepted rollout.
+ */
+public class PipelineConfigRolloutStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String id;
+    private final int projects;
+    private final long submitted = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile long started;
+    private volatile long finished;
+    private volatile String error;
+    private volatile PipelineConfigRollout.Result result;
+
+    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+
+    public PipelineConfigRolloutStatus(String id, int projects) {
+        this.id = id;
+        this.projects = projects;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Number of projects the patch is rolled out to
+     */
+    public int getProjects() {
+        return projects;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Outcome of the rollout, once done
+     */
+    public PipelineConfigRollout.Result getResult() {
+        return result;
+    }
+
+    /**
+     * Waits for the rollout to be finished, done or failed.
+     *
+     * @return <code>true</code> if the rollout is finished
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finishedLatch.await(timeout, unit);
+    }
+
+    void start() {
+        started = System.currentTimeMillis();
+        state = State.RUNNING;
+    }
+
+    void done(PipelineConfigRollout.Result result) {
+        this.result = result;
+        finished = System.currentTimeMillis();
+        state = State.DONE;
+        finishedLatch.countDown();
+    }
+
+    void fail(Exception ex) {
+        finished = System.currentTimeMillis();
+        error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName();
+        state = State.FAILED;
+        finishedLatch.countDown();
+    }
+}
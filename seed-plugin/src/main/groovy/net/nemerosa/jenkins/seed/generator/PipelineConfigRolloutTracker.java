@@ -0,0 +1,113 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import net.nemerosa.jenkins.seed.config.PipelineConfigPatch;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Accepts rollouts and runs them one after the other on a dedicated background executor, since migrating
+ * the branches of many projects takes much longer than an HTTP request should.
+ * <p>
+ * Each accepted rollout gets a tracking ID, used to follow its {@linkplain PipelineConfigRolloutStatus progress}.
+ */
+public class PipelineConfigRolloutTracker {
+
+    private static final Logger LOGGER = Logger.getLogger(PipelineConfigRolloutTracker.class.getName());
+
+    /**
+     * Maximum number of finished rollouts kept for the status
+     */
+    private static final int HISTORY = 50;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed rollout")
+    );
+
+    /**
+     * Rollouts indexed by tracking ID, in order of submission
+     */
+    private final Map<String, PipelineConfigRolloutStatus> rollouts = new LinkedHashMap<>();
+
+    /**
+     * Accepts the rollout of a patch to the given projects.
+     *
+     * @param keys Keys of the projects in the project seed cache
+     * @return Status of the rollout
+     */
+    public PipelineConfigRolloutStatus submit(final Collection<String> keys, final PipelineConfigPatch patch) {
+        final PipelineConfigRolloutStatus status;
+        synchronized (rollouts) {
+            status = new PipelineConfigRolloutStatus(UUID.randomUUID().toString(), keys.size());
+            rollouts.put(status.getId(), status);
+            purge();
+        }
+        LOGGER.info(String.format("Rolling %s out to %d projects as %s", patch, keys.size(), status.getId()));
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                status.start();
+                // Output of the migrations sent to the log
+                PrintStream logger = new LogTaskListener(LOGGER, Level.INFO).getLogger();
+                SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
+                try {
+                    status.done(new PipelineConfigRollout(logger).rollout(keys, patch));
+                } catch (Exception ex) {
+                    LOGGER.log(Level.SEVERE, String.format("Rollout %s has failed", status.getId()), ex);
+                    status.fail(ex);
+                } finally {
+                    SecurityContextHolder.setContext(orig);
+                }
+            }
+        });
+        return status;
+    }
+
+    /**
+     * Gets the status of a rollout, or <code>null</code> if not found.
+     */
+    public PipelineConfigRolloutStatus getStatus(String id) {
+        synchronized (rollouts) {
+            return rollouts.get(id);
+        }
+    }
+
+    /**
+     * List of the tracked rollouts, in order of submission
+     */
+    public List<PipelineConfigRolloutStatus> getRollouts() {
+        synchronized (rollouts) {
+            return new ArrayList<>(rollouts.values());
+        }
+    }
+
+    /**
+     * Removes the oldest finished rollouts above the history size
+     */
+    private void purge() {
+        int excess = rollouts.size() - HISTORY;
+        Iterator<PipelineConfigRolloutStatus> iterator = rollouts.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import java.io.IOException;
@@ -23,9 +24,14 @@ public class PipelineGenerationStep extends Builder {
     private final boolean disableDslScript;
     private final String scriptDirectory;
     private final boolean isTag;
+    /**
+     * Name of the pipeline: the pull request slot the branch is bound to, if any, or the branch.
+     * Not set by the branch seeds generated before the pull request slots.
+     */
+    private final String pipeline;
 
     @DataBoundConstructor
-    public PipelineGenerationStep(String project, String projectScmType, String projectScmUrl, String projectScmCredentials, String branch, String seedProject, String seedBranch, boolean disableDslScript, String scriptDirectory, boolean isTag) {
+    public PipelineGenerationStep(String project, String projectScmType, String projectScmUrl, String projectScmCredentials, String branch, String seedProject, String seedBranch, boolean disableDslScript, String scriptDirectory, boolean isTag, String pipeline) {
         this.project = project;
         this.projectScmType = projectScmType;
         this.projectScmUrl = projectScmUrl;
@@ -36,6 +42,7 @@ public class PipelineGenerationStep extends Builder {
         this.disableDslScript = disableDslScript;
         this.scriptDirectory = scriptDirectory;
         this.isTag = isTag;
+        this.pipeline = pipeline;
     }
     @Override
     public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
@@ -87,6 +94,14 @@ public class PipelineGenerationStep extends Builder {
         return branch;
     }
 
+    /**
+     * Name of the pipeline, under which its items are registered: the pull request slot the branch is
+     * bound to, if any, or the branch.
+     */
+    public String getPipeline() {
+        return StringUtils.isNotBlank(pipeline) ? pipeline : branch;
+    }
+
     public String getSeedProject() {
         return seedProject;
     }
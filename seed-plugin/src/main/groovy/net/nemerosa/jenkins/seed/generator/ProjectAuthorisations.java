@@ -0,0 +1,134 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import hudson.security.Permission;
+import net.nemerosa.jenkins.seed.config.LineParser;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact form of the authorisations of a project folder, as permissions grouped by user or group:
+ * <ul>
+ * <li>an authorisation <code>@role:sid</code> grants all the permissions of an authorisation role;</li>
+ * <li>duplicate authorisations are removed;</li>
+ * <li>permissions implied by another permission granted to the same user or group are removed.</li>
+ * </ul>
+ * The branch folders do not define any authorisation and inherit the ones of the project folder.
+ */
+class ProjectAuthorisations {
+
+    /**
+     * Permission identifiers by user or group
+     */
+    private final Map<String, List<String>> permissions = new LinkedHashMap<>();
+
+    /**
+     * Authorisations which are not in the <code>permission:sid</code> form, kept as they are
+     */
+    private final List<String> others = new ArrayList<>();
+
+    private ProjectAuthorisations() {
+    }
+
+    public Map<String, List<String>> getPermissions() {
+        return permissions;
+    }
+
+    public List<String> getOthers() {
+        return others;
+    }
+
+    /**
+     * Compacts a list of authorisations.
+     *
+     * @param authorisations List of authorisations, as <code>permission:sid</code> or <code>@role:sid</code>
+     * @param roles          Line separated list of authorisation roles, as <code>role=permission,permission</code>
+     */
+    public static ProjectAuthorisations compact(List<String> authorisations, String roles) {
+        Map<String, List<String>> roleDefinitions = parseRoles(roles);
+        // Permission identifiers by user or group, without duplicates
+        Map<String, Set<String>> granted = new LinkedHashMap<>();
+        ProjectAuthorisations compact = new ProjectAuthorisations();
+        for (String authorisation : authorisations) {
+            int index = authorisation.indexOf(':');
+            if (index <= 0) {
+                if (!compact.others.contains(authorisation)) {
+                    compact.others.add(authorisation);
+                }
+                continue;
+            }
+            String permission = authorisation.substring(0, index).trim();
+            String sid = authorisation.substring(index + 1).trim();
+            Set<String> ids = granted.get(sid);
+            if (ids == null) {
+                ids = new LinkedHashSet<>();
+                granted.put(sid, ids);
+            }
+            if (permission.startsWith("@")) {
+                String role = permission.substring(1);
+                List<String> rolePermissions = roleDefinitions.get(role);
+                if (rolePermissions == null) {
+                    throw new UnknownAuthorisationRoleException(role);
+                }
+                ids.addAll(rolePermissions);
+            } else {
+                ids.add(permission);
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : granted.entrySet()) {
+            String sid = entry.getKey();
+            Map<String, Permission> sidPermissions = new LinkedHashMap<>();
+            for (String id : entry.getValue()) {
+                sidPermissions.put(id, Permission.fromId(id));
+            }
+            List<String> ids = new ArrayList<>();
+            for (String id : entry.getValue()) {
+                Permission permission = sidPermissions.get(id);
+                // Unknown permissions are kept, for the DSL to report them
+                if (permission == null || !isImplied(permission, sidPermissions.values())) {
+                    ids.add(id);
+                }
+            }
+            if (!ids.isEmpty()) {
+                compact.permissions.put(sid, ids);
+            }
+        }
+        return compact;
+    }
+
+    private static Map<String, List<String>> parseRoles(String roles) {
+        Map<String, List<String>> definitions = new LinkedHashMap<>();
+        for (String line : LineParser.getLines(roles)) {
+            int index = line.indexOf('=');
+            if (index > 0) {
+                List<String> ids = new ArrayList<>();
+                for (String id : StringUtils.split(line.substring(index + 1), ",")) {
+                    if (StringUtils.isNotBlank(id)) {
+                        ids.add(id.trim());
+                    }
+                }
+                definitions.put(line.substring(0, index).trim(), ids);
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * Checks if a permission is implied by another one of the given permissions
+     */
+    private static boolean isImplied(Permission permission, Collection<Permission> permissions) {
+        for (Permission p = permission.impliedBy; p != null; p = p.impliedBy) {
+            if (permissions.contains(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -6,19 +6,38 @@ import net.nemerosa.jenkins.seed.config.ProjectParameters
 class ProjectAuthorisationsGenerationExtension implements GenerationExtension {
     private final PipelineConfig pipelineConfig;
     private final ProjectParameters parameters;
+    private final String roles;
 
     public ProjectAuthorisationsGenerationExtension(PipelineConfig pipelineConfig, ProjectParameters parameters) {
+        this(pipelineConfig, parameters, '')
+    }
+
+    /**
+     * @param roles Authorisation roles the compact authorisations can refer to
+     * @see ProjectAuthorisations
+     */
+    public ProjectAuthorisationsGenerationExtension(PipelineConfig pipelineConfig, ProjectParameters parameters, String roles) {
         this.pipelineConfig = pipelineConfig;
         this.parameters = parameters;
+        this.roles = roles;
     }
 
     @Override
     public String generate() {
         List<String> authorisations = pipelineConfig.getProjectAuthorisations(parameters);
-        if (authorisations) {
+        List<String> lines
+        if (pipelineConfig.compactAuthorisations) {
+            def compact = ProjectAuthorisations.compact(authorisations, roles)
+            lines = compact.permissions.collect { sid, ids ->
+                "permissions('${sid}', [${ids.collect { "'${it}'" }.join(', ')}])" as String
+            } + compact.others.collect { "permission('${it}')" as String }
+        } else {
+            lines = authorisations.collect { it -> "permission('${it}')" as String }
+        }
+        if (lines) {
             return """\
 authorization {
-    ${authorisations.collect { it -> "permission('${it}')" }.join('\n    ')}
+    ${lines.join('\n    ')}
 }
 """
         } else {
@@ -0,0 +1,319 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import com.google.common.base.Function;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+import hudson.security.ACL;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor;
+import net.nemerosa.jenkins.seed.config.ProjectCatalogException;
+import net.nemerosa.jenkins.seed.config.ProjectCatalogReader;
+import net.nemerosa.jenkins.seed.config.ProjectParameters;
+import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
+import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the projects of a {@linkplain ProjectCatalogReader catalog}, in a single build.
+ * <p>
+ * The catalog is read as a stream. Each project is compared with the project seed cache and with the
+ * catalog entry it was last generated from, so that only the added and changed projects are generated.
+ * They are generated by batches, several at a time, each one like by a {@link ProjectGenerationStep}.
+ */
+public class ProjectCatalogImportStep extends Builder {
+
+    /**
+     * Number of projects read before they are generated
+     */
+    private static final int BATCH_SIZE = Integer.getInteger(ProjectCatalogImportStep.class.getName() + ".batchSize", 100);
+
+    /**
+     * Path to the catalog, relative to the workspace
+     */
+    private final String catalog;
+
+    /**
+     * Number of projects generated at the same time
+     */
+    private final int parallelism;
+
+    @DataBoundConstructor
+    public ProjectCatalogImportStep(String catalog, int parallelism) {
+        this.catalog = catalog;
+        this.parallelism = parallelism;
+    }
+
+    public String getCatalog() {
+        return catalog;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Counts of the catalog projects
+     */
+    private static class Counts {
+        private int added;
+        private int changed;
+        private int unchanged;
+        private int failed;
+    }
+
+    /**
+     * Project of the catalog to generate
+     */
+    private static class CatalogProject {
+
+        private final ProjectPipelineConfig projectConfig;
+        private final String key;
+        private final String fingerprint;
+        private final boolean added;
+
+        private CatalogProject(ProjectPipelineConfig projectConfig, String key, String fingerprint, boolean added) {
+            this.projectConfig = projectConfig;
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.added = added;
+        }
+    }
+
+    @Override
+    public boolean perform(final AbstractBuild<?, ?> build, Launcher launcher, final BuildListener listener) throws InterruptedException, IOException {
+        final EnvVars env = build.getEnvironment(listener);
+        env.putAll(build.getBuildVariables());
+        // Values expanded as for the generation of the projects, for the keys to match
+        final Function<String, String> expandFn = new Function<String, String>() {
+            @Nullable
+            @Override
+            public String apply(@Nullable String input) {
+                return env.expand(input);
+            }
+        };
+        FilePath file = build.getWorkspace().child(env.expand(catalog));
+        listener.getLogger().format("Catalog: %s%n", file.getRemote());
+
+        final ProjectSeedCacheDescriptor cache = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
+        final SeedStepExtension descriptor = (SeedStepExtension) getDescriptor();
+        final Set<String> keys = new HashSet<>();
+        final List<CatalogProject> batch = new ArrayList<>();
+        final Counts counts = new Counts();
+        final Generation generation = new Generation(build, listener, descriptor, Math.max(1, parallelism));
+        try (Reader reader = new InputStreamReader(file.read(), StandardCharsets.UTF_8)) {
+            int size = ProjectCatalogReader.read(reader, new ProjectCatalogReader.Handler() {
+                @Override
+                public void project(ProjectPipelineConfig projectConfig) throws IOException, InterruptedException {
+                    ProjectParameters parameters = projectConfig.getProjectParameters(expandFn);
+                    String key = cache.getProjectTriggerIdentifierOrName(parameters);
+                    if (!keys.add(key)) {
+                        listener.error("%s is defined several times in the catalog", key);
+                        counts.failed++;
+                        return;
+                    }
+                    String fingerprint = Util.getDigestOf(Jenkins.XSTREAM2.toXML(projectConfig));
+                    ProjectCachedConfig cachedConfig = cache.getCachedConfiguration(key);
+                    if (cachedConfig == null) {
+                        batch.add(new CatalogProject(projectConfig, key, fingerprint, true));
+                    } else if (!cachedConfig.equals(new ProjectCachedConfig(new ProjectSeed(parameters), projectConfig.getPipelineConfig()))
+                            || !fingerprint.equals(descriptor.getFingerprint(key))) {
+                        batch.add(new CatalogProject(projectConfig, key, fingerprint, false));
+                    } else {
+                        counts.unchanged++;
+                    }
+                    if (batch.size() >= BATCH_SIZE) {
+                        generation.run(batch, counts);
+                        batch.clear();
+                    }
+                }
+            });
+            generation.run(batch, counts);
+            listener.getLogger().format(
+                    "Catalog of %d projects: %d added, %d changed, %d unchanged, %d failed%n",
+                    size, counts.added, counts.changed, counts.unchanged, counts.failed
+            );
+        } catch (ProjectCatalogException ex) {
+            listener.error(ex.getMessage());
+            return false;
+        } finally {
+            generation.close();
+        }
+        return counts.failed == 0;
+    }
+
+    /**
+     * Output of the generation of a project
+     */
+    private static class GenerationOutput {
+        private final String log;
+        private final boolean success;
+
+        private GenerationOutput(String log, boolean success) {
+            this.log = log;
+            this.success = success;
+        }
+    }
+
+    /**
+     * Generation of the batches of projects
+     */
+    private static class Generation {
+
+        private final AbstractBuild<?, ?> build;
+        private final BuildListener listener;
+        private final SeedStepExtension descriptor;
+        private final ExecutorService pool;
+        private final Authentication authentication = Jenkins.getAuthentication();
+        private boolean generated;
+
+        private Generation(AbstractBuild<?, ?> build, BuildListener listener, SeedStepExtension descriptor, int parallelism) {
+            this.build = build;
+            this.listener = listener;
+            this.descriptor = descriptor;
+            this.pool = Executors.newFixedThreadPool(
+                    parallelism,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "Seed catalog import")
+            );
+        }
+
+        /**
+         * Generates a batch of projects and waits for them
+         */
+        private void run(List<CatalogProject> batch, Counts counts) throws InterruptedException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Callable<GenerationOutput>> tasks = new ArrayList<>();
+            for (final CatalogProject project : batch) {
+                tasks.add(new Callable<GenerationOutput>() {
+                    @Override
+                    public GenerationOutput call() {
+                        SecurityContext orig = ACL.impersonate(authentication);
+                        try {
+                            return generate(project);
+                        } finally {
+                            SecurityContextHolder.setContext(orig);
+                        }
+                    }
+                });
+            }
+            List<Future<GenerationOutput>> futures = pool.invokeAll(tasks);
+            for (int i = 0; i < batch.size(); i++) {
+                CatalogProject project = batch.get(i);
+                GenerationOutput output;
+                try {
+                    output = futures.get(i).get();
+                } catch (ExecutionException ex) {
+                    output = new GenerationOutput(String.valueOf(ex.getCause()), false);
+                }
+                // Outputs written in the order of the catalog, once complete
+                listener.getLogger().print(output.log);
+                if (output.success) {
+                    descriptor.setFingerprint(project.key, project.fingerprint);
+                    if (project.added) {
+                        counts.added++;
+                    } else {
+                        counts.changed++;
+                    }
+                    generated = true;
+                } else {
+                    listener.error("Cannot generate %s", project.key);
+                    counts.failed++;
+                }
+            }
+            descriptor.save();
+        }
+
+        private GenerationOutput generate(CatalogProject project) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            StreamBuildListener projectListener = new StreamBuildListener(output, StandardCharsets.UTF_8);
+            projectListener.getLogger().format("Generating %s (%s)%n", project.key, project.added ? "added" : "changed");
+            boolean success;
+            try {
+                new ProjectGenerationStep(project.projectConfig).generate(build, projectListener, null, false);
+                success = true;
+            } catch (Exception ex) {
+                ex.printStackTrace(projectListener.error("Generation of %s failed", project.key));
+                success = false;
+            }
+            projectListener.getLogger().flush();
+            return new GenerationOutput(new String(output.toByteArray(), StandardCharsets.UTF_8), success);
+        }
+
+        private void close() {
+            pool.shutdownNow();
+            if (generated) {
+                Jenkins.getInstance().rebuildDependencyGraph();
+            }
+        }
+    }
+
+    @Extension
+    public static class SeedStepExtension extends BuildStepDescriptor<Builder> {
+
+        /**
+         * Fingerprints of the catalog entries the projects were last generated from, by project key
+         */
+        private Map<String, String> fingerprints = new HashMap<>();
+
+        public SeedStepExtension() {
+            load();
+        }
+
+        public synchronized String getFingerprint(String key) {
+            return fingerprints.get(key);
+        }
+
+        public synchronized void setFingerprint(String key, String fingerprint) {
+            fingerprints.put(key, fingerprint);
+        }
+
+        @Override
+        public synchronized void save() {
+            super.save();
+        }
+
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return true;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Seed - Project catalog import";
+        }
+    }
+}
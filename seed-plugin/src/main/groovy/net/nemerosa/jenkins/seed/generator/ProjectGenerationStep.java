@@ -9,12 +9,18 @@ import hudson.model.BuildListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.SeedPlugin;
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig;
 import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor;
 import net.nemerosa.jenkins.seed.config.ProjectParameters;
 import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig;
+import net.nemerosa.jenkins.seed.migration.MigrationPlan;
+import net.nemerosa.jenkins.seed.migration.NamingMigration;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Configuration of a Seed job when it's time to generate/update a project.
@@ -51,11 +57,32 @@ public class ProjectGenerationStep extends AbstractSeedStep {
     @Override
     protected Map<String, GenerationExtension> getExtensionPoints(EnvVars env, ProjectPipelineConfig projectConfig, ProjectParameters parameters) {
         return ImmutableMap.<String, GenerationExtension>of(
-                "projectAuthorisations", new ProjectAuthorisationsGenerationExtension(projectConfig.getPipelineConfig(), parameters),
+                "projectAuthorisations", new ProjectAuthorisationsGenerationExtension(projectConfig.getPipelineConfig(), parameters, SeedPlugin.getSeedPlugin().getAuthorisationRoles()),
                 "projectGeneration", new ProjectGenerationGenerationExtension(projectConfig, parameters)
         );
     }
 
+    /**
+     * Migrates the existing items if the naming strategy of an already generated project has changed.
+     */
+    @Override
+    protected void preProcessing(ProjectPipelineConfig projectConfig, ProjectParameters parameters, AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) throws IOException, InterruptedException {
+        ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
+        ProjectCachedConfig cachedConfig = descriptor.getProjectSavedConfiguration(descriptor.getProjectTriggerIdentifierOrName(parameters));
+        if (cachedConfig != null && !Objects.equals(cachedConfig.getNamingStrategy(), projectConfig.getPipelineConfig().getNamingStrategy())) {
+            MigrationPlan plan = NamingMigration.plan(
+                    parameters.getProject(),
+                    cachedConfig.getPipelineConfig(),
+                    projectConfig.getPipelineConfig()
+            );
+            if (!plan.isEmpty()) {
+                new NamingMigration(listener.getLogger()).migrate(plan);
+                // The cache resolves the new paths as soon as the items are moved
+                descriptor.saveProjectConfiguration(parameters, projectConfig.getPipelineConfig());
+            }
+        }
+    }
+
     @Override
     protected void postProcessing(ProjectPipelineConfig projectConfig, ProjectParameters parameters, AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) {
         ProjectSeedCacheDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class);
@@ -0,0 +1,9 @@
+package net.nemerosa.jenkins.seed.generator;
+
+import net.nemerosa.jenkins.seed.SeedException;
+
+public class UnknownAuthorisationRoleException extends SeedException {
+    public UnknownAuthorisationRoleException(String role) {
+        super("Unknown authorisation role: %s", role);
+    }
+}
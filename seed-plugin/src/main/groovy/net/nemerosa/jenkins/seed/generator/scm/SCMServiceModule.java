@@ -1,10 +1,11 @@
 package net.nemerosa.jenkins.seed.generator.scm;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 
 public class SCMServiceModule extends AbstractModule {
     @Override
     protected void configure() {
-        bind(SCMServiceRegistry.class).to(SCMServiceRegistryImpl.class);
+        bind(SCMServiceRegistry.class).to(SCMServiceRegistryImpl.class).in(Singleton.class);
     }
 }
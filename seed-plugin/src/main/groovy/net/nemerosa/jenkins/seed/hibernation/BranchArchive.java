@@ -0,0 +1,145 @@
+package net.nemerosa.jenkins.seed.hibernation;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compressed archive of the directory of a branch folder.
+ * <p>
+ * Only the most recent builds of each job are kept, without their archived artifacts.
+ */
+public class BranchArchive {
+
+    private final File file;
+
+    public BranchArchive(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Archives the content of a directory.
+     *
+     * @param dir        Directory to archive
+     * @param keptBuilds Number of builds to keep for each job
+     */
+    public void write(final File dir, final int keptBuilds) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        File tmp = new File(file.getPath() + ".tmp");
+        try (final ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            final Path root = dir.toPath();
+            final Set<Path> keptBuildDirs = new HashSet<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                    Path parent = d.getParent();
+                    if (isBuildsDir(parent)) {
+                        if (!keptBuildDirs.contains(d)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    } else if ("archive".equals(d.getFileName().toString()) && parent != null && keptBuildDirs.contains(parent)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (isBuildsDir(d)) {
+                        keptBuildDirs.addAll(getLastBuilds(d, keptBuilds));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path f, BasicFileAttributes attrs) throws IOException {
+                    // Symbolic links (permalinks) are recreated by Jenkins
+                    if (attrs.isRegularFile()) {
+                        zip.putNextEntry(new ZipEntry(root.relativize(f).toString().replace(File.separatorChar, '/')));
+                        Files.copy(f, zip);
+                        zip.closeEntry();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Extracts the archive into a directory
+     */
+    public void extract(File dir) throws IOException {
+        Path root = dir.toPath().toAbsolutePath().normalize();
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                Path target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException(String.format("Invalid entry %s in %s", entry.getName(), file));
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target.toFile()))) {
+                        IOUtils.copy(zip, out);
+                    }
+                }
+            }
+        }
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * A <code>builds</code> directory is the one next to the <code>config.xml</code> of a job
+     */
+    private static boolean isBuildsDir(Path dir) {
+        return dir != null
+                && dir.getFileName() != null
+                && "builds".equals(dir.getFileName().toString())
+                && Files.isRegularFile(dir.resolveSibling("config.xml"));
+    }
+
+    private static List<Path> getLastBuilds(Path buildsDir, int count) throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(buildsDir)) {
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && name.matches("\\d+")) {
+                    numbers.add(Integer.parseInt(name));
+                }
+            }
+        }
+        Collections.sort(numbers, Collections.<Integer>reverseOrder());
+        List<Path> result = new ArrayList<>();
+        for (Integer number : numbers.subList(0, Math.min(count, numbers.size()))) {
+            result.add(buildsDir.resolve(String.valueOf(number)));
+        }
+        return result;
+    }
+}
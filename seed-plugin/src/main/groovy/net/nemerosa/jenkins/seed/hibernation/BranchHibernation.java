@@ -0,0 +1,407 @@
+package net.nemerosa.jenkins.seed.hibernation;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.DirectlyModifiableTopLevelItemGroup;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TopLevelItem;
+import hudson.model.listeners.ItemListener;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.SeedPlugin;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor;
+import net.nemerosa.jenkins.seed.config.SeedItem;
+import net.nemerosa.jenkins.seed.config.SeedItemRole;
+import net.nemerosa.jenkins.seed.registry.BranchKey;
+import net.nemerosa.jenkins.seed.registry.GeneratedItemsRegistry;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import net.nemerosa.jenkins.seed.triggering.ItemPathCache;
+import org.apache.commons.lang.StringUtils;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hibernation of the branch folders which did not receive any seed event for a while.
+ * <p>
+ * A hibernated branch folder is {@linkplain BranchArchive archived} and unloaded. It is restored
+ * on the next seed event for its branch.
+ */
+public class BranchHibernation {
+
+    private static final Logger LOGGER = Logger.getLogger(BranchHibernation.class.getName());
+
+    private final SeedMetrics metrics;
+    private final ItemPathCache itemPathCache;
+
+    /**
+     * Actions waiting for the creation of an item, by full name
+     */
+    private final Map<String, List<Runnable>> waiting = new HashMap<>();
+
+    /**
+     * Folders being hibernated, in which no build can start
+     */
+    private final Set<String> hibernating = new CopyOnWriteArraySet<>();
+
+    @Inject
+    public BranchHibernation(SeedMetrics metrics, ItemPathCache itemPathCache) {
+        this.metrics = metrics;
+        this.itemPathCache = itemPathCache;
+    }
+
+    /**
+     * Records a seed event for a branch folder. Nothing is recorded while the hibernation is disabled.
+     */
+    public void touch(String folder) {
+        if (SeedPlugin.getSeedPlugin().getHibernationDays() > 0) {
+            HibernationDescriptor.get().touch(folder, System.currentTimeMillis());
+        }
+    }
+
+    public boolean isHibernated(String folder) {
+        return HibernationDescriptor.get().getHibernated(folder) != null;
+    }
+
+    /**
+     * Starts tracking the activity of the branch folders known by the registry of generated
+     * items. The initial activity is the time of the most recent build in the folder.
+     */
+    public void trackRegisteredBranches() {
+        GeneratedItemsRegistry registry = GeneratedItemsRegistry.get();
+        HibernationDescriptor descriptor = HibernationDescriptor.get();
+        boolean changed = false;
+        for (String project : registry.getProjects()) {
+            for (String branch : registry.getBranches(project)) {
+                AbstractFolder<?> folder = getBranchFolder(registry.getItems(project, branch));
+                if (folder != null) {
+                    changed |= descriptor.track(folder.getFullName(), getLastActivity(folder));
+                }
+            }
+        }
+        if (changed) {
+            descriptor.save();
+        }
+    }
+
+    /**
+     * Gets the branch folders without any activity for the given delay
+     */
+    public List<String> getInactiveFolders(long delay) {
+        long limit = System.currentTimeMillis() - delay;
+        List<String> folders = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : HibernationDescriptor.get().getActivity().entrySet()) {
+            // An event may have been recorded while the folder was being hibernated
+            if (entry.getValue() < limit && !isHibernated(entry.getKey())) {
+                folders.add(entry.getKey());
+            }
+        }
+        return folders;
+    }
+
+    /**
+     * Archives and unloads a branch folder. The builds waiting in the queue for the jobs of the folder
+     * are cancelled and no build can start in it while it is being hibernated.
+     *
+     * @return <code>false</code> if the folder could not be hibernated because it does not exist
+     * or a build is running in it
+     */
+    public synchronized boolean hibernate(String path) throws IOException, InterruptedException {
+        AbstractFolder<?> folder = Jenkins.getInstance().getItemByFullName(path, AbstractFolder.class);
+        if (folder == null) {
+            HibernationDescriptor.get().forget(path);
+            return false;
+        }
+        if (!(folder.getParent() instanceof DirectlyModifiableTopLevelItemGroup)) {
+            throw new IOException(String.format("Cannot unload %s from %s", path, folder.getParent().getFullName()));
+        }
+        // No build can start in the folder from now on
+        hibernating.add(path);
+        try {
+            Queue queue = Jenkins.getInstance().getQueue();
+            for (Queue.Item item : queue.getItems()) {
+                if (isUnder(item, path)) {
+                    LOGGER.fine(String.format("Cancelling %s before hibernating %s", item, path));
+                    queue.cancel(item);
+                }
+            }
+            // Builds which started or were handed to an executor before the folder was blocked
+            for (Job<?, ?> job : folder.getAllJobs()) {
+                if (job.isBuilding()) {
+                    LOGGER.fine(String.format("Not hibernating %s since %s is building", path, job.getFullName()));
+                    return false;
+                }
+            }
+            for (Queue.Item item : queue.getItems()) {
+                if (isUnder(item, path)) {
+                    LOGGER.fine(String.format("Not hibernating %s since %s is about to start", path, item));
+                    return false;
+                }
+            }
+            return hibernate(path, folder);
+        } finally {
+            hibernating.remove(path);
+        }
+    }
+
+    /**
+     * Archives and unloads a branch folder in which no build can start
+     */
+    private boolean hibernate(String path, AbstractFolder<?> folder) throws IOException, InterruptedException {
+        // Archiving
+        BranchArchive archive = getArchive(path);
+        archive.write(folder.getRootDir(), SeedPlugin.getSeedPlugin().getHibernationKeptBuilds());
+        BranchKey owner = GeneratedItemsRegistry.get().getOwner(path);
+        boolean guessed = false;
+        if (owner == null) {
+            owner = guessOwner(path);
+            guessed = owner != null;
+        }
+        HibernatedBranch branch = new HibernatedBranch(
+                path,
+                owner != null ? owner.getProject() : "",
+                owner != null ? owner.getBranch() : "",
+                guessed,
+                archive.getFile().getAbsolutePath(),
+                folder.getRootDir().getAbsolutePath(),
+                System.currentTimeMillis()
+        );
+        // Unloading
+        unload(folder);
+        HibernationDescriptor.get().hibernated(branch);
+        metrics.increment("hibernation.hibernated");
+        LOGGER.info(String.format("Branch folder %s has been hibernated into %s", path, archive.getFile()));
+        return true;
+    }
+
+    /**
+     * Checks if an item is in a folder being hibernated
+     */
+    public boolean isHibernating(String fullName) {
+        for (String path : hibernating) {
+            if (fullName.equals(path) || fullName.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUnder(Queue.Item item, String path) {
+        if (item.task instanceof Item) {
+            String fullName = ((Item) item.task).getFullName();
+            return fullName.startsWith(path + "/");
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the folder from its parent without deleting it, so that the item listeners are not
+     * notified: the registry of generated items, the project seed cache and the pull request slots
+     * keep the branch while it is hibernated. The content of the folder is in the archive.
+     */
+    private void unload(AbstractFolder<?> folder) throws IOException {
+        String path = folder.getFullName();
+        File dir = folder.getRootDir();
+        ((DirectlyModifiableTopLevelItemGroup) folder.getParent()).remove(folder);
+        itemPathCache.invalidate(path, true);
+        Util.deleteRecursive(dir);
+    }
+
+    /**
+     * Gets the project and branch of a branch folder generated before the registry of generated items,
+     * from the naming strategy of the projects. The branch is only known by its normalised name.
+     */
+    private static BranchKey guessOwner(String path) {
+        SeedItem item = Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class).resolveItem(path);
+        if (item != null && item.getRole() == SeedItemRole.BRANCH_FOLDER) {
+            return new BranchKey(item.getProject(), item.getBranch());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Restores a hibernated branch folder.
+     *
+     * @throws IOException If the folder cannot be restored. The hibernation is then cancelled
+     *                     (the archive being kept on disk) and the folder must be regenerated.
+     */
+    public synchronized void restore(String path) throws IOException {
+        HibernatedBranch branch = HibernationDescriptor.get().getHibernated(path);
+        if (branch == null) {
+            return;
+        }
+        BranchArchive archive = new BranchArchive(new File(branch.getArchive()));
+        try {
+            ItemGroup<?> parent = getParent(path);
+            String name = StringUtils.substringAfterLast("/" + path, "/");
+            if (parent.getItem(name) == null) {
+                if (!(parent instanceof DirectlyModifiableTopLevelItemGroup)) {
+                    throw new IOException(String.format("Cannot restore %s into %s", path, parent.getFullName()));
+                }
+                File dir = new File(branch.getDirectory());
+                archive.extract(dir);
+                Item item = Items.load(parent, dir);
+                ((DirectlyModifiableTopLevelItemGroup) parent).add((TopLevelItem) item, name);
+                ItemListener.fireOnCreated(item);
+                if (!branch.isGuessed() && GeneratedItemsRegistry.get().getOwner(path) == null) {
+                    // Hibernated by a version which did not keep the registry entries
+                    register(branch, item);
+                }
+                Jenkins.getInstance().rebuildDependencyGraphAsync();
+                metrics.increment("hibernation.restored");
+                LOGGER.info(String.format("Branch folder %s has been restored", path));
+            }
+            archive.delete();
+        } finally {
+            // The archive is kept on failure
+            HibernationDescriptor.get().wokeUp(path);
+        }
+    }
+
+    /**
+     * Drops a hibernated branch folder
+     */
+    public synchronized void discard(String path) throws IOException {
+        HibernatedBranch branch = HibernationDescriptor.get().getHibernated(path);
+        HibernationDescriptor.get().forget(path);
+        if (branch != null) {
+            if (StringUtils.isNotBlank(branch.getProject()) && !branch.isGuessed()) {
+                GeneratedItemsRegistry.get().removeBranch(branch.getProject(), branch.getBranch());
+            }
+            new BranchArchive(new File(branch.getArchive())).delete();
+        }
+    }
+
+    /**
+     * Runs an action once an item has been created, for example once a branch pipeline which could
+     * not be restored has been regenerated. The waiting actions are not kept over a restart.
+     */
+    public void whenCreated(String fullName, Runnable action) {
+        synchronized (waiting) {
+            List<Runnable> actions = waiting.get(fullName);
+            if (actions == null) {
+                actions = new ArrayList<>();
+                waiting.put(fullName, actions);
+            }
+            actions.add(action);
+        }
+    }
+
+    /**
+     * Notification of the creation of an item
+     */
+    public void created(String fullName) {
+        List<Runnable> actions;
+        synchronized (waiting) {
+            actions = waiting.remove(fullName);
+        }
+        if (actions != null) {
+            for (Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, String.format("Could not run the action waiting for %s", fullName), ex);
+                }
+            }
+        }
+    }
+
+    private void register(HibernatedBranch branch, Item item) {
+        if (StringUtils.isNotBlank(branch.getProject())) {
+            List<String> names = new ArrayList<>();
+            names.add(item.getFullName());
+            if (item instanceof ItemGroup) {
+                for (Item child : Items.getAllItems((ItemGroup<?>) item, Item.class)) {
+                    names.add(child.getFullName());
+                }
+            }
+            GeneratedItemsRegistry.get().record(branch.getProject(), branch.getBranch(), names);
+        }
+    }
+
+    private static ItemGroup<?> getParent(String path) throws IOException {
+        String parentPath = StringUtils.substringBeforeLast(path, "/");
+        if (StringUtils.equals(parentPath, path)) {
+            return Jenkins.getInstance();
+        }
+        Item parent = Jenkins.getInstance().getItemByFullName(parentPath);
+        if (parent instanceof ItemGroup) {
+            return (ItemGroup<?>) parent;
+        } else {
+            throw new IOException(String.format("Cannot find the parent folder %s", parentPath));
+        }
+    }
+
+    private static BranchArchive getArchive(String path) {
+        return new BranchArchive(new File(new File(Jenkins.getInstance().getRootDir(), "seed-hibernation"), path + ".zip"));
+    }
+
+    /**
+     * The branch folder is the top-most folder generated for the branch
+     */
+    private static AbstractFolder<?> getBranchFolder(Iterable<String> names) {
+        AbstractFolder<?> result = null;
+        for (String name : names) {
+            if (result == null || name.length() < result.getFullName().length()) {
+                AbstractFolder<?> folder = Jenkins.getInstance().getItemByFullName(name, AbstractFolder.class);
+                if (folder != null) {
+                    result = folder;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long getLastActivity(AbstractFolder<?> folder) {
+        long last = 0;
+        for (Job<?, ?> job : folder.getAllJobs()) {
+            Run<?, ?> build = job.getLastBuild();
+            if (build != null) {
+                last = Math.max(last, build.getTimeInMillis());
+            }
+        }
+        return last > 0 ? last : System.currentTimeMillis();
+    }
+
+    /**
+     * Prevents any build from starting in a folder being hibernated.
+     */
+    @Extension
+    public static class HibernationQueueTaskDispatcher extends QueueTaskDispatcher {
+
+        @Override
+        public CauseOfBlockage canRun(Queue.Item item) {
+            if (item.task instanceof Item) {
+                final String fullName = ((Item) item.task).getFullName();
+                if (SeedContainer.getInstance(BranchHibernation.class).isHibernating(fullName)) {
+                    return new CauseOfBlockage() {
+                        @Override
+                        public String getShortDescription() {
+                            return String.format("%s is being hibernated", fullName);
+                        }
+                    };
+                }
+            }
+            return null;
+        }
+    }
+}
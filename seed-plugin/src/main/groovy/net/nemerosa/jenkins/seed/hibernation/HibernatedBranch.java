@@ -0,0 +1,48 @@
+package net.nemerosa.jenkins.seed.hibernation;
+
+import lombok.Data;
+
+/**
+ * Branch folder which has been hibernated.
+ */
+@Data
+public class HibernatedBranch {
+
+    /**
+     * Full name of the branch folder
+     */
+    private final String folder;
+
+    /**
+     * Project name, as known by the registry of generated items
+     */
+    private final String project;
+
+    /**
+     * Branch name
+     */
+    private final String branch;
+
+    /**
+     * The project and the branch were not in the registry of generated items but guessed from the
+     * naming strategy of the projects. The branch is then the normalised name of the branch and the
+     * folder must not be recorded in the registry under it.
+     */
+    private final boolean guessed;
+
+    /**
+     * Path to the archive
+     */
+    private final String archive;
+
+    /**
+     * Directory of the folder when it was unloaded
+     */
+    private final String directory;
+
+    /**
+     * Time of the hibernation
+     */
+    private final long hibernated;
+
+}
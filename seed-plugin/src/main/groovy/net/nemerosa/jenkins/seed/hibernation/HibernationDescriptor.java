@@ -0,0 +1,165 @@
+package net.nemerosa.jenkins.seed.hibernation;
+
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.support.DelayedSave;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Descriptor used to hold the last activity of the branch folders and the list of hibernated ones.
+ */
+@Extension
+public class HibernationDescriptor extends Descriptor<HibernationDescriptor> implements Describable<HibernationDescriptor> {
+
+    /**
+     * Delay in milliseconds between the recording of an activity and its save
+     */
+    private static final long ACTIVITY_SAVE_DELAY = Long.getLong(HibernationDescriptor.class.getName() + ".activitySaveDelay", 60_000L);
+
+    /**
+     * Time of the last seed event, indexed by branch folder
+     */
+    private Map<String, Long> activity = new ConcurrentHashMap<>();
+
+    /**
+     * Hibernated branches, indexed by branch folder
+     */
+    private Map<String, HibernatedBranch> hibernated = new HashMap<>();
+
+    /**
+     * Saves of the activity, written behind the seed events
+     */
+    private final transient DelayedSave activitySave = new DelayedSave(this, ACTIVITY_SAVE_DELAY);
+
+    public HibernationDescriptor() {
+        super(HibernationDescriptor.class);
+        load();
+        // Recorded without any lock
+        activity = new ConcurrentHashMap<>(activity);
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "";
+    }
+
+    @Override
+    public Descriptor<HibernationDescriptor> getDescriptor() {
+        return this;
+    }
+
+    public static HibernationDescriptor get() {
+        return Jenkins.getInstance().getDescriptorByType(HibernationDescriptor.class);
+    }
+
+    /**
+     * Records an activity for a branch folder. This is called for every seed event: the activity is
+     * recorded without any lock and saved behind, the activities of all the folders being saved at once.
+     */
+    public void touch(String folder, long time) {
+        activity.put(folder, time);
+        activitySave.schedule();
+    }
+
+    /**
+     * Writes the pending activities when Jenkins stops.
+     */
+    @Terminator
+    public static void flushActivity() {
+        get().activitySave.flush();
+    }
+
+    /**
+     * Records an initial activity for a branch folder, if none is known yet.
+     */
+    public synchronized boolean track(String folder, long time) {
+        if (!activity.containsKey(folder) && !hibernated.containsKey(folder)) {
+            activity.put(folder, time);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public synchronized Map<String, Long> getActivity() {
+        return new HashMap<>(activity);
+    }
+
+    public synchronized HibernatedBranch getHibernated(String folder) {
+        return hibernated.get(folder);
+    }
+
+    /**
+     * Full names of the hibernated branch folders
+     */
+    public synchronized List<String> getHibernatedFolders() {
+        return new ArrayList<>(hibernated.keySet());
+    }
+
+    /**
+     * Full names of the hibernated branch folders under the given folder
+     */
+    public synchronized List<String> getHibernatedUnder(String folder) {
+        List<String> folders = new ArrayList<>();
+        for (String name : hibernated.keySet()) {
+            if (name.startsWith(folder + "/")) {
+                folders.add(name);
+            }
+        }
+        return folders;
+    }
+
+    public synchronized void hibernated(HibernatedBranch branch) {
+        activity.remove(branch.getFolder());
+        hibernated.put(branch.getFolder(), branch);
+        save();
+    }
+
+    public synchronized HibernatedBranch wokeUp(String folder) {
+        HibernatedBranch branch = hibernated.remove(folder);
+        if (branch != null) {
+            activity.put(folder, System.currentTimeMillis());
+            save();
+        }
+        return branch;
+    }
+
+    public synchronized void forget(String folder) {
+        Long removedActivity = activity.remove(folder);
+        HibernatedBranch removedBranch = hibernated.remove(folder);
+        if (removedActivity != null || removedBranch != null) {
+            save();
+        }
+    }
+
+    @Extension
+    public static class HibernationDescriptorItemListener extends ItemListener {
+
+        @Override
+        public void onCreated(Item item) {
+            SeedContainer.getInstance(BranchHibernation.class).created(item.getFullName());
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            get().forget(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().forget(oldFullName);
+        }
+
+    }
+}
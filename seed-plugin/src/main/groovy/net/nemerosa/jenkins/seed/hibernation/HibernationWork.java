@@ -0,0 +1,46 @@
+package net.nemerosa.jenkins.seed.hibernation;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import net.nemerosa.jenkins.seed.SeedPlugin;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernates the branch folders without any seed event for the
+ * {@linkplain SeedPlugin#getHibernationDays() configured number of days}.
+ */
+@Extension
+public class HibernationWork extends AsyncPeriodicWork {
+
+    public HibernationWork() {
+        super("Seed hibernation");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return HOUR;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        int days = SeedPlugin.getSeedPlugin().getHibernationDays();
+        if (days <= 0) {
+            return;
+        }
+        BranchHibernation hibernation = SeedContainer.getInstance(BranchHibernation.class);
+        hibernation.trackRegisteredBranches();
+        for (String folder : hibernation.getInactiveFolders(TimeUnit.DAYS.toMillis(days))) {
+            try {
+                if (hibernation.hibernate(folder)) {
+                    listener.getLogger().format("Hibernated %s%n", folder);
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace(listener.error("Could not hibernate %s", folder));
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.nemerosa.jenkins.seed.migration;
+
+import lombok.Data;
+
+/**
+ * Move of an item from an old path to a new path.
+ */
+@Data
+public class ItemMove {
+
+    /**
+     * Current full name of the item
+     */
+    private final String from;
+
+    /**
+     * Target full name of the item
+     */
+    private final String to;
+
+}
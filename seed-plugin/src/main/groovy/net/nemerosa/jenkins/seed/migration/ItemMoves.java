@@ -0,0 +1,78 @@
+package net.nemerosa.jenkins.seed.migration;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.AbstractItem;
+import hudson.model.DirectlyModifiableTopLevelItemGroup;
+import hudson.model.Failure;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.ModifiableTopLevelItemGroup;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+
+/**
+ * Low level operations on items, through the public API of Jenkins only.
+ */
+public final class ItemMoves {
+
+    private ItemMoves() {
+    }
+
+    /**
+     * Renames an item in its parent.
+     * <p>
+     * {@link AbstractItem#renameTo(String)} is only public for the jobs and the folders, the only items
+     * generated by the seeds. It checks the new name and notifies the item listeners of the new location.
+     */
+    public static void rename(AbstractItem item, String name) throws IOException {
+        try {
+            if (item instanceof Job) {
+                ((Job<?, ?>) item).renameTo(name);
+            } else if (item instanceof AbstractFolder) {
+                ((AbstractFolder<?>) item).renameTo(name);
+            } else {
+                throw new IOException(String.format("%s cannot be renamed", item.getFullName()));
+            }
+        } catch (Failure ex) {
+            throw new IOException(String.format("Cannot rename %s to %s: %s", item.getFullName(), name, ex.getMessage()), ex);
+        }
+    }
+
+    /**
+     * Moves an item into another folder
+     */
+    public static void move(AbstractItem item, DirectlyModifiableTopLevelItemGroup destination) throws IOException {
+        Items.move(item, destination);
+    }
+
+    /**
+     * Gets a folder by its full name, creating the missing folders on the way
+     */
+    public static ItemGroup<?> folder(String path) throws IOException {
+        ItemGroup<?> group = Jenkins.getInstance();
+        for (String name : path.split("/")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            Item item = group.getItem(name);
+            if (item == null) {
+                if (!(group instanceof ModifiableTopLevelItemGroup)) {
+                    throw new IOException(String.format("Cannot create folders in %s", group.getFullName()));
+                }
+                item = ((ModifiableTopLevelItemGroup) group).createProject(
+                        Jenkins.getInstance().getDescriptorByType(Folder.DescriptorImpl.class),
+                        name,
+                        true
+                );
+            } else if (!(item instanceof ItemGroup)) {
+                throw new IOException(String.format("%s is not a folder", item.getFullName()));
+            }
+            group = (ItemGroup<?>) item;
+        }
+        return group;
+    }
+}
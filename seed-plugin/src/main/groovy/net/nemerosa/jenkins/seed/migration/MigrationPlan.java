@@ -0,0 +1,34 @@
+package net.nemerosa.jenkins.seed.migration;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Moves needed to migrate a project from a naming strategy to another one.
+ */
+@Data
+public class MigrationPlan {
+
+    /**
+     * Moves of the project folder and of the project jobs, to be run first and in order
+     */
+    private final List<ItemMove> projectMoves;
+
+    /**
+     * Moves for each branch. The moves of a branch must be run in order, but the branches are independent.
+     */
+    private final List<List<ItemMove>> branchMoves;
+
+    public boolean isEmpty() {
+        return projectMoves.isEmpty() && branchMoves.isEmpty();
+    }
+
+    public int getSize() {
+        int size = projectMoves.size();
+        for (List<ItemMove> moves : branchMoves) {
+            size += moves.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,304 @@
+package net.nemerosa.jenkins.seed.migration;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import hudson.BulkChange;
+import hudson.model.AbstractItem;
+import hudson.model.DirectlyModifiableTopLevelItemGroup;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.TopLevelItem;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.CannotMoveItemException;
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig;
+import net.nemerosa.jenkins.seed.config.PipelineConfig;
+import net.nemerosa.jenkins.seed.config.SeedItem;
+import net.nemerosa.jenkins.seed.config.SeedItemRole;
+import net.nemerosa.jenkins.seed.hibernation.BranchHibernation;
+import net.nemerosa.jenkins.seed.hibernation.HibernationDescriptor;
+import net.nemerosa.jenkins.seed.registry.GeneratedItemsRegistry;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Migration of the items of a project when its naming strategy changes.
+ * <p>
+ * The project folder, the project jobs, and for each known branch, the branch folder, the branch seed and
+ * the branch start job are moved or renamed from their old paths to their new ones. The hibernated branch
+ * folders are restored before being moved. The branches are migrated in parallel on a bounded pool of workers.
+ * The saves of the hibernated branches triggered by the item listeners are suppressed and replaced by a single
+ * save at the end, the registry of generated items saving its changes behind.
+ */
+public class NamingMigration {
+
+    /**
+     * Maximum number of branches migrated in parallel
+     */
+    private static final int THREADS = Integer.getInteger(NamingMigration.class.getName() + ".threads", 4);
+
+    private final PrintStream logger;
+
+    public NamingMigration(PrintStream logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Computes the moves needed to go from the old naming to the new one, for the branches known by the
+     * registry of generated items and for the branch folders found under the project folder which match
+     * the old naming, including the hibernated ones.
+     *
+     * @param project   Project name
+     * @param oldConfig Previous configuration of the project
+     * @param newConfig New configuration of the project
+     */
+    public static MigrationPlan plan(String project, PipelineConfig oldConfig, PipelineConfig newConfig) {
+        Collection<String> branches = GeneratedItemsRegistry.get().getBranches(project);
+        return plan(project, oldConfig, newConfig, branches, findBranchNames(project, oldConfig, branches));
+    }
+
+    /**
+     * Computes the moves needed to go from the old naming to the new one.
+     *
+     * @param project   Project name
+     * @param oldConfig Previous configuration of the project
+     * @param newConfig New configuration of the project
+     * @param branches  Known branches of the project
+     */
+    public static MigrationPlan plan(String project, PipelineConfig oldConfig, PipelineConfig newConfig, Collection<String> branches) {
+        return plan(project, oldConfig, newConfig, branches, Collections.<String>emptySet());
+    }
+
+    /**
+     * Computes the moves needed to go from the old naming to the new one.
+     *
+     * @param project     Project name
+     * @param oldConfig   Previous configuration of the project
+     * @param newConfig   New configuration of the project
+     * @param branches    Known branches of the project
+     * @param branchNames Other branches of the project, only known by their name in the old naming
+     *                    (see {@link NamingStrategyConfig#getBranchName(String)})
+     */
+    public static MigrationPlan plan(String project, PipelineConfig oldConfig, PipelineConfig newConfig, Collection<String> branches, Collection<String> branchNames) {
+        NamingStrategyConfig oldNaming = oldConfig.getNamingStrategy();
+        NamingStrategyConfig newNaming = newConfig.getNamingStrategy();
+        List<ItemMove> projectMoves = new ArrayList<>();
+        String oldFolder = oldConfig.getProjectFolder(project);
+        String folder = newConfig.getProjectFolder(project);
+        addMove(projectMoves, oldFolder, folder);
+        addMove(projectMoves,
+                folder + "/" + oldConfig.getProjectSeedJob(project),
+                folder + "/" + newConfig.getProjectSeedJob(project));
+        addMove(projectMoves,
+                folder + "/" + oldConfig.getProjectDestructorJob(project),
+                folder + "/" + newConfig.getProjectDestructorJob(project));
+        List<List<ItemMove>> branchMoves = new ArrayList<>();
+        for (String branch : branches) {
+            addBranchMoves(branchMoves, project, folder,
+                    oldNaming, oldNaming.getBranchName(branch),
+                    newNaming, newNaming.getBranchName(branch));
+        }
+        for (String branchName : branchNames) {
+            // The branch in the SCM is not known: its name is kept if the new naming does not change the branch names
+            addBranchMoves(branchMoves, project, folder,
+                    oldNaming, branchName,
+                    newNaming, newNaming.isSameBranchName(oldNaming) ? branchName : newNaming.getBranchName(branchName));
+        }
+        return new MigrationPlan(projectMoves, branchMoves);
+    }
+
+    private static void addBranchMoves(List<List<ItemMove>> branchMoves, String project, String folder, NamingStrategyConfig oldNaming, String oldName, NamingStrategyConfig newNaming, String newName) {
+        List<ItemMove> moves = new ArrayList<>();
+        String branchFolder = folder + "/" + newNaming.getBranchFolderPathForName(project, newName);
+        addMove(moves,
+                folder + "/" + oldNaming.getBranchFolderPathForName(project, oldName),
+                branchFolder);
+        addMove(moves,
+                branchFolder + "/" + oldNaming.getBranchSeedNameForName(project, oldName),
+                branchFolder + "/" + newNaming.getBranchSeedNameForName(project, newName));
+        addMove(moves,
+                branchFolder + "/" + oldNaming.getBranchStartNameForName(project, oldName),
+                branchFolder + "/" + newNaming.getBranchStartNameForName(project, newName));
+        if (!moves.isEmpty()) {
+            branchMoves.add(moves);
+        }
+    }
+
+    /**
+     * Finds the branch folders under the project folder, loaded or hibernated, which match the old naming
+     * but do not belong to any of the known branches. Such folders were generated before the registry of
+     * generated items.
+     *
+     * @return Names of the branches, as resolved from the old naming
+     */
+    private static Set<String> findBranchNames(String project, PipelineConfig oldConfig, Collection<String> branches) {
+        NamingStrategyConfig naming = oldConfig.getNamingStrategy();
+        String projectFolder = oldConfig.getProjectFolder(project);
+        Set<String> known = new HashSet<>();
+        for (String branch : branches) {
+            known.add(projectFolder + "/" + oldConfig.getBranchFolderPath(project, branch));
+        }
+        List<String> folders = new ArrayList<>();
+        ItemGroup<?> group = Jenkins.getInstance().getItemByFullName(projectFolder, AbstractFolder.class);
+        if (group != null) {
+            for (AbstractFolder<?> folder : Items.getAllItems(group, AbstractFolder.class)) {
+                folders.add(folder.getFullName());
+            }
+        }
+        folders.addAll(HibernationDescriptor.get().getHibernatedUnder(projectFolder));
+        Set<String> names = new TreeSet<>();
+        for (String folder : folders) {
+            if (!known.contains(folder)) {
+                SeedItem item = naming.resolve(project, folder);
+                if (item != null && item.getRole() == SeedItemRole.BRANCH_FOLDER) {
+                    names.add(item.getBranch());
+                }
+            }
+        }
+        return names;
+    }
+
+    private static void addMove(List<ItemMove> moves, String from, String to) {
+        if (!StringUtils.equals(from, to)) {
+            moves.add(new ItemMove(from, to));
+        }
+    }
+
+    /**
+     * Runs the migration
+     */
+    public void migrate(MigrationPlan plan) throws InterruptedException {
+        logger.format("[seed] Migrating %d items%n", plan.getSize());
+        SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
+        try {
+            // Project level first
+            migrate(plan.getProjectMoves());
+            // Branches in parallel
+            if (!plan.getBranchMoves().isEmpty()) {
+                ExecutorService pool = Executors.newFixedThreadPool(
+                        Math.min(THREADS, plan.getBranchMoves().size()),
+                        new NamingThreadFactory(new DaemonThreadFactory(), "Seed naming migration")
+                );
+                try {
+                    List<Callable<Void>> tasks = new ArrayList<>();
+                    for (final List<ItemMove> moves : plan.getBranchMoves()) {
+                        tasks.add(new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
+                                try {
+                                    migrate(moves);
+                                } finally {
+                                    SecurityContextHolder.setContext(orig);
+                                }
+                                return null;
+                            }
+                        });
+                    }
+                    for (Future<Void> future : pool.invokeAll(tasks)) {
+                        try {
+                            future.get();
+                        } catch (ExecutionException ex) {
+                            // Not blocking - the other branches are still migrated
+                            ex.getCause().printStackTrace(logger);
+                        }
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            SecurityContextHolder.setContext(orig);
+            // Single save, the registry of generated items saving its changes behind
+            HibernationDescriptor.get().save();
+        }
+    }
+
+    /**
+     * Runs a list of moves in order, without saving the hibernated branches
+     */
+    private void migrate(List<ItemMove> moves) {
+        BulkChange hibernationChange = new BulkChange(HibernationDescriptor.get());
+        try {
+            for (ItemMove move : moves) {
+                move(move);
+            }
+        } finally {
+            hibernationChange.abort();
+        }
+    }
+
+    private void move(ItemMove move) {
+        Jenkins jenkins = Jenkins.getInstance();
+        // Hibernated folders are restored first, since their paths change
+        restoreHibernated(move.getFrom());
+        Item item = jenkins.getItemByFullName(move.getFrom());
+        if (item == null) {
+            logger.format("[seed] %s does not exist - not migrated%n", move.getFrom());
+            return;
+        }
+        if (jenkins.getItemByFullName(move.getTo()) != null) {
+            logger.format("[seed] %s already exists - %s not migrated%n", move.getTo(), move.getFrom());
+            return;
+        }
+        if (!(item instanceof AbstractItem) || !(item instanceof TopLevelItem)) {
+            logger.format("[seed] %s cannot be moved%n", move.getFrom());
+            return;
+        }
+        String name = StringUtils.substringAfterLast("/" + move.getTo(), "/");
+        String parent = StringUtils.substringBeforeLast("/" + move.getTo(), "/");
+        try {
+            if (!StringUtils.equals(item.getName(), name)) {
+                ItemMoves.rename((AbstractItem) item, name);
+            }
+            ItemGroup<?> destination = ItemMoves.folder(parent);
+            if (destination != item.getParent()) {
+                if (!(destination instanceof DirectlyModifiableTopLevelItemGroup)) {
+                    throw new IOException(String.format("Cannot move items into %s", destination.getFullName()));
+                }
+                ItemMoves.move((AbstractItem) item, (DirectlyModifiableTopLevelItemGroup) destination);
+            }
+            logger.format("[seed] Migrated %s to %s%n", move.getFrom(), move.getTo());
+        } catch (IOException ex) {
+            throw new CannotMoveItemException(move.getFrom(), move.getTo(), ex);
+        }
+    }
+
+    /**
+     * Restores the hibernated branch folders which contain the given item or are under it. A folder which
+     * cannot be restored is left hibernated, to be regenerated on its next seed event.
+     */
+    private void restoreHibernated(String path) {
+        BranchHibernation hibernation = SeedContainer.getInstance(BranchHibernation.class);
+        for (String folder : HibernationDescriptor.get().getHibernatedFolders()) {
+            if (folder.equals(path) || folder.startsWith(path + "/") || path.startsWith(folder + "/")) {
+                try {
+                    hibernation.restore(folder);
+                    logger.format("[seed] Restored %s before migrating it%n", folder);
+                } catch (IOException ex) {
+                    logger.format("[seed] %s cannot be restored - not migrated%n", folder);
+                    ex.printStackTrace(logger);
+                }
+            }
+        }
+    }
+}
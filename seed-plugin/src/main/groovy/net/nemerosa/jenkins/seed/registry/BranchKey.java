@@ -0,0 +1,21 @@
+package net.nemerosa.jenkins.seed.registry;
+
+import lombok.Data;
+
+/**
+ * Identifies the generation which produced an item.
+ */
+@Data
+public class BranchKey {
+
+    /**
+     * Project name
+     */
+    private final String project;
+
+    /**
+     * Branch name, or {@link GeneratedItemsRegistry#PROJECT_LEVEL} for the project level items
+     */
+    private final String branch;
+
+}
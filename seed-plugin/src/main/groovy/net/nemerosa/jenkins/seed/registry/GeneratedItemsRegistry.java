@@ -0,0 +1,309 @@
+package net.nemerosa.jenkins.seed.registry;
+
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.listeners.ItemListener;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.support.DelayedSave;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Registry of the items generated by the Seed, for each project and branch.
+ * <p>
+ * The registry is fed incrementally by every generation (project seed, branch seed and the DSL step of the
+ * branch seed) and is kept up to date by an item listener when generated items are deleted or moved. It allows
+ * the teardown, orphan detection and reporting to be direct lookups instead of tree scans.
+ * <p>
+ * Items generated at project level (project folder, project seed, destructor) are registered with the
+ * {@linkplain #PROJECT_LEVEL empty branch}.
+ * <p>
+ * The changes are saved behind, all the changes made within {@link #SAVE_DELAY} being written at once.
+ */
+@Extension
+public class GeneratedItemsRegistry extends Descriptor<GeneratedItemsRegistry> implements Describable<GeneratedItemsRegistry> {
+
+    /**
+     * Branch used to register the project level items
+     */
+    public static final String PROJECT_LEVEL = "";
+
+    /**
+     * Delay between a change of the registry and its save, in milliseconds
+     */
+    private static final long SAVE_DELAY = Long.getLong(GeneratedItemsRegistry.class.getName() + ".saveDelay", 5_000L);
+
+    /**
+     * Generated items, indexed by project and branch
+     */
+    private Map<String, Map<String, SortedSet<String>>> projects = new TreeMap<>();
+
+    /**
+     * Index of the owners, by item full name. Sorted so that the items under a group are a range of the index.
+     */
+    private transient NavigableMap<String, BranchKey> owners = new TreeMap<>();
+
+    private final transient DelayedSave changes = new DelayedSave(this, SAVE_DELAY);
+
+    public GeneratedItemsRegistry() {
+        super(GeneratedItemsRegistry.class);
+        load();
+        indexOwners();
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "";
+    }
+
+    @Override
+    public Descriptor<GeneratedItemsRegistry> getDescriptor() {
+        return this;
+    }
+
+    public static GeneratedItemsRegistry get() {
+        return Jenkins.getInstance().getDescriptorByType(GeneratedItemsRegistry.class);
+    }
+
+    /**
+     * Writes the pending changes when Jenkins stops.
+     */
+    @Terminator
+    public static void flushChanges() {
+        get().changes.flush();
+    }
+
+    /**
+     * Saved behind the changes, from another thread
+     */
+    @Override
+    public synchronized void save() {
+        super.save();
+    }
+
+    /**
+     * Registers the items generated for a project and a branch. The items already registered for
+     * this branch are kept.
+     */
+    public synchronized void record(String project, String branch, Collection<String> fullNames) {
+        if (fullNames.isEmpty()) {
+            return;
+        }
+        SortedSet<String> items = getOrCreateItems(project, branch);
+        BranchKey key = new BranchKey(project, branch);
+        for (String fullName : fullNames) {
+            items.add(fullName);
+            BranchKey previous = owners.put(fullName, key);
+            if (previous != null && !previous.equals(key)) {
+                // Item taken over by another branch
+                removeFromBranch(previous, fullName);
+            }
+        }
+        changes.schedule();
+    }
+
+    /**
+     * Items generated for a project and a branch
+     */
+    public synchronized SortedSet<String> getItems(String project, String branch) {
+        Map<String, SortedSet<String>> branches = projects.get(project);
+        if (branches != null) {
+            SortedSet<String> items = branches.get(branch);
+            if (items != null) {
+                return new TreeSet<>(items);
+            }
+        }
+        return new TreeSet<>();
+    }
+
+    /**
+     * Branches having generated items for a project (without the project level)
+     */
+    public synchronized SortedSet<String> getBranches(String project) {
+        SortedSet<String> result = new TreeSet<>();
+        Map<String, SortedSet<String>> branches = projects.get(project);
+        if (branches != null) {
+            result.addAll(branches.keySet());
+            result.remove(PROJECT_LEVEL);
+        }
+        return result;
+    }
+
+    public synchronized SortedSet<String> getProjects() {
+        return new TreeSet<>(projects.keySet());
+    }
+
+    /**
+     * Gets the project and branch which generated an item, or <code>null</code> if the item is not
+     * known by the registry.
+     */
+    public synchronized BranchKey getOwner(String fullName) {
+        return owners.get(fullName);
+    }
+
+    /**
+     * Gets the registered item with the given full name and all the registered items under it,
+     * whatever the branch they belong to in the same project.
+     */
+    public synchronized SortedSet<String> getItemsUnder(String fullName) {
+        SortedSet<String> result = new TreeSet<>();
+        BranchKey owner = owners.get(fullName);
+        if (owner != null) {
+            result.add(fullName);
+            for (Map.Entry<String, BranchKey> entry : getOwnersUnder(fullName).entrySet()) {
+                if (entry.getValue().getProject().equals(owner.getProject())) {
+                    result.add(entry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unregisters all the items of a branch
+     */
+    public synchronized void removeBranch(String project, String branch) {
+        Map<String, SortedSet<String>> branches = projects.get(project);
+        if (branches != null) {
+            SortedSet<String> items = branches.remove(branch);
+            if (items != null) {
+                for (String item : items) {
+                    owners.remove(item);
+                }
+                if (branches.isEmpty()) {
+                    projects.remove(project);
+                }
+                changes.schedule();
+            }
+        }
+    }
+
+    /**
+     * Registered items which do not exist any longer
+     */
+    public List<String> findMissingItems() {
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(owners.keySet());
+        }
+        List<String> missing = new ArrayList<>();
+        Jenkins jenkins = Jenkins.getInstance();
+        for (String name : names) {
+            if (jenkins.getItemByFullName(name) == null) {
+                missing.add(name);
+            }
+        }
+        Collections.sort(missing);
+        return missing;
+    }
+
+    private synchronized void onItemDeleted(String fullName, boolean group) {
+        boolean changed = unregister(fullName);
+        if (group) {
+            for (String name : new ArrayList<>(getOwnersUnder(fullName).keySet())) {
+                changed |= unregister(name);
+            }
+        }
+        if (changed) {
+            changes.schedule();
+        }
+    }
+
+    private synchronized void onItemMoved(String oldFullName, String newFullName) {
+        // Moving a group triggers a notification for each item in it
+        BranchKey owner = owners.remove(oldFullName);
+        if (owner != null) {
+            removeFromBranch(owner, oldFullName);
+            getOrCreateItems(owner.getProject(), owner.getBranch()).add(newFullName);
+            owners.put(newFullName, owner);
+            changes.schedule();
+        }
+    }
+
+    /**
+     * Registered items under a group: the full names between <code>group/</code> and <code>group0</code>,
+     * <code>0</code> following <code>/</code>.
+     */
+    private NavigableMap<String, BranchKey> getOwnersUnder(String fullName) {
+        return owners.subMap(fullName + "/", true, fullName + "0", false);
+    }
+
+    private boolean unregister(String fullName) {
+        BranchKey owner = owners.remove(fullName);
+        if (owner != null) {
+            removeFromBranch(owner, fullName);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void removeFromBranch(BranchKey key, String fullName) {
+        Map<String, SortedSet<String>> branches = projects.get(key.getProject());
+        if (branches != null) {
+            SortedSet<String> items = branches.get(key.getBranch());
+            if (items != null) {
+                items.remove(fullName);
+                if (items.isEmpty()) {
+                    branches.remove(key.getBranch());
+                }
+            }
+            if (branches.isEmpty()) {
+                projects.remove(key.getProject());
+            }
+        }
+    }
+
+    private SortedSet<String> getOrCreateItems(String project, String branch) {
+        Map<String, SortedSet<String>> branches = projects.get(project);
+        if (branches == null) {
+            branches = new TreeMap<>();
+            projects.put(project, branches);
+        }
+        SortedSet<String> items = branches.get(branch);
+        if (items == null) {
+            items = new TreeSet<>();
+            branches.put(branch, items);
+        }
+        return items;
+    }
+
+    private synchronized void indexOwners() {
+        owners = new TreeMap<>();
+        for (Map.Entry<String, Map<String, SortedSet<String>>> project : projects.entrySet()) {
+            for (Map.Entry<String, SortedSet<String>> branch : project.getValue().entrySet()) {
+                BranchKey key = new BranchKey(project.getKey(), branch.getKey());
+                for (String item : branch.getValue()) {
+                    owners.put(item, key);
+                }
+            }
+        }
+    }
+
+    @Extension
+    public static class GeneratedItemsRegistryItemListener extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            get().onItemDeleted(item.getFullName(), item instanceof ItemGroup);
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().onItemMoved(oldFullName, newFullName);
+        }
+
+    }
+}
@@ -0,0 +1,40 @@
+package net.nemerosa.jenkins.seed.registry;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Project;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import javaposse.jobdsl.plugin.actions.GeneratedJobsBuildAction;
+import net.nemerosa.jenkins.seed.generator.PipelineGenerationStep;
+import net.nemerosa.jenkins.seed.support.DSLHelper;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Registers the items generated by the DSL step of the branch seeds.
+ * <p>
+ * A branch seed is identified by its {@link PipelineGenerationStep}, which holds the project
+ * and the pipeline. The items are registered under the pipeline, the same way as the branch seed itself:
+ * for a branch bound to a pull request slot, this is the slot. The DSL step of the branch seed uses the
+ * {@link javaposse.jobdsl.plugin.LookupStrategy#SEED_JOB SEED_JOB} lookup strategy.
+ */
+@Extension
+@SuppressWarnings("rawtypes")
+public class GeneratedItemsRunListener extends RunListener<AbstractBuild> {
+
+    @Override
+    public void onCompleted(AbstractBuild build, @Nonnull TaskListener listener) {
+        AbstractProject<?, ?> job = build.getProject();
+        if (job instanceof Project) {
+            PipelineGenerationStep step = ((Project<?, ?>) job).getBuildersList().get(PipelineGenerationStep.class);
+            GeneratedJobsBuildAction action = build.getAction(GeneratedJobsBuildAction.class);
+            if (step != null && action != null) {
+                List<String> items = DSLHelper.getItemNames(job.getParent(), action.getModifiedObjects());
+                GeneratedItemsRegistry.get().record(step.getProject(), step.getPipeline(), items);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package net.nemerosa.jenkins.seed.support;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Expression parsed once into a list of segments, and rendered in a single pass.
+ * <p>
+ * An expression refers to one variable, in one of the forms supported by the {@link Evaluator}:
+ * <code>${name}</code> (lower case), <code>${NAME}</code> (upper case), <code>${NAME_}</code> (upper case,
+ * dashes replaced by underscores) and <code>${Name}</code> (capitalized). Any other token is kept as is.
+ * Optionally, the {@link #BRANCH_PLACEHOLDER} is replaced by a branch name. The rendered values are never
+ * evaluated again.
+ * <p>
+ * Compiled templates are cached per expression, the expressions coming from the configurations.
+ */
+public final class CompiledTemplate {
+
+    /**
+     * Placeholder for the branch name
+     */
+    public static final char BRANCH_PLACEHOLDER = '*';
+
+    /**
+     * Compiled templates by variable name and expression, without and with the branch placeholder
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, CompiledTemplate>> TEMPLATES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ConcurrentMap<String, CompiledTemplate>> BRANCH_TEMPLATES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(128);
+        }
+    };
+
+    private enum Type {
+        LITERAL,
+        LOWER,
+        UPPER,
+        UPPER_UNDERSCORE,
+        CAPITALIZE,
+        BRANCH
+    }
+
+    private static class Segment {
+
+        private final Type type;
+        private final String literal;
+
+        private Segment(Type type, String literal) {
+            this.type = type;
+            this.literal = literal;
+        }
+    }
+
+    private final Segment[] segments;
+
+    /**
+     * Length of the literal segments
+     */
+    private final int literalLength;
+
+    private CompiledTemplate(List<Segment> segments) {
+        this.segments = segments.toArray(new Segment[0]);
+        int length = 0;
+        for (Segment segment : segments) {
+            if (segment.type == Type.LITERAL) {
+                length += segment.literal.length();
+            }
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Gets the compiled template for an expression referring to a variable
+     */
+    public static CompiledTemplate compile(String expression, String name) {
+        return compile(expression, name, false);
+    }
+
+    /**
+     * Gets the compiled template for an expression referring to a variable and, optionally, to the
+     * {@linkplain #BRANCH_PLACEHOLDER branch placeholder}
+     */
+    public static CompiledTemplate compile(String expression, String name, boolean branchPlaceholder) {
+        ConcurrentMap<String, ConcurrentMap<String, CompiledTemplate>> templatesByName = branchPlaceholder ? BRANCH_TEMPLATES : TEMPLATES;
+        ConcurrentMap<String, CompiledTemplate> templates = templatesByName.get(name);
+        if (templates == null) {
+            ConcurrentMap<String, CompiledTemplate> newTemplates = new ConcurrentHashMap<>();
+            templates = templatesByName.putIfAbsent(name, newTemplates);
+            if (templates == null) {
+                templates = newTemplates;
+            }
+        }
+        CompiledTemplate template = templates.get(expression);
+        if (template == null) {
+            template = parse(expression, name, branchPlaceholder);
+            CompiledTemplate existing = templates.putIfAbsent(expression, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Renders the template for a value of its variable
+     */
+    public String render(String value) {
+        return render(value, null);
+    }
+
+    /**
+     * Renders the template for a value of its variable and a branch name
+     */
+    public String render(String value, String branch) {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.ensureCapacity(literalLength + 2 * value.length() + (branch != null ? branch.length() : 0));
+        for (Segment segment : segments) {
+            if (segment.type == Type.BRANCH) {
+                builder.append(branch != null ? branch : String.valueOf(BRANCH_PLACEHOLDER));
+            } else if (segment.type == Type.LITERAL) {
+                builder.append(segment.literal);
+            } else {
+                builder.append(render(segment, value));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Inverse of {@link #render(String, String)}: finds the branch name for which the template renders
+     * the given text for a value of its variable.
+     *
+     * @return Branch name, or <code>null</code> if the text cannot be rendered by this template, or if the
+     * template does not contain any branch placeholder
+     */
+    public String match(String value, String text) {
+        // Length of the rendered text without the branch
+        int fixedLength = 0;
+        int branches = 0;
+        int branchStart = -1;
+        for (Segment segment : segments) {
+            if (segment.type == Type.BRANCH) {
+                if (branches == 0) {
+                    branchStart = fixedLength;
+                }
+                branches++;
+            } else {
+                String rendered = render(segment, value);
+                if (branches == 0 && !text.startsWith(rendered, fixedLength)) {
+                    return null;
+                }
+                fixedLength += rendered.length();
+            }
+        }
+        int branchLength = text.length() - fixedLength;
+        if (branches == 0 || branchLength < 0 || branchLength % branches != 0) {
+            return null;
+        }
+        String branch = text.substring(branchStart, branchStart + branchLength / branches);
+        return render(value, branch).equals(text) ? branch : null;
+    }
+
+    private static String render(Segment segment, String value) {
+        switch (segment.type) {
+            case LITERAL:
+                return segment.literal;
+            case LOWER:
+                return value.toLowerCase();
+            case UPPER:
+                return value.toUpperCase();
+            case UPPER_UNDERSCORE:
+                return value.toUpperCase().replace('-', '_');
+            case CAPITALIZE:
+                return StringUtils.capitalize(value);
+            default:
+                throw new IllegalStateException("Unknown segment: " + segment.type);
+        }
+    }
+
+    private static CompiledTemplate parse(String expression, String name, boolean branchPlaceholder) {
+        String lower = name.toLowerCase();
+        String upper = name.toUpperCase();
+        String upperUnderscore = upper + "_";
+        String capitalize = StringUtils.capitalize(name);
+
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (c == '$' && i + 1 < length && expression.charAt(i + 1) == '{') {
+                int end = expression.indexOf('}', i + 2);
+                if (end > 0) {
+                    String token = expression.substring(i + 2, end);
+                    Type type = null;
+                    if (token.equals(lower)) {
+                        type = Type.LOWER;
+                    } else if (token.equals(upper)) {
+                        type = Type.UPPER;
+                    } else if (token.equals(upperUnderscore)) {
+                        type = Type.UPPER_UNDERSCORE;
+                    } else if (token.equals(capitalize)) {
+                        type = Type.CAPITALIZE;
+                    }
+                    if (type != null) {
+                        flush(segments, literal);
+                        segments.add(new Segment(type, null));
+                        i = end + 1;
+                        continue;
+                    }
+                }
+            } else if (branchPlaceholder && c == BRANCH_PLACEHOLDER) {
+                flush(segments, literal);
+                segments.add(new Segment(Type.BRANCH, null));
+                i++;
+                continue;
+            }
+            literal.append(c);
+            i++;
+        }
+        flush(segments, literal);
+        return new CompiledTemplate(segments);
+    }
+
+    private static void flush(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(new Segment(Type.LITERAL, literal.toString()));
+            literal.setLength(0);
+        }
+    }
+}
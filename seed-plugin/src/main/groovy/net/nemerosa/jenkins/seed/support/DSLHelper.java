@@ -3,6 +3,8 @@ package net.nemerosa.jenkins.seed.support;
 import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
 import javaposse.jobdsl.dsl.DslScriptLoader;
 import javaposse.jobdsl.dsl.GeneratedItems;
 import javaposse.jobdsl.dsl.GeneratedJob;
@@ -12,10 +14,19 @@ import javaposse.jobdsl.plugin.LookupStrategy;
 import jenkins.model.Jenkins;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class DSLHelper {
 
-    public static void launchGenerationScript(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env, String script) throws IOException {
+    /**
+     * Runs the generation script.
+     *
+     * @param rebuildDependencyGraph <code>false</code> if the dependency graph is rebuilt by the caller
+     * @return Full names of the generated items
+     */
+    public static List<String> launchGenerationScript(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env, String script, boolean rebuildDependencyGraph) throws IOException {
 
         // Jobs are created at the Jenkins root level
         JenkinsJobManagement jm = new JenkinsJobManagement(listener.getLogger(), env, build, build.getWorkspace(), LookupStrategy.SEED_JOB);
@@ -33,6 +44,21 @@ public class DSLHelper {
         }
 
         // Done
-        Jenkins.getInstance().rebuildDependencyGraph();
+        if (rebuildDependencyGraph) {
+            Jenkins.getInstance().rebuildDependencyGraph();
+        }
+        return getItemNames(build.getProject().getParent(), generatedItems.getJobs());
+    }
+
+    /**
+     * Gets the full names of generated jobs, which are looked up relatively to the
+     * parent of the seed job ({@link LookupStrategy#SEED_JOB}).
+     */
+    public static List<String> getItemNames(ItemGroup<?> context, Collection<GeneratedJob> jobs) {
+        List<String> names = new ArrayList<>();
+        for (GeneratedJob job : jobs) {
+            names.add(Items.getCanonicalName(context, job.getJobName()));
+        }
+        return names;
     }
 }
@@ -0,0 +1,69 @@
+package net.nemerosa.jenkins.seed.support;
+
+import hudson.model.Saveable;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves a {@link Saveable} behind its changes: all the changes made within the delay are written by a
+ * single save, on a background thread, instead of rewriting the whole file on every change.
+ * <p>
+ * The owner must {@linkplain #flush() flush} the pending changes when Jenkins stops.
+ */
+public class DelayedSave {
+
+    private static final Logger LOGGER = Logger.getLogger(DelayedSave.class.getName());
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed delayed save")
+    );
+
+    private final Saveable saveable;
+    private final long delay;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param saveable Object to save
+     * @param delay    Delay in milliseconds between a change and the save
+     */
+    public DelayedSave(Saveable saveable, long delay) {
+        this.saveable = saveable;
+        this.delay = delay;
+    }
+
+    /**
+     * Schedules a save, unless one is already pending. Never blocks.
+     */
+    public void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            EXECUTOR.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Saves now if a save is pending
+     */
+    public void flush() {
+        // Changes made from now on schedule a new save
+        if (scheduled.compareAndSet(true, false)) {
+            try {
+                saveable.save();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Cannot save %s", saveable), ex);
+            }
+        }
+    }
+}
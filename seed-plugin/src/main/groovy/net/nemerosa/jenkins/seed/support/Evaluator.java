@@ -9,29 +9,16 @@ public class Evaluator {
         return evaluate(actualExpression, name, value);
     }
 
-    public static String evaluate(String expression, String name, String value) {
-        return expression
-                .replace(lower(name), value.toLowerCase())
-                .replace(upper(name), value.toUpperCase())
-                .replace(upper_underscore(name), value.toUpperCase().replace("-", "_"))
-                .replace(capitalize(name), StringUtils.capitalize(value))
-                ;
-    }
-
-    private static String lower(String name) {
-        return "${" + name.toLowerCase() + "}";
-    }
-
-    private static String upper(String name) {
-        return "${" + name.toUpperCase() + "}";
-    }
-
-    private static String upper_underscore(String name) {
-        return "${" + name.toUpperCase() + "_}";
+    /**
+     * Evaluates an expression and replaces its {@linkplain CompiledTemplate#BRANCH_PLACEHOLDER branch placeholder}
+     */
+    public static String evaluate(String expression, String defaultExpression, String name, String value, String branch) {
+        String actualExpression = getActualExpression(expression, defaultExpression);
+        return CompiledTemplate.compile(actualExpression, name, true).render(value, branch);
     }
 
-    private static String capitalize(String name) {
-        return "${" + StringUtils.capitalize(name) + "}";
+    public static String evaluate(String expression, String name, String value) {
+        return CompiledTemplate.compile(expression, name).render(value);
     }
 
     private static String getActualExpression(String expression, String defaultExpression) {
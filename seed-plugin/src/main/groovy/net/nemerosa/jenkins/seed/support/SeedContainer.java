@@ -0,0 +1,36 @@
+package net.nemerosa.jenkins.seed.support;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import net.nemerosa.jenkins.seed.generator.scm.SCMServiceModule;
+import net.nemerosa.jenkins.seed.triggering.SeedServiceModule;
+
+/**
+ * Plug-in wide container for the Seed services.
+ * <p>
+ * The underlying injector is created lazily, once for the whole plug-in, the first time
+ * a service is requested. All the services it holds are singletons.
+ */
+public final class SeedContainer {
+
+    private SeedContainer() {
+    }
+
+    /**
+     * Lazy holder - the injector is created on first access only
+     */
+    private static class Holder {
+        private static final Injector INJECTOR = Guice.createInjector(
+                new SeedServiceModule(),
+                new SCMServiceModule()
+        );
+    }
+
+    /**
+     * Gets the service of the given type
+     */
+    public static <T> T getInstance(Class<T> type) {
+        return Holder.INJECTOR.getInstance(type);
+    }
+
+}
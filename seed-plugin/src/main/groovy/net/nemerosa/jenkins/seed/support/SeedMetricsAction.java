@@ -0,0 +1,41 @@
+package net.nemerosa.jenkins.seed.support;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+
+/**
+ * Exposes the {@link SeedMetrics} as JSON at <code>seed-metrics-api/</code>.
+ */
+@Extension
+public class SeedMetricsAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "seed-metrics-api";
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.READ);
+        JSONObject json = new JSONObject();
+        json.putAll(SeedContainer.getInstance(SeedMetrics.class).getValues());
+        rsp.setStatus(StaplerResponse.SC_OK);
+        rsp.setContentType("application/json");
+        json.write(rsp.getWriter());
+    }
+}
@@ -0,0 +1,227 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.BulkChange;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.TopLevelItem;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor;
+import net.nemerosa.jenkins.seed.registry.GeneratedItemsRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Deletion engine for branch folders (or single jobs).
+ * <p>
+ * The running builds of the jobs are aborted first, so that no build can use the directories of the jobs
+ * any longer. The build directories of the jobs are then moved out of the root item, into a trash directory,
+ * so that the standard deletion of the root item does not delete all the builds one by one.
+ * <p>
+ * The root item is deleted once, while the saves of the project seed cache triggered by the item listeners
+ * are suppressed, the cache recording its changes in its journal anyway. The registry of generated items
+ * saves its changes behind.
+ * <p>
+ * The trashed build directories and the directories owned by the jobs outside of the root item, that is
+ * their workspaces on the controller and their build directories when they are configured elsewhere, are
+ * then removed on a bounded pool of I/O threads.
+ * <p>
+ * The jobs to reclaim are taken from the {@link GeneratedItemsRegistry} when available.
+ */
+public class BranchDeletion {
+
+    private static final Logger LOGGER = Logger.getLogger(BranchDeletion.class.getName());
+
+    /**
+     * Number of threads used to remove the build directories and workspaces
+     */
+    private static final int IO_THREADS = Integer.getInteger(BranchDeletion.class.getName() + ".ioThreads", 4);
+
+    /**
+     * Maximum time to wait for the aborted builds to stop, in milliseconds
+     */
+    private static final long ABORT_TIMEOUT = Long.getLong(BranchDeletion.class.getName() + ".abortTimeout", 15_000L);
+
+    private final ExecutorService ioPool = Executors.newFixedThreadPool(
+            IO_THREADS,
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed branch deletion")
+    );
+
+    /**
+     * Deletes the given item and everything it contains.
+     *
+     * @param root   Item to delete
+     * @param status Status to report the progress to
+     */
+    public void delete(Item root, DeletionStatus status) throws IOException, InterruptedException {
+        // Nothing writes in the directories of the jobs any longer
+        boolean stopped = abortBuilds(root);
+
+        // Directories owned by the jobs, collected while the jobs still exist
+        Path rootDir = root.getRootDir().toPath();
+        File trash = new File(new File(Jenkins.getInstance().getRootDir(), "seed-trash"), UUID.randomUUID().toString());
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Job<?, ?> job : getJobs(root)) {
+            File buildDir = job.getBuildDir();
+            if (!buildDir.toPath().startsWith(rootDir)) {
+                tasks.add(deleteDirectory(buildDir, status));
+            } else if (stopped && buildDir.exists()) {
+                File trashed = new File(trash, String.valueOf(tasks.size()));
+                if (moveToTrash(buildDir, trashed)) {
+                    tasks.add(deleteDirectory(trashed, status));
+                }
+            }
+            if (job instanceof TopLevelItem) {
+                FilePath workspace = Jenkins.getInstance().getWorkspaceFor((TopLevelItem) job);
+                if (workspace != null) {
+                    tasks.add(deleteWorkspace(workspace, status));
+                }
+            }
+        }
+        // Root deletion + reclaimed directories
+        status.addTotal(tasks.size() + 1);
+
+        // Deletes the root once, without saving the cache for every deleted item
+        LOGGER.info(String.format("\tDeleting item at %s", root.getFullName()));
+        BulkChange cacheChange = new BulkChange(Jenkins.getInstance().getDescriptorByType(ProjectSeedCacheDescriptor.class));
+        try {
+            root.delete();
+            status.step();
+        } finally {
+            // The changes of the cache are in its journal
+            cacheChange.abort();
+        }
+
+        // The jobs are gone, their directories can be reclaimed
+        LOGGER.info(String.format("\tReclaiming %d directories of %s", tasks.size(), root.getFullName()));
+        for (Future<Void> future : ioPool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                // Not blocking - the item is deleted
+                LOGGER.log(Level.WARNING, String.format("\tCould not reclaim a directory of %s", root.getFullName()), ex.getCause());
+            }
+        }
+        Util.deleteRecursive(trash);
+    }
+
+    /**
+     * Aborts the builds running for the jobs under the root item and waits for them to stop, the same way
+     * as the standard deletion does.
+     *
+     * @return <code>false</code> if some builds are still running
+     */
+    private static boolean abortBuilds(Item root) throws InterruptedException {
+        String prefix = root.getFullName() + "/";
+        Map<Executor, Queue.Executable> aborted = new HashMap<>();
+        for (Computer computer : Jenkins.getInstance().getComputers()) {
+            for (Executor executor : computer.getAllExecutors()) {
+                Queue.Executable executable = executor.getCurrentExecutable();
+                if (executable != null) {
+                    Queue.Task task = executable.getParent().getOwnerTask();
+                    if (task instanceof Item) {
+                        String fullName = ((Item) task).getFullName();
+                        if (fullName.equals(root.getFullName()) || fullName.startsWith(prefix)) {
+                            executor.interrupt(Result.ABORTED);
+                            aborted.put(executor, executable);
+                        }
+                    }
+                }
+            }
+        }
+        long timeout = System.currentTimeMillis() + ABORT_TIMEOUT;
+        for (Map.Entry<Executor, Queue.Executable> entry : aborted.entrySet()) {
+            while (entry.getKey().getCurrentExecutable() == entry.getValue()) {
+                if (System.currentTimeMillis() > timeout) {
+                    // The standard deletion tries again
+                    LOGGER.warning(String.format("\t%s is still running after being aborted", entry.getValue()));
+                    return false;
+                }
+                Thread.sleep(100);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves a build directory into the trash
+     *
+     * @return <code>false</code> if the directory could not be moved and is deleted with the root item
+     */
+    private static boolean moveToTrash(File buildDir, File trashed) {
+        try {
+            Files.createDirectories(trashed.toPath().getParent());
+            Files.move(buildDir.toPath(), trashed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, String.format("\tCould not move %s to %s", buildDir, trashed), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the jobs to delete from the registry of generated items, falling back to a scan
+     * of the item tree when the root was not generated by the Seed (or not registered yet).
+     */
+    @SuppressWarnings("rawtypes")
+    private static Collection<? extends Job> getJobs(Item root) {
+        Collection<String> names = GeneratedItemsRegistry.get().getItemsUnder(root.getFullName());
+        if (names.isEmpty()) {
+            return root.getAllJobs();
+        }
+        List<Job> jobs = new ArrayList<>();
+        for (String name : names) {
+            Job job = Jenkins.getInstance().getItemByFullName(name, Job.class);
+            if (job != null) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    private static Callable<Void> deleteDirectory(final File dir, final DeletionStatus status) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                Util.deleteRecursive(dir);
+                status.step();
+                return null;
+            }
+        };
+    }
+
+    private static Callable<Void> deleteWorkspace(final FilePath workspace, final DeletionStatus status) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                workspace.deleteRecursive();
+                status.step();
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of an accepted deletion.
+ */
+public class DeletionStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String id;
+    private final String path;
+    private final long submitted = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile long started;
+    private volatile long finished;
+    private volatile String error;
+    private volatile Exception failure;
+
+    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    public DeletionStatus(String id, String path) {
+        this.id = id;
+        this.path = path;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Cause of the failure, if any
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Waits for the deletion to be finished, done or failed.
+     */
+    public void await() throws InterruptedException {
+        finishedLatch.await();
+    }
+
+    /**
+     * Waits for the deletion to be finished, done or failed.
+     *
+     * @return <code>true</code> if the deletion is finished
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finishedLatch.await(timeout, unit);
+    }
+
+    /**
+     * Number of steps of the deletion, when known
+     */
+    public int getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Number of steps already done
+     */
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public void addTotal(int count) {
+        total.addAndGet(count);
+    }
+
+    public void step() {
+        completed.incrementAndGet();
+    }
+
+    void start() {
+        started = System.currentTimeMillis();
+        state = State.RUNNING;
+    }
+
+    void done() {
+        finished = System.currentTimeMillis();
+        state = State.DONE;
+        finishedLatch.countDown();
+    }
+
+    void fail(Exception ex) {
+        finished = System.currentTimeMillis();
+        error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName();
+        failure = ex;
+        state = State.FAILED;
+        finishedLatch.countDown();
+    }
+}
@@ -0,0 +1,82 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+
+/**
+ * Status of the accepted deletions:
+ * <ul>
+ * <li><code>seed-deletion-api/</code> lists all the tracked deletions</li>
+ * <li><code>seed-deletion-api/&lt;id&gt;</code> gets the status of one deletion</li>
+ * </ul>
+ */
+@Extension
+public class DeletionStatusAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "seed-deletion-api";
+    }
+
+    public void doDynamic(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.READ);
+        DeletionTracker tracker = SeedContainer.getInstance(DeletionTracker.class);
+
+        String id = StringUtils.removeStart(StringUtils.defaultString(req.getRestOfPath()), "/");
+        JSONObject json;
+        if (StringUtils.isBlank(id)) {
+            JSONArray list = new JSONArray();
+            for (DeletionStatus status : tracker.getDeletions()) {
+                list.add(toJson(status));
+            }
+            json = new JSONObject();
+            json.put("deletions", list);
+        } else {
+            DeletionStatus status = tracker.getStatus(id);
+            if (status == null) {
+                rsp.sendError(StaplerResponse.SC_NOT_FOUND, String.format("No deletion with ID %s", id));
+                return;
+            }
+            json = toJson(status);
+        }
+
+        rsp.setStatus(StaplerResponse.SC_OK);
+        rsp.setContentType("application/json");
+        json.write(rsp.getWriter());
+    }
+
+    private static JSONObject toJson(DeletionStatus status) {
+        JSONObject json = new JSONObject();
+        json.put("id", status.getId());
+        json.put("path", status.getPath());
+        json.put("state", status.getState().name());
+        json.put("submitted", status.getSubmitted());
+        json.put("started", status.getStarted());
+        json.put("finished", status.getFinished());
+        json.put("total", status.getTotal());
+        json.put("completed", status.getCompleted());
+        if (status.getError() != null) {
+            json.put("error", status.getError());
+        }
+        return json;
+    }
+}
@@ -0,0 +1,217 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Accepts deletions and runs them on a dedicated background executor.
+ * <p>
+ * Each accepted deletion gets a tracking ID, used to follow its {@linkplain DeletionStatus progress}.
+ * As long as a deletion is not finished, no build can start for an item under the deleted path.
+ */
+public class DeletionTracker {
+
+    private static final Logger LOGGER = Logger.getLogger(DeletionTracker.class.getName());
+
+    /**
+     * Maximum number of finished deletions kept for the status
+     */
+    private static final int HISTORY = 200;
+
+    /**
+     * Actual deletion
+     */
+    public interface DeletionTask {
+        void run(DeletionStatus status) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed deletion")
+    );
+
+    /**
+     * Deletions indexed by tracking ID, in order of submission
+     */
+    private final Map<String, DeletionStatus> deletions = new LinkedHashMap<>();
+
+    private final SeedMetrics metrics;
+
+    @Inject
+    public DeletionTracker(SeedMetrics metrics) {
+        this.metrics = metrics;
+        metrics.registerGauge("deletion.active", new SeedMetrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getActiveCount();
+            }
+        });
+    }
+
+    /**
+     * Accepts the deletion of the given path.
+     *
+     * @return Tracking ID of the deletion. If a deletion is already pending for the same path, its
+     * tracking ID is returned and no new deletion is scheduled.
+     */
+    public String submit(final String path, final DeletionTask task) {
+        return track(path, task).getId();
+    }
+
+    /**
+     * Accepts the deletion of the given path.
+     *
+     * @return Status of the deletion. If a deletion is already pending for the same path, its
+     * status is returned and no new deletion is scheduled.
+     */
+    public DeletionStatus track(final String path, final DeletionTask task) {
+        final DeletionStatus status;
+        synchronized (deletions) {
+            for (DeletionStatus pending : deletions.values()) {
+                if (!pending.isFinished() && pending.getPath().equals(path)) {
+                    LOGGER.info(String.format("Deletion of %s is already pending as %s", path, pending.getId()));
+                    return pending;
+                }
+            }
+            status = new DeletionStatus(UUID.randomUUID().toString(), path);
+            deletions.put(status.getId(), status);
+            purge();
+        }
+        metrics.increment("deletion.accepted");
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                status.start();
+                try {
+                    task.run(status);
+                    metrics.increment("deletion.completed");
+                    status.done();
+                } catch (Exception ex) {
+                    LOGGER.log(Level.SEVERE, String.format("Deletion %s of %s has failed", status.getId(), path), ex);
+                    metrics.increment("deletion.failed");
+                    status.fail(ex);
+                }
+            }
+        });
+        return status;
+    }
+
+    /**
+     * Gets the status of a deletion, or <code>null</code> if not found.
+     */
+    public DeletionStatus getStatus(String id) {
+        synchronized (deletions) {
+            return deletions.get(id);
+        }
+    }
+
+    /**
+     * List of the tracked deletions, in order of submission
+     */
+    public List<DeletionStatus> getDeletions() {
+        synchronized (deletions) {
+            return new ArrayList<>(deletions.values());
+        }
+    }
+
+    /**
+     * Checks if the item with the given full name is being deleted
+     */
+    public boolean isPendingDeletion(String fullName) {
+        synchronized (deletions) {
+            for (DeletionStatus status : deletions.values()) {
+                if (!status.isFinished()) {
+                    String path = status.getPath();
+                    if (fullName.equals(path) || fullName.startsWith(path + "/")) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Waits for all the pending deletions to be finished.
+     *
+     * @return <code>true</code> if no deletion is pending any longer
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        for (DeletionStatus status : getDeletions()) {
+            long remaining = end - System.nanoTime();
+            if (remaining <= 0 || !status.await(remaining, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long getActiveCount() {
+        long count = 0;
+        synchronized (deletions) {
+            for (DeletionStatus status : deletions.values()) {
+                if (!status.isFinished()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes the oldest finished deletions above the history size
+     */
+    private void purge() {
+        int excess = deletions.size() - HISTORY;
+        Iterator<DeletionStatus> iterator = deletions.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * Prevents any build from starting under a path being deleted.
+     */
+    @Extension
+    public static class DeletionQueueTaskDispatcher extends QueueTaskDispatcher {
+
+        @Override
+        public CauseOfBlockage canRun(Queue.Item item) {
+            if (item.task instanceof Item) {
+                final String fullName = ((Item) item.task).getFullName();
+                if (SeedContainer.getInstance(DeletionTracker.class).isPendingDeletion(fullName)) {
+                    return new CauseOfBlockage() {
+                        @Override
+                        public String getShortDescription() {
+                            return String.format("%s is being deleted", fullName);
+                        }
+                    };
+                }
+            }
+            return null;
+        }
+    }
+}
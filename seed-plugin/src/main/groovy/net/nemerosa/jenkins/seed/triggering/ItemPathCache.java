@@ -0,0 +1,156 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.listeners.ItemListener;
+import jenkins.model.Jenkins;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+
+import javax.inject.Inject;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the items resolved by their full path, so that the branch start and seed jobs
+ * do not have to be looked up through the folder tree for every event.
+ * <p>
+ * Only existing items are cached. Entries are invalidated by the {@link ItemPathCacheListener}
+ * whenever an item is created, deleted, renamed or moved.
+ */
+public class ItemPathCache {
+
+    private final ConcurrentMap<String, Item> items = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by each invalidation, so that an item looked up while it was being invalidated
+     * is not kept in the cache
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Inject
+    public ItemPathCache(SeedMetrics metrics) {
+        metrics.registerGauge("itemPathCache.hits", new SeedMetrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getHits();
+            }
+        });
+        metrics.registerGauge("itemPathCache.misses", new SeedMetrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getMisses();
+            }
+        });
+        metrics.registerGauge("itemPathCache.size", new SeedMetrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getSize();
+            }
+        });
+    }
+
+    /**
+     * Gets the item at the given full path, or <code>null</code> if none exists.
+     */
+    public Item getItem(String path) {
+        Item item = items.get(path);
+        if (item != null) {
+            hits.incrementAndGet();
+            return item;
+        }
+        misses.incrementAndGet();
+        long lookupGeneration = generation.get();
+        item = lookup(path);
+        if (item != null) {
+            items.putIfAbsent(path, item);
+            if (generation.get() != lookupGeneration) {
+                // Invalidated during the lookup, maybe before the put
+                items.remove(path, item);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Looks the item up through the folder tree
+     */
+    Item lookup(String path) {
+        return Jenkins.getInstance().getItemByFullName(path);
+    }
+
+    /**
+     * Removes the item with the given full name and, if it is a group, all the items under it.
+     */
+    public void invalidate(String fullName, boolean group) {
+        generation.incrementAndGet();
+        items.remove(fullName);
+        if (group) {
+            String prefix = fullName + "/";
+            Iterator<String> keys = items.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().startsWith(prefix)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        items.clear();
+    }
+
+    public int getSize() {
+        return items.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Extension
+    public static class ItemPathCacheListener extends ItemListener {
+
+        ItemPathCache getCache() {
+            return SeedContainer.getInstance(ItemPathCache.class);
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            getCache().invalidate(item.getFullName(), item instanceof ItemGroup);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            getCache().invalidate(item.getFullName(), item instanceof ItemGroup);
+        }
+
+        @Override
+        public void onRenamed(Item item, String oldName, String newName) {
+            getCache().invalidate(item.getFullName(), item instanceof ItemGroup);
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            getCache().invalidate(oldFullName, item instanceof ItemGroup);
+            getCache().invalidate(newFullName, item instanceof ItemGroup);
+        }
+
+        @Override
+        public void onLoaded() {
+            getCache().clear();
+        }
+
+    }
+}
@@ -8,6 +8,7 @@ import net.nemerosa.jenkins.seed.CannotFindJobException;
 import org.acegisecurity.context.SecurityContext;
 import org.acegisecurity.context.SecurityContextHolder;
 
+import javax.inject.Inject;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +19,17 @@ public class JenkinsSeedLauncher implements SeedLauncher {
 
     private static final Logger LOGGER = Logger.getLogger(JenkinsSeedLauncher.class.getName());
 
+    private final ItemPathCache itemPathCache;
+    private final BranchDeletion branchDeletion;
+    private final DeletionTracker deletionTracker;
+
+    @Inject
+    public JenkinsSeedLauncher(final ItemPathCache itemPathCache, final BranchDeletion branchDeletion, final DeletionTracker deletionTracker) {
+        this.itemPathCache = itemPathCache;
+        this.branchDeletion = branchDeletion;
+        this.deletionTracker = deletionTracker;
+    }
+
     @Override
     public void launch(final SeedChannel channel, final String path, final Map<String, String> parameters) {
         LOGGER.info(String.format("Launching job at %s with parameters %s", path, parameters));
@@ -50,21 +62,40 @@ public class JenkinsSeedLauncher implements SeedLauncher {
     }
 
     @Override
-    public void delete(final String path) {
+    public String delete(final String path) {
+        return track(path).getId();
+    }
+
+    @Override
+    public void deleteAndWait(final String path) throws InterruptedException {
+        DeletionStatus status = track(path);
+        status.await();
+        if (status.getState() == DeletionStatus.State.FAILED) {
+            throw new CannotDeleteItemException(path, status.getFailure());
+        }
+    }
+
+    private DeletionStatus track(final String path) {
+        LOGGER.info(String.format("Accepting deletion of item at %s", path));
+        DeletionStatus status = deletionTracker.track(path, new DeletionTracker.DeletionTask() {
+            @Override
+            public void run(DeletionStatus status) {
+                doDelete(path, status);
+            }
+        });
+        LOGGER.info(String.format("Deletion of item at %s accepted as %s", path, status.getId()));
+        return status;
+    }
+
+    private void doDelete(final String path, final DeletionStatus status) {
         LOGGER.info(String.format("Deleting item at %s", path));
 
         try {
             SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
             try {
                 Item root = findItem(path);
-                // Deletes all children
-                for (Job job : root.getAllJobs()) {
-                    LOGGER.info(String.format("\tDeleting item at %s", job.getName()));
-                    job.delete();
-                }
-                // Deletes the root
-                LOGGER.info(String.format("\tDeleting item at %s", root.getName()));
-                root.delete();
+                // Deletes the root and all its children
+                branchDeletion.delete(root, status);
             } finally {
                 SecurityContextHolder.setContext(orig);
             }
@@ -87,6 +118,6 @@ public class JenkinsSeedLauncher implements SeedLauncher {
     }
 
     private Item findItem(final String path) {
-        return Jenkins.getInstance().getItemByFullName(path);
+        return itemPathCache.getItem(path);
     }
 }
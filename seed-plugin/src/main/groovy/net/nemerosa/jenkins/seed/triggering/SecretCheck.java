@@ -0,0 +1,19 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import net.nemerosa.jenkins.seed.triggering.connector.RequestNonAuthorizedException;
+
+/**
+ * Check of the token or of the signature of a request against the secret key of its project.
+ * <p>
+ * The check is run by the {@link SeedService} when the event is processed, so that the events received
+ * while the project seed cache is loading can be held before their secret key is known.
+ */
+public interface SecretCheck {
+
+    /**
+     * @param secretKey Secret key of the project, never blank
+     * @throws RequestNonAuthorizedException If the request does not match the secret key
+     */
+    void check(String secretKey);
+
+}
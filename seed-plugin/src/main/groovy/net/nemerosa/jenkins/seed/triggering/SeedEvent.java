@@ -16,6 +16,7 @@ public class SeedEvent {
     private final String pullRequestId;
     private final String targetBanch;
     private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private SecretCheck secretCheck;
 
     public SeedEvent(String project, String branch, SeedEventType type, SeedChannel channel) {
         this(project, branch, type, channel, false);
@@ -44,6 +45,14 @@ public class SeedEvent {
         return this;
     }
 
+    /**
+     * Sets the check of the request against the secret key of the project, run when the event is processed
+     */
+    public SeedEvent withSecretCheck(SecretCheck secretCheck) {
+        this.secretCheck = secretCheck;
+        return this;
+    }
+
     public String getProject() {
         return project;
     }
@@ -76,6 +85,10 @@ public class SeedEvent {
         return parameters;
     }
 
+    public SecretCheck getSecretCheck() {
+        return secretCheck;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,156 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCache;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import net.nemerosa.jenkins.seed.triggering.connector.RequestNonAuthorizedException;
+import net.nemerosa.jenkins.seed.triggering.connector.SeedNotReadyException;
+
+import javax.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the events received while the {@link ProjectSeedCache} is still loading.
+ * <p>
+ * The held events are processed in the order of their reception once the cache is ready. Events received
+ * while the held events are being processed are held as well, so that the order is kept. When the buffer
+ * is full, the events are rejected with a {@link SeedNotReadyException}.
+ * <p>
+ * The {@linkplain SeedEvent#getSecretCheck() secret} of a held event is checked when it is processed, since the
+ * secret key of its project is not known before: a held event whose request does not match it is dropped.
+ */
+public class SeedEventBuffer {
+
+    private static final Logger LOGGER = Logger.getLogger(SeedEventBuffer.class.getName());
+
+    /**
+     * Maximum number of held events
+     */
+    private static final int CAPACITY = Integer.getInteger(SeedEventBuffer.class.getName() + ".capacity", 1000);
+
+    /**
+     * Processing of an event
+     */
+    public interface Handler {
+        void handle(SeedEvent event);
+    }
+
+    private static class HeldEvent {
+
+        private final SeedEvent event;
+        private final Handler handler;
+
+        private HeldEvent(SeedEvent event, Handler handler) {
+            this.event = event;
+            this.handler = handler;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Seed event buffer")
+    );
+
+    private final Deque<HeldEvent> events = new ArrayDeque<>();
+
+    /**
+     * Set as long as there are held events to process
+     */
+    private volatile boolean draining;
+
+    private final ProjectSeedCache seedCache;
+    private final SeedMetrics metrics;
+
+    @Inject
+    public SeedEventBuffer(ProjectSeedCache seedCache, SeedMetrics metrics) {
+        this.seedCache = seedCache;
+        this.metrics = metrics;
+        metrics.registerGauge("eventBuffer.size", new SeedMetrics.Gauge() {
+            @Override
+            public long getValue() {
+                return size();
+            }
+        });
+    }
+
+    /**
+     * Holds the event if it cannot be processed right now.
+     *
+     * @return <code>true</code> if the event is held and will be processed later by the handler,
+     * <code>false</code> if it must be processed directly
+     * @throws SeedNotReadyException If the event must be held but the buffer is full
+     */
+    public boolean buffer(SeedEvent event, Handler handler) {
+        // Once the cache is ready, events are held only while the buffer is drained
+        if (!draining && seedCache.isReady()) {
+            return false;
+        }
+        synchronized (events) {
+            if (!draining && seedCache.isReady()) {
+                return false;
+            }
+            if (events.size() >= CAPACITY) {
+                metrics.increment("eventBuffer.rejected");
+                throw new SeedNotReadyException();
+            }
+            events.add(new HeldEvent(event, handler));
+            metrics.increment("eventBuffer.buffered");
+            if (!draining) {
+                draining = true;
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        drain();
+                    }
+                });
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Number of held events
+     */
+    public int size() {
+        synchronized (events) {
+            return events.size();
+        }
+    }
+
+    private void drain() {
+        try {
+            seedCache.awaitReady();
+        } catch (InterruptedException ex) {
+            LOGGER.warning(String.format("Interrupted while waiting for the cache - %d held events are dropped", size()));
+            synchronized (events) {
+                events.clear();
+                draining = false;
+            }
+            return;
+        }
+        LOGGER.info(String.format("Cache is ready - processing %d held events", size()));
+        while (true) {
+            HeldEvent held;
+            synchronized (events) {
+                held = events.poll();
+                if (held == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                held.handler.handle(held.event);
+            } catch (RequestNonAuthorizedException ex) {
+                LOGGER.warning(String.format("Held event for project %s dropped - its request does not match the secret key of the project", held.event.getProject()));
+            } catch (Exception ex) {
+                // Not blocking - the other events are still processed
+                LOGGER.log(Level.SEVERE, String.format("Could not process the held event for project %s", held.event.getProject()), ex);
+            }
+        }
+    }
+}
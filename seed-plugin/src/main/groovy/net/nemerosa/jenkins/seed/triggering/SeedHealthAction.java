@@ -0,0 +1,44 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCache;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+
+/**
+ * Readiness of the seed at <code>seed-health/</code>: <code>200</code> once the {@link ProjectSeedCache}
+ * is loaded, <code>503</code> before. Not protected, so that it can be used by load balancers and probes.
+ */
+@Extension
+public class SeedHealthAction implements UnprotectedRootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "seed-health";
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        boolean ready = SeedContainer.getInstance(ProjectSeedCache.class).isReady();
+        JSONObject json = new JSONObject();
+        json.put("ready", ready);
+        json.put("heldEvents", SeedContainer.getInstance(SeedEventBuffer.class).size());
+        rsp.setStatus(ready ? StaplerResponse.SC_OK : StaplerResponse.SC_SERVICE_UNAVAILABLE);
+        rsp.setContentType("application/json");
+        json.write(rsp.getWriter());
+    }
+}
@@ -7,7 +7,19 @@ public interface SeedLauncher {
     void launch(SeedChannel channel, String path, Map<String, String> parameters);
 
     /**
-     * Deletes the item (folder or job) specified by the given path.
+     * Accepts the deletion of the item (folder or job) specified by the given path. The
+     * deletion itself is performed in the background.
+     *
+     * @return Tracking ID of the deletion
+     * @see DeletionTracker
      */
-    void delete(String path);
+    String delete(String path);
+
+    /**
+     * Deletes the item (folder or job) specified by the given path and waits for the deletion to be
+     * finished. The deletion is still {@linkplain DeletionTracker tracked}.
+     *
+     * @throws net.nemerosa.jenkins.seed.CannotDeleteItemException If the deletion has failed
+     */
+    void deleteAndWait(String path) throws InterruptedException;
 }
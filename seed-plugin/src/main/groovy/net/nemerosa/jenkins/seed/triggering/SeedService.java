@@ -5,7 +5,10 @@ public interface SeedService {
     void post(SeedEvent event);
 
     /**
-     * Gets the signature key for a given project
+     * Gets the signature key for a given project, without waiting for the cache to be loaded.
+     * <p>
+     * Only needed for the requests which are not posted as events, like the test events: the
+     * {@linkplain SeedEvent#getSecretCheck() secret check} of a posted event is run when it is processed.
      */
     String getSecretKey(String project, String context);
 }
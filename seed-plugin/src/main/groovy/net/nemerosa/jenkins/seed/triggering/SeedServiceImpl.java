@@ -1,12 +1,17 @@
 package net.nemerosa.jenkins.seed.triggering;
 
+import net.nemerosa.jenkins.seed.CannotDeleteItemException;
 import net.nemerosa.jenkins.seed.Constants;
 import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig;
 import net.nemerosa.jenkins.seed.cache.ProjectSeedCache;
+import net.nemerosa.jenkins.seed.hibernation.BranchHibernation;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
 import net.nemerosa.jenkins.seed.triggering.connector.RequestNonAuthorizedException;
+import net.nemerosa.jenkins.seed.triggering.connector.SeedNotReadyException;
 import org.apache.commons.lang.StringUtils;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -20,15 +25,47 @@ public class SeedServiceImpl implements SeedService {
 
     private final SeedLauncher seedLauncher;
     private final ProjectSeedCache seedCache;
+    private final BranchHibernation branchHibernation;
+    private final SeedEventBuffer eventBuffer;
+    private final SeedMetrics metrics;
+
+    private final SeedEventBuffer.Handler handler = new SeedEventBuffer.Handler() {
+        @Override
+        public void handle(SeedEvent event) {
+            process(event);
+        }
+    };
 
     @Inject
-    public SeedServiceImpl(final SeedLauncher seedLauncher, final ProjectSeedCache seedCache) {
+    public SeedServiceImpl(final SeedLauncher seedLauncher, final ProjectSeedCache seedCache, final BranchHibernation branchHibernation, final SeedEventBuffer eventBuffer, final SeedMetrics metrics) {
         this.seedLauncher = seedLauncher;
         this.seedCache = seedCache;
+        this.branchHibernation = branchHibernation;
+        this.eventBuffer = eventBuffer;
+        this.metrics = metrics;
     }
 
     @Override
     public void post(final SeedEvent event) {
+        // System events come from builds, which wait for their processing
+        if (isSystem(event)) {
+            try {
+                seedCache.awaitReady();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SeedNotReadyException();
+            }
+            process(event);
+        }
+        // Held until the cache is loaded
+        else if (eventBuffer.buffer(event, handler)) {
+            LOGGER.info(String.format("Cache not loaded yet - holding event: project=%s, branch=%s, type=%s", event.getProject(), event.getBranch(), event.getType()));
+        } else {
+            process(event);
+        }
+    }
+
+    private void process(final SeedEvent event) {
         if (LOGGER.isLoggable(Level.INFO)) {
             LOGGER.info(String.format("Event: project=%s, branch=%s, type=%s", event.getProject(), event.getBranch(), event.getType()));
         }
@@ -38,36 +75,185 @@ public class SeedServiceImpl implements SeedService {
         // since naming conventions can change from project to project
         ProjectCachedConfig config = getProjectCachedConfig(event.getProject());
 
+        // Checks the secret
+        checkSecret(event, config);
+
         // Checks the channel
         checkChannel(event, config);
 
+        // Tags sent to a shared release pipeline
+        if (event.isTag() && config.getTagPipelineJob() != null) {
+            postToTagPipeline(event, seedLauncher, config);
+            return;
+        }
+
+        // Pull request slots
+        if (config.getPullRequestSlots() > 0 && postToSlot(event, seedLauncher, config)) {
+            return;
+        }
+
+        // Name of the pipeline for the branch
+        String pipeline = getPipeline(event);
+
+        // Wakes the branch up if needed
+        if (!wakeUp(event, pipeline, seedLauncher, config)) {
+            return;
+        }
+
         // Dispatching
-        post(event, seedLauncher, config);
+        post(event, pipeline, seedLauncher, config);
     }
 
-    private void post(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+    /**
+     * Launches the shared release pipeline for the creation of, or a commit on, a tag. Tags do not
+     * get any pipeline of their own, so other events are ignored.
+     */
+    private void postToTagPipeline(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+        if (event.getType() == SeedEventType.CREATION || event.getType() == SeedEventType.COMMIT) {
+            String path = config.getTagPipelineJob();
+            LOGGER.info(format("Tag %s of project %s - starting the release pipeline at %s", event.getBranch(), event.getProject(), path));
+            Map<String, String> parameters = generateParameters(event);
+            parameters.put(Constants.TAG_PARAMETER, event.getBranch());
+            parameters.put(Constants.COMMIT_PARAMETER, event.getCommitParameter());
+            seedLauncher.launch(event.getChannel(), path, parameters);
+        } else {
+            LOGGER.finer(format("%s event for tag %s of project %s is ignored", event.getType(), event.getBranch(), event.getProject()));
+        }
+    }
+
+    /**
+     * Gets the name used to compute the paths of the pipeline for the event: the pull request slot
+     * leased by the branch if any, the branch otherwise.
+     */
+    private String getPipeline(final SeedEvent event) {
+        String slot = seedCache.getPullRequestSlot(event.getProject(), event.getBranch());
+        return slot != null ? slot : event.getBranch();
+    }
+
+    /**
+     * Manages the leases of the pull request slots.
+     *
+     * @return <code>true</code> if the event has been handled
+     */
+    private boolean postToSlot(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+        String slot = seedCache.getPullRequestSlot(event.getProject(), event.getBranch());
+        // Pull request ID is present for pull request events only, and is blank when the pull request is closed
+        Object pullRequestId = event.getParameters().get(Constants.PULL_REQUEST_ID_PARAMETER);
         switch (event.getType()) {
+            case SEED:
+                if (pullRequestId == null) {
+                    return false;
+                } else if (StringUtils.isBlank(pullRequestId.toString())) {
+                    if (slot != null) {
+                        seedCache.releasePullRequestSlot(event.getProject(), event.getBranch());
+                        LOGGER.info(format("Pull request for branch %s of project %s is closed - releasing %s", event.getBranch(), event.getProject(), slot));
+                        return true;
+                    } else {
+                        return false;
+                    }
+                } else if (slot == null) {
+                    slot = seedCache.leasePullRequestSlot(event.getProject(), event.getBranch(), config.getPullRequestSlots());
+                    if (slot == null) {
+                        LOGGER.warning(format("No free pull request slot for branch %s of project %s - creating a dedicated pipeline", event.getBranch(), event.getProject()));
+                        return false;
+                    }
+                    LOGGER.info(format("Pull request %s for branch %s of project %s - binding %s", pullRequestId, event.getBranch(), event.getProject(), slot));
+                    // Re-points the slot pipeline to the branch
+                    Map<String, String> parameters = generateParameters(event);
+                    parameters.put(Constants.PIPELINE_SLOT_PARAMETER, slot);
+                    seedLauncher.launch(event.getChannel(), config.getProjectSeedJob(), parameters);
+                    return true;
+                } else {
+                    return false;
+                }
             case CREATION:
-                create(event, seedLauncher, config);
+                if (slot != null) {
+                    LOGGER.finer(format("Branch %s of project %s is already bound to %s", event.getBranch(), event.getProject(), slot));
+                    return true;
+                } else {
+                    return false;
+                }
+            case DELETION:
+                if (slot != null) {
+                    seedCache.releasePullRequestSlot(event.getProject(), event.getBranch());
+                    LOGGER.info(format("Branch %s of project %s is deleted - releasing %s", event.getBranch(), event.getProject(), slot));
+                    return true;
+                } else {
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records the activity of the branch and restores its folder if it has been hibernated.
+     *
+     * @return <code>false</code> if the event must not be dispatched
+     */
+    private boolean wakeUp(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+        String folder = config.getBranchFolder(pipeline);
+        if (!branchHibernation.isHibernated(folder)) {
+            branchHibernation.touch(folder);
+            return true;
+        }
+        try {
+            if (event.getType() == SeedEventType.DELETION) {
+                LOGGER.info(format("Branch %s of project %s is deleted while hibernated at %s", event.getBranch(), event.getProject(), folder));
+                branchHibernation.discard(folder);
+                return false;
+            }
+            LOGGER.info(format("Restoring hibernated branch %s of project %s at %s", event.getBranch(), event.getProject(), folder));
+            branchHibernation.restore(folder);
+            return true;
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, format("Could not restore hibernated branch %s of project %s at %s - regenerating it", event.getBranch(), event.getProject(), folder), ex);
+            regenerate(event, pipeline, seedLauncher, config);
+            return false;
+        }
+    }
+
+    /**
+     * Regenerates a branch pipeline which could not be restored. The regeneration handles the creation
+     * and seed events; a commit is dispatched once the start job of the pipeline has been generated again.
+     */
+    private void regenerate(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+        if (event.getType() == SeedEventType.COMMIT && config.isTrigger()) {
+            final String path = config.getBranchStartJob(pipeline);
+            LOGGER.info(format("Commit for branch %s of project %s is waiting for the regeneration of %s", event.getBranch(), event.getProject(), path));
+            branchHibernation.whenCreated(path, new Runnable() {
+                @Override
+                public void run() {
+                    commit(event, pipeline, seedLauncher, config);
+                }
+            });
+        }
+        create(event, pipeline, seedLauncher, config);
+    }
+
+    private void post(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+        switch (event.getType()) {
+            case CREATION:
+                create(event, pipeline, seedLauncher, config);
                 break;
             case DELETION:
-                delete(event, seedLauncher, config);
+                delete(event, pipeline, seedLauncher, config);
                 break;
             case SEED:
-                seed(event, seedLauncher, config);
+                seed(event, pipeline, seedLauncher, config);
                 break;
             case COMMIT:
-                commit(event, seedLauncher, config);
+                commit(event, pipeline, seedLauncher, config);
                 break;
             default:
                 throw new UnsupportedSeedEventTypeException(event.getType());
         }
     }
 
-    private void commit(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+    private void commit(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
         if (config.isTrigger()) {
             // Gets the path to the branch start job
-            String path = config.getBranchStartJob(event.getBranch());
+            String path = config.getBranchStartJob(pipeline);
 
             // Uses the commit (must be specified in the event)
             String commit = event.getCommitParameter();
@@ -79,10 +265,10 @@ public class SeedServiceImpl implements SeedService {
         }
     }
 
-    private void seed(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+    private void seed(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
         if (config.isAuto()) {
             // Gets the path to the branch seed job
-            String path = config.getBranchSeedJob(event.getBranch());
+            String path = config.getBranchSeedJob(pipeline);
             // Logging
             LOGGER.info(format("Seed files changed for branch %s of project %s - regenerating the pipeline at %s", event.getBranch(), event.getProject(), path));
             // Launches the job (no parameter)
@@ -92,32 +278,56 @@ public class SeedServiceImpl implements SeedService {
         }
     }
 
-    private void delete(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+    private void delete(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
         // Gets the path to the branch seed job
-        String path = config.getBranchSeedJob(event.getBranch());
+        String path = config.getBranchSeedJob(pipeline);
         // Deletes the whole branch folder
         if (config.isDelete()) {
             LOGGER.finer(format("Deletion of the branch means deletion of the pipeline for project %s", event.getProject()));
             // Gets the folder
             path = StringUtils.substringBeforeLast(path, "/");
             if (StringUtils.isNotBlank(path)) {
-                seedLauncher.delete(path);
+                delete(event, path, seedLauncher);
             }
         }
         // ... or deletes the seed job only
         else {
             LOGGER.finer(format("Deletion of the branch means deletion of the pipeline seed for project %s", event.getProject()));
-            seedLauncher.delete(path);
+            delete(event, path, seedLauncher);
         }
 
     }
 
-    private void create(final SeedEvent event, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
+    /**
+     * Deletes an item in the background, or waits for the deletion for the system events, so that the
+     * build which has sent the event fails if the deletion fails.
+     */
+    private void delete(final SeedEvent event, final String path, final SeedLauncher seedLauncher) {
+        if (isSystem(event)) {
+            LOGGER.info(format("Deleting %s for branch %s of project %s", path, event.getBranch(), event.getProject()));
+            try {
+                seedLauncher.deleteAndWait(path);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CannotDeleteItemException(path, ex);
+            }
+        } else {
+            String id = seedLauncher.delete(path);
+            LOGGER.info(format("Deletion of %s for branch %s of project %s is tracked as %s", path, event.getBranch(), event.getProject(), id));
+        }
+    }
+
+    private void create(final SeedEvent event, final String pipeline, final SeedLauncher seedLauncher, final ProjectCachedConfig config) {
         LOGGER.finer(format("New branch %s for project %s - creating a new pipeline", event.getBranch(), event.getProject()));
         // Gets the path to the project seed
         String path = config.getProjectSeedJob();
+        // Parameters (the branch may be bound to a pull request slot)
+        Map<String, String> parameters = generateParameters(event);
+        if (!StringUtils.equals(pipeline, event.getBranch())) {
+            parameters.put(Constants.PIPELINE_SLOT_PARAMETER, pipeline);
+        }
         // Launches the job
-        seedLauncher.launch(event.getChannel(), path, generateParameters(event));
+        seedLauncher.launch(event.getChannel(), path, parameters);
     }
 
     private Map<String, String> generateParameters(final SeedEvent event) {
@@ -139,14 +349,19 @@ public class SeedServiceImpl implements SeedService {
         // If not found, use a default one
         if (config == null) {
             LOGGER.warning(String.format("Did not find any cache for project %s, using defaults.", project));
+            metrics.increment("cache.defaultFallback");
             config = new ProjectCachedConfig(project);
         }
         return config;
     }
 
+    private static boolean isSystem(final SeedEvent event) {
+        return StringUtils.equals(SeedChannel.SYSTEM.getId(), event.getChannel().getId());
+    }
+
     protected void checkChannel(final SeedEvent event, final ProjectCachedConfig config) {
         // System channel?
-        if (StringUtils.equals(SeedChannel.SYSTEM.getId(), event.getChannel().getId())) {
+        if (isSystem(event)) {
             return;
         }
 
@@ -157,8 +372,23 @@ public class SeedServiceImpl implements SeedService {
         }
     }
 
+    /**
+     * Checks the request of the event against the secret key of its project, now that it is known
+     */
+    private void checkSecret(final SeedEvent event, final ProjectCachedConfig config) {
+        SecretCheck check = event.getSecretCheck();
+        String secretKey = config.getSecretKey();
+        if (check != null && StringUtils.isNotBlank(secretKey)) {
+            check.check(secretKey);
+        }
+    }
+
     @Override
     public String getSecretKey(final String project, final String context) {
+        // Not waiting for the cache, the request can be sent again later
+        if (!seedCache.isReady()) {
+            throw new SeedNotReadyException();
+        }
         // Gets the project's configuration
         ProjectCachedConfig config = getProjectCachedConfig(project);
         // Gets the secret key for this context
@@ -1,16 +1,31 @@
 package net.nemerosa.jenkins.seed.triggering;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import net.nemerosa.jenkins.seed.cache.ProjectSeedCache;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheBackend;
 import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheImpl;
+import net.nemerosa.jenkins.seed.cache.SharedProjectSeedCache;
+import net.nemerosa.jenkins.seed.generator.PipelineConfigRolloutTracker;
+import net.nemerosa.jenkins.seed.hibernation.BranchHibernation;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
 
 public class SeedServiceModule extends AbstractModule {
 
     @Override
     protected void configure() {
-        bind(SeedLauncher.class).to(JenkinsSeedLauncher.class);
-        bind(SeedService.class).to(SeedServiceImpl.class);
-        bind(ProjectSeedCache.class).to(ProjectSeedCacheImpl.class);
+        bind(SeedMetrics.class).in(Singleton.class);
+        bind(ItemPathCache.class).in(Singleton.class);
+        bind(DeletionTracker.class).in(Singleton.class);
+        bind(BranchDeletion.class).in(Singleton.class);
+        bind(BranchHibernation.class).in(Singleton.class);
+        bind(SeedLauncher.class).to(JenkinsSeedLauncher.class).in(Singleton.class);
+        bind(SeedEventBuffer.class).in(Singleton.class);
+        bind(SeedService.class).to(SeedServiceImpl.class).in(Singleton.class);
+        bind(SharedProjectSeedCache.class).in(Singleton.class);
+        bind(ProjectSeedCacheBackend.class).to(SharedProjectSeedCache.class);
+        bind(ProjectSeedCache.class).to(ProjectSeedCacheImpl.class).in(Singleton.class);
+        bind(PipelineConfigRolloutTracker.class).in(Singleton.class);
     }
 
 }
@@ -1,12 +1,11 @@
 package net.nemerosa.jenkins.seed.triggering.connector
 
-import com.google.inject.Guice
 import hudson.model.UnprotectedRootAction
 import net.nemerosa.jenkins.seed.generator.MissingParameterException
+import net.nemerosa.jenkins.seed.support.SeedContainer
 import net.nemerosa.jenkins.seed.triggering.SeedEvent
 import net.nemerosa.jenkins.seed.triggering.SeedEventType
 import net.nemerosa.jenkins.seed.triggering.SeedService
-import net.nemerosa.jenkins.seed.triggering.SeedServiceModule
 import net.sf.json.JSONSerializer
 import org.apache.commons.lang.StringUtils
 import org.kohsuke.stapler.StaplerRequest
@@ -20,6 +19,11 @@ public abstract class AbstractEndPoint implements UnprotectedRootAction {
 
     private static final Logger LOGGER = Logger.getLogger(AbstractEndPoint.class.getName());
 
+    /**
+     * Delay in seconds after which a request can be sent again when the seed is not ready
+     */
+    private static final int RETRY_AFTER = Integer.getInteger(AbstractEndPoint.class.getName() + ".retryAfter", 30);
+
     protected final SeedService seedService;
 
     AbstractEndPoint(final SeedService seedService) {
@@ -27,7 +31,7 @@ public abstract class AbstractEndPoint implements UnprotectedRootAction {
     }
 
     AbstractEndPoint() {
-        this(Guice.createInjector(new SeedServiceModule()).getInstance(SeedService.class));
+        this(SeedContainer.getInstance(SeedService.class));
     }
 
     @Override
@@ -63,6 +67,9 @@ public abstract class AbstractEndPoint implements UnprotectedRootAction {
             throw ex
         } catch (RequestNonAuthorizedException ex) {
             sendError(rsp, StaplerResponse.SC_FORBIDDEN, ex.getMessage())
+        } catch (SeedNotReadyException ex) {
+            rsp.setHeader("Retry-After", String.valueOf(RETRY_AFTER))
+            sendError(rsp, StaplerResponse.SC_SERVICE_UNAVAILABLE, ex.getMessage())
         } catch (Exception ex) {
             LOGGER.log(Level.SEVERE, ex.getMessage(), ex)
             sendError(rsp, StaplerResponse.SC_INTERNAL_SERVER_ERROR, ex.getMessage())
@@ -0,0 +1,9 @@
+package net.nemerosa.jenkins.seed.triggering.connector;
+
+import net.nemerosa.jenkins.seed.SeedException;
+
+public class SeedNotReadyException extends SeedException {
+    public SeedNotReadyException() {
+        super("Seed is not ready yet");
+    }
+}
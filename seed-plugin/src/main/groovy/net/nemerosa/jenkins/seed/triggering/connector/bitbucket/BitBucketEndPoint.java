@@ -2,6 +2,7 @@ package net.nemerosa.jenkins.seed.triggering.connector.bitbucket;
 
 import hudson.Extension;
 import net.nemerosa.jenkins.seed.Constants;
+import net.nemerosa.jenkins.seed.triggering.SecretCheck;
 import net.nemerosa.jenkins.seed.triggering.SeedChannel;
 import net.nemerosa.jenkins.seed.triggering.SeedEvent;
 import net.nemerosa.jenkins.seed.triggering.SeedEventType;
@@ -18,7 +19,6 @@ import org.kohsuke.stapler.StaplerRequest;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -69,9 +69,6 @@ public class BitBucketEndPoint extends AbstractEndPoint {
         JSONObject json = JSONObject.fromObject(payload);
         final String project = getProject(json, eventType);
 
-        // check permissions
-        checkSignature(req, payload, project);
-
         SeedEvent seedEvent;
         switch (eventType) {
             case PUSH:
@@ -80,41 +77,41 @@ public class BitBucketEndPoint extends AbstractEndPoint {
             case PR_OPEN:
             case PR_MODIFIED:
             case PR_DELETED:
+            case PR_MERGED:
                 seedEvent = getPullRequestSeedEvent(project, json, eventType);
                 break;
             default:
                 seedEvent = null;
         }
-        return seedEvent;
-    }
-
-    protected void checkSignature(final StaplerRequest req, final String payload, final String project) throws UnsupportedEncodingException {
-        // Gets the secret key for the project
-        String secretKey = seedService.getSecretKey(project, "bitbucket");
-        if (StringUtils.isBlank(secretKey)) {
-            return;
-        }
-
-        // Gets the signature header
-        String ghSignature = req.getHeader(X_HUB_SIGNATURE);
-
-        // Secret key specification
-        SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HMACSha256");
-
-        // HMac signature
-        try {
-            Mac mac = Mac.getInstance("HMACSha256");
-            mac.init(keySpec);
-            byte[] rawHmac = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            String hmac = "sha256=" + Hex.encodeHexString(rawHmac);
-
-            if (!StringUtils.equals(hmac, ghSignature)) {
-                LOGGER.severe(X_HUB_SIGNATURE + " token is invalid.");
-                throw new RequestNonAuthorizedException();
+        // check permissions, when the event is processed
+        return seedEvent != null ? seedEvent.withSecretCheck(signatureCheck(req, payload)) : null;
+    }
+
+    protected SecretCheck signatureCheck(final StaplerRequest req, final String payload) {
+        // Gets the signature header, while the request is available
+        final String ghSignature = req.getHeader(X_HUB_SIGNATURE);
+        return new SecretCheck() {
+            @Override
+            public void check(String secretKey) {
+                // Secret key specification
+                SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HMACSha256");
+
+                // HMac signature
+                try {
+                    Mac mac = Mac.getInstance("HMACSha256");
+                    mac.init(keySpec);
+                    byte[] rawHmac = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+                    String hmac = "sha256=" + Hex.encodeHexString(rawHmac);
+
+                    if (!StringUtils.equals(hmac, ghSignature)) {
+                        LOGGER.severe(X_HUB_SIGNATURE + " token is invalid.");
+                        throw new RequestNonAuthorizedException();
+                    }
+                } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+                    throw new CannotHandleRequestException(ex);
+                }
             }
-        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
-            throw new CannotHandleRequestException(ex);
-        }
+        };
     }
 
     private SeedEvent getPullRequestSeedEvent(final String project, final JSONObject json, final BitBucketEventType bitBucketEventType) {
@@ -228,6 +225,7 @@ public class BitBucketEndPoint extends AbstractEndPoint {
             case PR_OPEN:
             case PR_MODIFIED:
             case PR_DELETED:
+            case PR_MERGED:
                 repository = json.getJSONObject("pullRequest").getJSONObject("fromRef").getJSONObject("repository");
                 break;
             default:
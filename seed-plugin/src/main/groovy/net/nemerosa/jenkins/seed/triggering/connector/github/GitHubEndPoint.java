@@ -1,6 +1,7 @@
 package net.nemerosa.jenkins.seed.triggering.connector.github;
 
 import hudson.Extension;
+import net.nemerosa.jenkins.seed.triggering.SecretCheck;
 import net.nemerosa.jenkins.seed.triggering.SeedChannel;
 import net.nemerosa.jenkins.seed.triggering.SeedEvent;
 import net.nemerosa.jenkins.seed.triggering.SeedEventType;
@@ -19,7 +20,6 @@ import org.kohsuke.stapler.StaplerRequest;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -59,54 +59,65 @@ public class GitHubEndPoint extends AbstractEndPoint {
         JSONObject json = JSONObject.fromObject(payload);
         // Gets the project name
         String project = getProject(json);
-        // Checks the signature
-        checkSignature(req, payload, project);
+        // Signature of the request
+        SecretCheck signatureCheck = signatureCheck(req, payload);
         // Event type
+        SeedEvent event;
         if ("ping".equals(ghEvent)) {
+            // Not posted, so checked right away
+            checkSignature(signatureCheck, project);
             return testEvent(json);
         } else if ("create".equals(ghEvent)) {
-            return createEvent(json);
+            event = createEvent(json);
         } else if ("delete".equals(ghEvent)) {
-            return deleteEvent(json);
+            event = deleteEvent(json);
         } else if ("push".equals(ghEvent)) {
-            return pushEvent(json);
+            event = pushEvent(json);
         }
         // Unknown
         else {
             throw new UnknownRequestException("Unknown event: " + ghEvent);
         }
+        // The signature is checked when the event is processed
+        return event != null ? event.withSecretCheck(signatureCheck) : null;
     }
 
-    protected void checkSignature(StaplerRequest req, String payload, String project) throws UnsupportedEncodingException {
+    protected void checkSignature(SecretCheck signatureCheck, String project) {
         // Gets the secret key for the project
         String secretKey = seedService.getSecretKey(project, "github");
-        if (StringUtils.isBlank(secretKey)) {
-            return;
+        if (StringUtils.isNotBlank(secretKey)) {
+            signatureCheck.check(secretKey);
         }
+    }
 
-        // Gets the signature header
-        String ghSignature = req.getHeader(X_GIT_HUB_SIGNATURE);
-
-        // Secret key specification
-        SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA1");
-
-        // HMac signature
-        try {
-            Mac mac = Mac.getInstance("HmacSHA1");
-            mac.init(keySpec);
-
-            byte[] rawHmac = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-
-            // HMac Hex signature
-            String hmac = "sha1=" + Hex.encodeHexString(rawHmac);
-
-            // Comparison
-            if (!StringUtils.equals(hmac, ghSignature)) {
-                throw new RequestNonAuthorizedException();
+    protected SecretCheck signatureCheck(StaplerRequest req, final String payload) {
+        // Gets the signature header, while the request is available
+        final String ghSignature = req.getHeader(X_GIT_HUB_SIGNATURE);
+        return new SecretCheck() {
+            @Override
+            public void check(String secretKey) {
+                // Secret key specification
+                SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA1");
+
+                // HMac signature
+                try {
+                    Mac mac = Mac.getInstance("HmacSHA1");
+                    mac.init(keySpec);
+
+                    byte[] rawHmac = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+
+                    // HMac Hex signature
+                    String hmac = "sha1=" + Hex.encodeHexString(rawHmac);
+
+                    // Comparison
+                    if (!StringUtils.equals(hmac, ghSignature)) {
+                        throw new RequestNonAuthorizedException();
+                    }
+                } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+                    throw new CannotHandleRequestException(ex);
+                }
             }
-        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
-            throw new CannotHandleRequestException(ex);
-        }
+        };
     }
 
     private SeedEvent pushEvent(JSONObject json) {
@@ -2,6 +2,7 @@ package net.nemerosa.jenkins.seed.triggering.connector.http;
 
 import hudson.Extension;
 import hudson.model.UnprotectedRootAction;
+import net.nemerosa.jenkins.seed.triggering.SecretCheck;
 import net.nemerosa.jenkins.seed.triggering.SeedChannel;
 import net.nemerosa.jenkins.seed.triggering.SeedEvent;
 import net.nemerosa.jenkins.seed.triggering.SeedEventType;
@@ -59,15 +60,13 @@ public class HttpEndPoint extends AbstractEndPoint implements UnprotectedRootAct
         }
         // Gets the project
         String project = extractParameter(req, "project");
-        // Checks the token
-        checkToken(req, project);
-        // Extracts the event
+        // Extracts the event, whose token is checked when processed
         SeedEvent event = new SeedEvent(
                 project,
                 extractParameter(req, "branch"),
                 type,
                 SeedChannel.of("http", "Seed HTTP end point")
-        );
+        ).withSecretCheck(tokenCheck(req));
         // Additional parameters
         for (String parameterName : type.getParameterNames()) {
             String parameterValue = extractParameter(req, parameterName, false);
@@ -79,21 +78,18 @@ public class HttpEndPoint extends AbstractEndPoint implements UnprotectedRootAct
         return event;
     }
 
-    private void checkToken(StaplerRequest req, String project) {
-        // Gets the secret key for the project
-        String secretToken = seedService.getSecretKey(project, "http");
-        if (StringUtils.isBlank(secretToken)) {
-            return;
-        }
-
-        // Gets the token header
-        String reqToken = req.getHeader(X_SEED_TOKEN);
-
-        // Comparison
-        if (!StringUtils.equals(secretToken, reqToken)) {
-            throw new RequestNonAuthorizedException();
-        }
-
+    private static SecretCheck tokenCheck(StaplerRequest req) {
+        // Gets the token header, while the request is available
+        final String reqToken = req.getHeader(X_SEED_TOKEN);
+        return new SecretCheck() {
+            @Override
+            public void check(String secretToken) {
+                // Comparison
+                if (!StringUtils.equals(secretToken, reqToken)) {
+                    throw new RequestNonAuthorizedException();
+                }
+            }
+        };
     }
 
 }
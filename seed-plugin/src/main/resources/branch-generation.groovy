@@ -44,6 +44,8 @@ job("${BRANCH_FOLDER_PATH}/${BRANCH_SEED_NAME}") {
             scriptDirectory PIPELINE_SCRIPT_DIRECTORY
             // Branch
             branch BRANCH
+            // Pull request slot or branch
+            pipeline PIPELINE
             // Jenkins-safe names
             seedProject SEED_PROJECT
             seedBranch SEED_BRANCH
@@ -14,6 +14,7 @@ job("${PROJECT_FOLDER_PATH}/${PROJECT_SEED_NAME}") {
         // Default seed parameters
         stringParam('BRANCH', '', 'Path or name of the branch')
         stringParam('IS_TAG', 'false', 'true if this is a tag')
+        stringParam('PIPELINE_SLOT', '', 'Pull request slot the branch is bound to, if any')
     }
     steps {
         buildDescription('', '${BRANCH}')
@@ -25,6 +26,7 @@ job("${PROJECT_FOLDER_PATH}/${PROJECT_SEED_NAME}") {
                 pipelineConfig {
                     destructor PIPELINE_DESTRUCTOR
                     authorisations PIPELINE_AUTHORISATIONS
+                    compactAuthorisations PIPELINE_COMPACT_AUTHORISATIONS
                     branchSCMParameter PIPELINE_BRANCH_SCM_PARAMETER
                     branchParameters PIPELINE_BRANCH_PARAMETERS
                     generationExtension PIPELINE_GENERATION_EXTENSION
@@ -45,6 +47,8 @@ job("${PROJECT_FOLDER_PATH}/${PROJECT_SEED_NAME}") {
                         delete EVENT_STRATEGY_DELETE
                         auto EVENT_STRATEGY_AUTO
                         trigger EVENT_STRATEGY_TRIGGER
+                        pullRequestSlots EVENT_STRATEGY_PULL_REQUEST_SLOTS
+                        tagPipeline EVENT_STRATEGY_TAG_PIPELINE
                     }
                 }
                 project PROJECT
@@ -0,0 +1,56 @@
+package net.nemerosa.jenkins.seed.benchmark;
+
+import net.nemerosa.jenkins.seed.support.Evaluator;
+import net.nemerosa.jenkins.seed.test.Benchmark;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Compares the compiled templates of the {@link Evaluator} with the chained replacements they replaced.
+ * Only run by the <code>benchmark</code> task.
+ */
+public class EvaluatorBenchmark {
+
+    private static final String[] BRANCHES = {
+            "master",
+            "feature-JIRA-1234-my-feature",
+            "release-1.0-rc",
+            "hotfix-2.3.4",
+            "PR-152",
+    };
+
+    @Test
+    public void compiled_vs_chained_replacements() throws Exception {
+        Benchmark.measure("Chained replacements", 20000, 200000, new Callable<Object>() {
+            private int i;
+
+            @Override
+            public Object call() {
+                String branch = BRANCHES[i++ % BRANCHES.length];
+                return chainedReplacements("${project}-*-seed", "project", "my-project").replace("*", chainedReplacements("${branch}", "branch", branch));
+            }
+        });
+        Benchmark.measure("Compiled template", 20000, 200000, new Callable<Object>() {
+            private int i;
+
+            @Override
+            public Object call() {
+                String branch = BRANCHES[i++ % BRANCHES.length];
+                return Evaluator.evaluate("", "${project}-*-seed", "project", "my-project", Evaluator.evaluate("${branch}", "branch", branch));
+            }
+        });
+    }
+
+    /**
+     * Previous implementation of the {@link Evaluator}
+     */
+    private static String chainedReplacements(String expression, String name, String value) {
+        return expression
+                .replace("${" + name.toLowerCase() + "}", value.toLowerCase())
+                .replace("${" + name.toUpperCase() + "}", value.toUpperCase())
+                .replace("${" + name.toUpperCase() + "_}", value.toUpperCase().replace("-", "_"))
+                .replace("${" + StringUtils.capitalize(name) + "}", StringUtils.capitalize(value));
+    }
+}
@@ -0,0 +1,82 @@
+package net.nemerosa.jenkins.seed.benchmark
+
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.config.ProjectParameters
+import net.nemerosa.jenkins.seed.integration.SeedRule
+import org.junit.Rule
+import org.junit.Test
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+import static net.nemerosa.jenkins.seed.test.TestUtils.uid
+
+/**
+ * Time taken by the project seeds to save their configuration in parallel while the triggers read it.
+ * Only run by the <code>benchmark</code> task.
+ */
+class ProjectSeedCacheBenchmark {
+
+    @Rule
+    public SeedRule jenkins = new SeedRule()
+
+    @Test
+    void 'Contention between project seeds and triggers'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        int writers = 8
+        int projectsPerWriter = 50
+        int readers = 8
+        def prefix = uid('p')
+
+        def pool = Executors.newFixedThreadPool(writers + readers)
+        def start = new CountDownLatch(1)
+        def writing = new AtomicBoolean(true)
+        def reads = new AtomicLong()
+        try {
+            // Readers
+            def readerTasks = (1..readers).collect {
+                pool.submit({
+                    start.await()
+                    def random = new Random()
+                    while (writing.get()) {
+                        descriptor.getProjectSavedConfiguration("${prefix}-${random.nextInt(writers)}-${random.nextInt(projectsPerWriter)}" as String)
+                        reads.incrementAndGet()
+                    }
+                    return null
+                } as Callable)
+            }
+            // Writers
+            def writerTasks = (0..<writers).collect { int writer ->
+                pool.submit({
+                    start.await()
+                    (0..<projectsPerWriter).each { int index ->
+                        def project = "${prefix}-${writer}-${index}" as String
+                        descriptor.saveProjectConfiguration(
+                                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                                new PipelineConfig()
+                        )
+                    }
+                    return null
+                } as Callable)
+            }
+            long begin = System.nanoTime()
+            start.countDown()
+            writerTasks*.get(5, TimeUnit.MINUTES)
+            long elapsed = System.nanoTime() - begin
+            writing.set(false)
+            readerTasks*.get(1, TimeUnit.MINUTES)
+
+            int writes = writers * projectsPerWriter
+            System.out.format("[benchmark] Cache contention: %d writes in %d ms (%d ns/write), %d concurrent reads%n",
+                    writes, TimeUnit.NANOSECONDS.toMillis(elapsed), (elapsed / writes) as long, reads.get())
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+}
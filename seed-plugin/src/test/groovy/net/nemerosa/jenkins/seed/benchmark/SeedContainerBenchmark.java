@@ -0,0 +1,35 @@
+package net.nemerosa.jenkins.seed.benchmark;
+
+import com.google.inject.Guice;
+import net.nemerosa.jenkins.seed.generator.scm.SCMServiceModule;
+import net.nemerosa.jenkins.seed.support.SeedContainer;
+import net.nemerosa.jenkins.seed.test.Benchmark;
+import net.nemerosa.jenkins.seed.triggering.SeedService;
+import net.nemerosa.jenkins.seed.triggering.SeedServiceModule;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Compares the lookups in the shared {@link SeedContainer} with the creation of one injector per lookup
+ * it replaced. Only run by the <code>benchmark</code> task.
+ */
+public class SeedContainerBenchmark {
+
+    @Test
+    public void startup_time_per_injector_vs_container() throws Exception {
+        Benchmark.measure("Injector per lookup", 20, 200, new Callable<Object>() {
+            @Override
+            public Object call() {
+                return Guice.createInjector(new SeedServiceModule(), new SCMServiceModule()).getInstance(SeedService.class);
+            }
+        });
+        Benchmark.measure("Shared container", 20, 200, new Callable<Object>() {
+            @Override
+            public Object call() {
+                return SeedContainer.getInstance(SeedService.class);
+            }
+        });
+    }
+
+}
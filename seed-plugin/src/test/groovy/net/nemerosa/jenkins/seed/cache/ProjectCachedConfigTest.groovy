@@ -0,0 +1,59 @@
+package net.nemerosa.jenkins.seed.cache
+
+import hudson.util.XStream2
+import net.nemerosa.jenkins.seed.config.EventStrategyConfig
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.config.ProjectSeed
+import org.junit.Test
+
+class ProjectCachedConfigTest {
+
+    @Test
+    void 'Equal strategies are shared'() {
+        def a = new ProjectCachedConfig(
+                new ProjectSeed('a', '', '', ''),
+                new PipelineConfig().withAuthorisations('a')
+        )
+        def b = new ProjectCachedConfig(
+                new ProjectSeed('b', '', '', ''),
+                new PipelineConfig().withAuthorisations('b')
+        )
+        assert a.namingStrategy.is(b.namingStrategy)
+        assert a.eventStrategy.is(b.eventStrategy)
+        // Only the strategies are kept
+        assert a.pipelineConfig.authorisations == ''
+        assert a.pipelineConfig.namingStrategy.is(a.namingStrategy)
+    }
+
+    @Test
+    void 'Full configuration read from a saved cache'() {
+        def xStream = new XStream2()
+        def config = new PipelineConfig()
+                .withAuthorisations('user:read')
+                .withNamingStrategy(new NamingStrategyConfig().withProjectFolderPath('x-${project}'))
+                .withEventStrategy(new EventStrategyConfig(false, true, true))
+        String pipelineConfigXml = xStream.toXML(config)
+                .replace(PipelineConfig.class.name, 'pipelineConfig')
+        String xml = """\
+<${ProjectCachedConfig.class.name}>
+  <seed>
+    <project>p</project>
+    <triggerIdentifier>p-id</triggerIdentifier>
+    <triggerType>github</triggerType>
+    <triggerSecret></triggerSecret>
+  </seed>
+  ${pipelineConfigXml}
+</${ProjectCachedConfig.class.name}>"""
+
+        def cached = xStream.fromXML(xml) as ProjectCachedConfig
+        assert cached.seed.triggerIdentifier == 'p-id'
+        assert cached.namingStrategy == config.namingStrategy
+        assert !cached.delete
+        assert cached.projectFolder == 'x-p'
+        assert cached.namingStrategy.is(new ProjectCachedConfig(new ProjectSeed('q', '', '', ''), config).namingStrategy)
+        // Saved again without the full configuration
+        assert !xStream.toXML(cached).contains('authorisations')
+    }
+
+}
@@ -0,0 +1,206 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import com.thoughtworks.xstream.XStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProjectSeedJournalTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Map<String, Object> state = new TreeMap<>();
+
+    private final ProjectSeedJournal.Replay replay = new ProjectSeedJournal.Replay() {
+        @Override
+        public void put(String type, String key, Object value) {
+            state.put(type + ":" + key, value);
+        }
+
+        @Override
+        public void remove(String type, String key) {
+            state.remove(type + ":" + key);
+        }
+    };
+
+    @Test
+    public void changes_are_coalesced_and_replayed() throws IOException {
+        File dir = tmp.newFolder("journal");
+        ProjectSeedJournal journal = journal(dir);
+        assertEquals(0, journal.replay(0, replay));
+        journal.put("project", "a", "a1");
+        journal.put("project", "b", "b1");
+        journal.put("project", "a", "a2");
+        journal.remove("project", "b");
+        journal.put("slots", "a", "s1");
+        journal.flush();
+        // One record per changed entry
+        assertEquals(3, journal.getSegmentRecords());
+        journal.close();
+
+        assertEquals(3, journal(dir).replay(0, replay));
+        assertEquals(2, state.size());
+        assertEquals("a2", state.get("project:a"));
+        assertEquals("s1", state.get("slots:a"));
+    }
+
+    @Test
+    public void rotation_and_purge() throws IOException {
+        File dir = tmp.newFolder("journal");
+        ProjectSeedJournal journal = journal(dir);
+        journal.replay(0, replay);
+        journal.put("project", "a", "a1");
+        int segment = journal.rotate();
+        journal.put("project", "b", "b1");
+        journal.purge(segment);
+        journal.close();
+
+        // Only the changes after the snapshot are replayed
+        assertEquals(1, journal(dir).replay(segment, replay));
+        assertEquals("b1", state.get("project:b"));
+        assertFalse(state.containsKey("project:a"));
+    }
+
+    @Test
+    public void truncated_record_is_ignored() throws IOException {
+        File dir = tmp.newFolder("journal");
+        ProjectSeedJournal journal = journal(dir);
+        journal.replay(0, replay);
+        journal.put("project", "a", "a1");
+        journal.flush();
+        journal.put("project", "b", "b1");
+        journal.close();
+        File[] segments = dir.listFiles();
+        assertTrue(segments != null && segments.length == 1);
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        assertEquals(1, journal(dir).replay(0, replay));
+        assertEquals("a1", state.get("project:a"));
+        assertFalse(state.containsKey("project:b"));
+    }
+
+    @Test
+    public void unreadable_segment_is_kept_aside() throws IOException {
+        File dir = tmp.newFolder("journal");
+        ProjectSeedJournal journal = journal(dir);
+        journal.replay(0, replay);
+        journal.put("project", "a", "a1");
+        journal.close();
+        File segment = dir.listFiles()[0];
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(segment, true))) {
+            // Record type which is not valid modified UTF-8
+            output.writeByte(1);
+            output.writeShort(2);
+            output.write(new byte[]{(byte) 0xFF, (byte) 0xFF});
+        }
+
+        journal = journal(dir);
+        assertEquals(1, journal.replay(0, replay));
+        assertEquals("a1", state.get("project:a"));
+        File unreadable = new File(dir, segment.getName() + ".unreadable");
+        assertTrue(unreadable.exists());
+        assertFalse(segment.exists());
+
+        // The next records are written into a new segment and the unreadable one is not purged
+        journal.put("project", "b", "b1");
+        int next = journal.rotate();
+        journal.purge(next);
+        journal.close();
+        assertTrue(unreadable.exists());
+    }
+
+    @Test
+    public void undecodable_record_is_kept_aside() throws IOException {
+        File dir = tmp.newFolder("journal");
+        ProjectSeedJournal journal = journal(dir);
+        journal.replay(0, replay);
+        journal.put("project", "a", "a1");
+        journal.close();
+        File segment = dir.listFiles()[0];
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(segment, true))) {
+            byte[] bytes = "<no.such.Type/>".getBytes(StandardCharsets.UTF_8);
+            output.writeByte(1);
+            output.writeUTF("project");
+            output.writeUTF("b");
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        journal = journal(dir);
+        assertEquals(1, journal.replay(0, replay));
+        assertEquals("a1", state.get("project:a"));
+        assertFalse(state.containsKey("project:b"));
+        assertTrue(new File(dir, segment.getName() + ".unreadable").exists());
+        // The journal is still usable
+        journal.put("project", "c", "c1");
+        journal.close();
+        state.clear();
+        assertEquals(1, journal(dir).replay(0, replay));
+        assertEquals("c1", state.get("project:c"));
+    }
+
+    @Test
+    public void failed_flush_is_truncated() throws IOException {
+        File dir = tmp.newFolder("journal");
+        ProjectSeedJournal journal = new ProjectSeedJournal(dir, new XStream() {
+            @Override
+            public String toXML(Object obj) {
+                if ("boom".equals(obj)) {
+                    throw new IllegalStateException("Cannot serialize");
+                }
+                return super.toXML(obj);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        journal.replay(0, replay);
+        journal.put("project", "a", "a1");
+        journal.flush();
+        journal.put("project", "b", "b1");
+        journal.put("project", "c", "boom");
+        try {
+            journal.flush();
+            fail("Flush must fail");
+        } catch (IllegalStateException expected) {
+            // Records are kept
+        }
+        assertEquals(1, journal.getSegmentRecords());
+        journal.remove("project", "c");
+        journal.close();
+        assertEquals(3, journal.getSegmentRecords());
+
+        // No partial record
+        assertEquals(3, journal(dir).replay(0, replay));
+        assertEquals("a1", state.get("project:a"));
+        assertEquals("b1", state.get("project:b"));
+        assertFalse(state.containsKey("project:c"));
+        assertFalse(new File(dir, "00000000.log.unreadable").exists());
+    }
+
+    private static ProjectSeedJournal journal(File dir) {
+        return new ProjectSeedJournal(dir, new XStream(), new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+}
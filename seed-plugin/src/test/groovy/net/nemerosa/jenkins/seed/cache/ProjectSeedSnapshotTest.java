@@ -0,0 +1,76 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectSeedSnapshotTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void write_and_lookup() throws IOException {
+        File dir = tmp.newFolder("snapshot");
+        File file = ProjectSeedSnapshot.write(dir, 3, bytes("slots"), Arrays.asList(
+                entry("c"),
+                entry("a"),
+                entry("b")
+        ));
+        ProjectSeedSnapshot snapshot = ProjectSeedSnapshot.open(file);
+        assertEquals(3, snapshot.getSegment());
+        assertEquals(3, snapshot.size());
+        assertEquals("slots", string(snapshot.getSlots()));
+        // Sorted index
+        assertEquals("a", snapshot.getKey(0));
+        assertEquals("c", snapshot.getKey(2));
+        int index = snapshot.indexOf("b");
+        assertEquals(1, index);
+        assertEquals("b-folder", snapshot.getProjectFolder(index));
+        assertEquals("b-folder/b-seed", snapshot.getProjectSeedJob(index));
+        assertEquals("record of b", string(snapshot.getRecord(index)));
+        assertEquals(-1, snapshot.indexOf("d"));
+    }
+
+    @Test
+    public void latest_readable_snapshot() throws IOException {
+        File dir = tmp.newFolder("snapshot");
+        assertNull(ProjectSeedSnapshot.openLatest(dir));
+        ProjectSeedSnapshot.write(dir, 1, bytes(""), Arrays.asList(entry("a")));
+        File latest = ProjectSeedSnapshot.write(dir, 2, bytes(""), Arrays.asList(entry("a"), entry("b")));
+        assertEquals(2, ProjectSeedSnapshot.openLatest(dir).getSegment());
+
+        // Truncated snapshot
+        try (RandomAccessFile file = new RandomAccessFile(latest, "rw")) {
+            file.setLength(file.length() - 2);
+        }
+        assertEquals(1, ProjectSeedSnapshot.openLatest(dir).getSegment());
+
+        ProjectSeedSnapshot.purge(dir, 2);
+        assertFalse(new File(dir, "00000001.bin").exists());
+        assertTrue(latest.exists());
+    }
+
+    private static ProjectSeedSnapshot.Entry entry(String key) {
+        return new ProjectSeedSnapshot.Entry(key, key + "-folder", key + "-folder/" + key + "-seed", bytes("record of " + key));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
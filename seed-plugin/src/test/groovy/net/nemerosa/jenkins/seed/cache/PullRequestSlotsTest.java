@@ -0,0 +1,32 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PullRequestSlotsTest {
+
+    @Test
+    public void lease_and_release() {
+        PullRequestSlots slots = new PullRequestSlots();
+        assertEquals("pr-slot-1", slots.lease("feature/a", 2));
+        assertEquals("pr-slot-2", slots.lease("feature/b", 2));
+        // Pool is full
+        assertNull(slots.lease("feature/c", 2));
+        // Same branch, same slot
+        assertEquals("pr-slot-1", slots.lease("feature/a", 2));
+        // Releasing and reusing
+        assertEquals("pr-slot-1", slots.release("feature/a"));
+        assertNull(slots.getSlot("feature/a"));
+        assertEquals("pr-slot-1", slots.lease("feature/c", 2));
+        assertEquals("pr-slot-1", slots.getSlot("feature/c"));
+        assertFalse(slots.isEmpty());
+    }
+
+    @Test
+    public void release_without_lease() {
+        PullRequestSlots slots = new PullRequestSlots();
+        assertNull(slots.release("feature/a"));
+        assertTrue(slots.isEmpty());
+    }
+}
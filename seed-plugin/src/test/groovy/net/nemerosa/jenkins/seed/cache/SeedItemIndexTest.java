@@ -0,0 +1,38 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class SeedItemIndexTest {
+
+    @Test
+    public void deepest_folders_first() {
+        SeedItemIndex index = new SeedItemIndex();
+        index.put("projects", "a");
+        index.put("projects/b", "b");
+        index.put("projects/b/c", "c");
+        index.put("other", "d");
+        assertEquals(Arrays.asList("c", "b", "a"), index.getKeys("projects/b/c/c-master/c-master-build"));
+        assertEquals(Arrays.asList("b", "a"), index.getKeys("projects/b/b-seed"));
+        assertEquals(Collections.singletonList("a"), index.getKeys("projects/bb"));
+        assertEquals(Collections.emptyList(), index.getKeys("unknown/projects"));
+    }
+
+    @Test
+    public void removed_keys_pruned() {
+        SeedItemIndex index = new SeedItemIndex();
+        index.put("projects/a", "a");
+        index.put("projects/a", "b");
+        index.remove("projects/a", "a");
+        assertEquals(Collections.singletonList("b"), index.getKeys("projects/a/a-seed"));
+        index.remove("projects/a", "b");
+        assertEquals(Collections.emptyList(), index.getKeys("projects/a/a-seed"));
+        // Removing an unknown key
+        index.remove("projects/x", "x");
+        assertEquals(Collections.emptyList(), index.getKeys("projects/x"));
+    }
+}
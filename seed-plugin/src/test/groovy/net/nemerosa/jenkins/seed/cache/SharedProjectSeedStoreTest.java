@@ -0,0 +1,118 @@
+package net.nemerosa.jenkins.seed.cache;
+
+import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SharedProjectSeedStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final List<SharedProjectSeedStore> stores = new ArrayList<>();
+
+    @After
+    public void close() {
+        for (SharedProjectSeedStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void records_are_versioned() throws IOException {
+        SharedProjectSeedStore store = store(tmp.newFolder("shared"), "a");
+        assertNull(store.get("p"));
+        assertEquals(1, store.put("p", config("p", "github")).getVersion());
+        assertEquals(2, store.put("p", config("p", "bitbucket")).getVersion());
+        SharedProjectSeedStore.Record record = store.getRecord("p");
+        assertEquals(2, record.getVersion());
+        assertEquals("a", record.getOrigin());
+        assertEquals("bitbucket", record.getConfig().getSeed().getTriggerType());
+    }
+
+    @Test
+    public void changes_are_seen_by_the_other_controllers() throws Exception {
+        File dir = tmp.newFolder("shared");
+        SharedProjectSeedStore a = store(dir, "a");
+        SharedProjectSeedStore b = store(dir, "b");
+        // Missing record kept in the near-cache
+        assertNull(b.get("p/id"));
+
+        a.put("p/id", config("p", "github"));
+        waitFor(b, "p/id", "github");
+        a.put("p/id", config("p", "bitbucket"));
+        waitFor(b, "p/id", "bitbucket");
+        assertEquals(2, b.getRecord("p/id").getVersion());
+
+        // Only withdrawn by the controller which published it
+        assertFalse(b.remove("p/id"));
+        assertTrue(a.remove("p/id"));
+        waitFor(b, "p/id", null);
+    }
+
+    @Test
+    public void only_the_record_types_are_read() throws IOException {
+        File dir = tmp.newFolder("shared");
+        Files.write(new File(dir, "p.xml").toPath(), "<java.io.File>/tmp</java.io.File>".getBytes(StandardCharsets.UTF_8));
+        assertNull(store(dir, "a").get("p"));
+    }
+
+    private SharedProjectSeedStore store(File dir, String origin) throws IOException {
+        SharedProjectSeedStore store = new SharedProjectSeedStore(dir, origin);
+        stores.add(store);
+        return store;
+    }
+
+    private static ProjectCachedConfig config(String project, String triggerType) {
+        return new ProjectCachedConfig(new ProjectSeed(project, "", triggerType, ""), null, null);
+    }
+
+    /**
+     * Waits for the watcher of the store, checking the file directly after a while in case
+     * the file system does not notify the changes
+     */
+    private static void waitFor(final SharedProjectSeedStore store, final String key, final String triggerType) throws InterruptedException {
+        final CountDownLatch seen = new CountDownLatch(1);
+        SharedProjectSeedStore.Listener listener = new SharedProjectSeedStore.Listener() {
+            @Override
+            public void refreshed(String refreshed) {
+                if (key.equals(refreshed) && isSeen(store, key, triggerType)) {
+                    seen.countDown();
+                }
+            }
+        };
+        store.addListener(listener);
+        try {
+            if (!isSeen(store, key, triggerType) && !seen.await(5, TimeUnit.SECONDS)) {
+                store.refresh(key);
+            }
+        } finally {
+            store.removeListener(listener);
+        }
+        if (!isSeen(store, key, triggerType)) {
+            throw new AssertionError(String.format("%s not seen for %s", triggerType, key));
+        }
+    }
+
+    private static boolean isSeen(SharedProjectSeedStore store, String key, String triggerType) {
+        ProjectCachedConfig config = store.get(key);
+        String actual = config != null ? config.getSeed().getTriggerType() : null;
+        return triggerType == null ? actual == null : triggerType.equals(actual);
+    }
+}
@@ -103,4 +103,72 @@ class NamingStrategyConfigTest {
         assert config.getBranchStartName('seed-plugin', 'release/1.0') == 'SEED-PLUGIN_RELEASE-1.0_01_CHECK'
     }
 
+    @Test
+    void 'Branch prefixes removed in their configured order'() {
+        NamingStrategyConfig config = new NamingStrategyConfig()
+                .withIgnoredBranchPrefixes('''\
+                feature/
+                fix/
+                feature/fix/
+                ''')
+        // Each prefix is removed at most once, in turn
+        assert config.getBranchName('feature/fix/1') == '1'
+        assert config.getBranchName('fix/feature/1') == 'feature-1'
+        assert config.getBranchName('fix/fix/1') == 'fix-1'
+        assert config.getBranchName('feature/') == ''
+    }
+
+    @Test
+    void 'Normalisation'() {
+        assert NamingStrategyConfig.normalise('release-1.0_a') == 'release-1.0_a'
+        assert NamingStrategyConfig.normalise('feature/739 test') == 'feature-739-test'
+        assert NamingStrategyConfig.normalise('caf\u00e9') == 'caf-'
+        // Supplementary character replaced by a single dash
+        assert NamingStrategyConfig.normalise('a\ud83d\ude00b') == 'a-b'
+        // Same result as the former regular expression, which replaces each code point
+        ['feature/739 test', 'caf\u00e9', 'a\ud83d\ude00b', 'a\ud83db', 'a\ude00\ud83db', '\ud83d\ude00\ud83d\ude00'].each {
+            assert NamingStrategyConfig.normalise(it) == it.replaceAll('[^A-Za-z0-9._-]', '-')
+        }
+    }
+
+    @Test
+    void 'Compiled once per configuration'() {
+        NamingStrategyConfig config = new NamingStrategyConfig()
+                .withIgnoredBranchPrefixes('branches/')
+        assert config.getBranchFolderPath('seed-plugin', 'branches/release/1.0') == 'seed-plugin-release-1.0'
+        assert config.getBranchFolderPath('seed-plugin', 'branches/release/1.0') == 'seed-plugin-release-1.0'
+        // A new configuration gets its own compiled form
+        assert config.withIgnoredBranchPrefixes('').getBranchFolderPath('seed-plugin', 'branches/release/1.0') == 'seed-plugin-branches-release-1.0'
+    }
+
+    @Test
+    void 'Items resolved with the default naming'() {
+        NamingStrategyConfig config = new NamingStrategyConfig()
+                .withIgnoredBranchPrefixes('feature/')
+        assert config.resolve('seed', 'seed') == new SeedItem('seed', null, SeedItemRole.PROJECT_FOLDER)
+        assert config.resolve('seed', 'seed/seed-seed') == new SeedItem('seed', null, SeedItemRole.PROJECT_SEED)
+        assert config.resolve('seed', 'seed/seed-destructor') == new SeedItem('seed', null, SeedItemRole.PROJECT_DESTRUCTOR)
+        assert config.resolve('seed', 'seed/seed-release-1.0') == new SeedItem('seed', 'release-1.0', SeedItemRole.BRANCH_FOLDER)
+        assert config.resolve('seed', 'seed/seed-release-1.0/seed-release-1.0-seed') == new SeedItem('seed', 'release-1.0', SeedItemRole.BRANCH_SEED)
+        assert config.resolve('seed', 'seed/seed-739-test/seed-739-test-build') == new SeedItem('seed', '739-test', SeedItemRole.BRANCH_START)
+        assert config.resolve('seed', 'seed/seed-master/seed-master-ci') == new SeedItem('seed', 'master', SeedItemRole.BRANCH_ITEM)
+        assert config.resolve('seed', 'seed/release') == new SeedItem('seed', null, SeedItemRole.PROJECT_ITEM)
+        assert config.resolve('seed', 'seeds/seed-seed') == null
+        assert config.resolve('seed', 'other') == null
+    }
+
+    @Test
+    void 'Items resolved with a custom naming'() {
+        NamingStrategyConfig config = new NamingStrategyConfig()
+                .withProjectFolderPath('projects/${PROJECT}')
+                .withBranchFolderPath('branches/${PROJECT}_*')
+                .withBranchSeedName('${PROJECT}_*_GENERATOR')
+                .withBranchName('${BRANCH}')
+        assert config.resolve('seed', 'projects/SEED') == new SeedItem('seed', null, SeedItemRole.PROJECT_FOLDER)
+        assert config.resolve('seed', 'projects/SEED/branches') == new SeedItem('seed', null, SeedItemRole.PROJECT_ITEM)
+        assert config.resolve('seed', 'projects/SEED/branches/SEED_MASTER') == new SeedItem('seed', 'MASTER', SeedItemRole.BRANCH_FOLDER)
+        assert config.resolve('seed', 'projects/SEED/branches/SEED_MASTER/SEED_MASTER_GENERATOR') == new SeedItem('seed', 'MASTER', SeedItemRole.BRANCH_SEED)
+        assert config.resolve('seed', 'projects/SEED/branches/SEED_MASTER/build') == new SeedItem('seed', 'MASTER', SeedItemRole.BRANCH_ITEM)
+    }
+
 }
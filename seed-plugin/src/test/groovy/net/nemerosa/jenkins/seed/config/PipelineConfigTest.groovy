@@ -1,5 +1,6 @@
 package net.nemerosa.jenkins.seed.config
 
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig
 import org.junit.Test
 
 class PipelineConfigTest {
@@ -8,6 +9,7 @@ class PipelineConfigTest {
     void 'Default config'() {
         def cfg = PipelineConfig.defaultConfig()
         assert cfg.authorisations == ''
+        assert !cfg.compactAuthorisations
         assert cfg.branchParameters == ''
         assert !cfg.branchSCMParameter
         assert !cfg.destructor
@@ -24,6 +26,28 @@ class PipelineConfigTest {
         def eventStrategy = cfg.eventStrategy
         assert eventStrategy.auto
         assert eventStrategy.delete
+        assert eventStrategy.pullRequestSlots == 0
+        assert !eventStrategy.tagPipeline
+    }
+
+    @Test
+    void 'Tag pipeline path'() {
+        def seed = new ProjectSeed('test', '', '', '')
+        assert new ProjectCachedConfig(seed, new PipelineConfig()).tagPipelineJob == null
+        def config = new PipelineConfig().withEventStrategy(new EventStrategyConfig().withTagPipeline('/release/'))
+        assert new ProjectCachedConfig(seed, config).tagPipelineJob == 'test/release'
+    }
+
+    @Test
+    void 'Branch paths'() {
+        def config = new ProjectCachedConfig(new ProjectSeed('test', '', '', ''), new PipelineConfig())
+        assert config.getBranchFolder('feature/a') == 'test/test-feature-a'
+        assert config.getBranchSeedJob('feature/a') == 'test/test-feature-a/test-feature-a-seed'
+        assert config.getBranchStartJob('feature/a') == 'test/test-feature-a/test-feature-a-build'
+        // Resolved once
+        assert config.getBranchSeedJob('feature/a').is(config.getBranchSeedJob('feature/a'))
+        // Other branch
+        assert config.getBranchStartJob('master') == 'test/test-master/test-master-build'
     }
 
     @Test
@@ -74,4 +98,25 @@ class PipelineConfigTest {
         ]
     }
 
+    @Test
+    void 'Partial patch'() {
+        def config = new PipelineConfig()
+                .withAuthorisations('user:read')
+                .withEventStrategy(new EventStrategyConfig().withPullRequestSlots(2))
+        def patch = new PipelineConfigPatch().withAuto(false).withBranchSeedName('${branch}-generator')
+        assert !patch.empty
+        assert patch.namingPatch
+
+        def patched = patch.apply(config)
+        assert patched.authorisations == 'user:read'
+        assert !patched.eventStrategy.auto
+        assert patched.eventStrategy.delete
+        assert patched.eventStrategy.pullRequestSlots == 2
+        assert patched.namingStrategy.branchSeedName == '${branch}-generator'
+        assert patched.namingStrategy.projectFolderPath == ''
+
+        assert new PipelineConfigPatch().empty
+        assert !new PipelineConfigPatch().withTrigger(false).namingPatch
+    }
+
 }
@@ -0,0 +1,147 @@
+package net.nemerosa.jenkins.seed.config
+
+import org.junit.Test
+
+class ProjectCatalogReaderTest {
+
+    private static List<ProjectPipelineConfig> read(String text) {
+        List<ProjectPipelineConfig> projects = []
+        int count = ProjectCatalogReader.read(new StringReader(text), new ProjectCatalogReader.Handler() {
+            @Override
+            void project(ProjectPipelineConfig config) {
+                projects << config
+            }
+        })
+        assert count == projects.size()
+        return projects
+    }
+
+    @Test
+    void 'Catalog'() {
+        List<ProjectPipelineConfig> projects = []
+        getClass().getResourceAsStream('/catalog.yml').withReader('UTF-8') { reader ->
+            ProjectCatalogReader.read(reader, new ProjectCatalogReader.Handler() {
+                @Override
+                void project(ProjectPipelineConfig config) {
+                    projects << config
+                }
+            })
+        }
+        assert projects.size() == 2
+
+        def ontrack = projects[0]
+        assert ontrack.project == 'ontrack'
+        assert ontrack.triggerIdentifier == 'nemerosa/ontrack'
+        assert ontrack.scmType == 'git'
+        assert ontrack.scmUrl == 'https://github.com/nemerosa/ontrack.git'
+        assert ontrack.scmCredentials == ''
+        assert ontrack.pipelineConfig.destructor
+        assert ontrack.pipelineConfig.authorisations == 'hudson.model.Item.Read:jenkins_*\nhudson.model.Item.Build:jenkins_*'
+        assert ontrack.pipelineConfig.namingStrategy.branchName == '${BRANCH}'
+        assert ontrack.pipelineConfig.namingStrategy.ignoredBranchPrefixes == 'feature/'
+        assert ontrack.pipelineConfig.eventStrategy.pullRequestSlots == 4
+        assert !ontrack.pipelineConfig.eventStrategy.auto
+        assert ontrack.pipelineConfig.eventStrategy.delete
+
+        def seed = projects[1]
+        assert seed.project == 'nemerosa/seed'
+        assert seed.triggerIdentifier == ''
+        assert !seed.pipelineConfig.destructor
+        assert seed.pipelineConfig.eventStrategy.auto
+        assert seed.pipelineConfig.eventStrategy.pullRequestSlots == 4
+    }
+
+    @Test
+    void 'Empty catalog'() {
+        assert read('').empty
+        assert read('projects:').empty
+    }
+
+    @Test
+    void 'Defaults after the projects'() {
+        try {
+            read('''\
+projects:
+  - id: test
+defaults:
+  destructor: yes
+''')
+            assert false: 'The defaults must be rejected'
+        } catch (ProjectCatalogException ex) {
+            assert ex.message == 'Project catalog, line 3: defaults must be defined before the projects'
+        }
+    }
+
+    @Test
+    void 'Unknown key'() {
+        try {
+            read('''\
+projects:
+  - id: test
+  - id: other
+    naming:
+      branch: ${BRANCH}
+''')
+            assert false: 'The unknown key must be rejected'
+        } catch (ProjectCatalogException ex) {
+            assert ex.message == 'Project catalog, line 3: unknown key naming.branch'
+        }
+    }
+
+    @Test
+    void 'Project without any id or name'() {
+        try {
+            read('''\
+projects:
+  - scm-type: git
+''')
+            assert false: 'The project must be rejected'
+        } catch (ProjectCatalogException ex) {
+            assert ex.message == 'Project catalog, line 2: a project must have an id or a name'
+        }
+    }
+
+    @Test
+    void 'Duplicate key'() {
+        try {
+            read('''\
+projects:
+  - id: test
+    destructor: yes
+    destructor: no
+''')
+            assert false: 'The duplicate key must be rejected'
+        } catch (ProjectCatalogException ex) {
+            assert ex.message == 'Project catalog, line 4: duplicate key destructor'
+        }
+    }
+
+    @Test
+    void 'Invalid boolean'() {
+        try {
+            read('''\
+projects:
+  - id: test
+    destructor: maybe
+''')
+            assert false: 'The boolean must be rejected'
+        } catch (ProjectCatalogException ex) {
+            assert ex.message == 'Project catalog, line 2: destructor must be a boolean'
+        }
+    }
+
+    @Test
+    void 'Syntax error'() {
+        try {
+            read('''\
+projects:
+  - id: test
+    destructor: true
+   name: test
+''')
+            assert false: 'The syntax error must be reported'
+        } catch (ProjectCatalogException ex) {
+            assert ex.message.startsWith('Project catalog, line 4: expected <block end>')
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package net.nemerosa.jenkins.seed.hibernation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BranchArchiveTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void last_builds_only() throws IOException {
+        File folder = tmp.newFolder("folder");
+        write(folder, "config.xml", "folder");
+        write(folder, "jobs/build/config.xml", "job");
+        for (int i = 1; i <= 4; i++) {
+            write(folder, "jobs/build/builds/" + i + "/build.xml", "build " + i);
+            write(folder, "jobs/build/builds/" + i + "/archive/artifact.txt", "artifact " + i);
+        }
+        write(folder, "jobs/build/nextBuildNumber", "5");
+
+        BranchArchive archive = new BranchArchive(new File(tmp.getRoot(), "archives/folder.zip"));
+        archive.write(folder, 2);
+        assertTrue(archive.getFile().exists());
+
+        File restored = new File(tmp.getRoot(), "restored");
+        archive.extract(restored);
+        assertEquals("folder", read(restored, "config.xml"));
+        assertEquals("job", read(restored, "jobs/build/config.xml"));
+        assertEquals("5", read(restored, "jobs/build/nextBuildNumber"));
+        assertEquals("build 4", read(restored, "jobs/build/builds/4/build.xml"));
+        assertEquals("build 3", read(restored, "jobs/build/builds/3/build.xml"));
+        assertFalse(new File(restored, "jobs/build/builds/2").exists());
+        assertFalse(new File(restored, "jobs/build/builds/1").exists());
+        assertFalse(new File(restored, "jobs/build/builds/4/archive").exists());
+    }
+
+    private static void write(File dir, String path, String content) throws IOException {
+        File file = new File(dir, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File dir, String path) throws IOException {
+        return new String(Files.readAllBytes(new File(dir, path).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package net.nemerosa.jenkins.seed.integration
+
+import hudson.model.FreeStyleProject
+import hudson.model.Result
+import net.nemerosa.jenkins.seed.support.SeedContainer
+import net.nemerosa.jenkins.seed.triggering.BranchDeletion
+import net.nemerosa.jenkins.seed.triggering.DeletionStatus
+import org.junit.Rule
+import org.junit.Test
+import org.jvnet.hudson.test.SleepBuilder
+
+import static net.nemerosa.jenkins.seed.test.TestUtils.uid
+
+/**
+ * Testing the deletion engine of the branch folders.
+ */
+class BranchDeletionIntegrationTest {
+
+    @Rule
+    public SeedRule jenkins = new SeedRule()
+
+    private static BranchDeletion getDeletion() {
+        return SeedContainer.getInstance(BranchDeletion)
+    }
+
+    @Test
+    void 'Folder deleted with the workspaces of its jobs'() {
+        def folder = jenkins.createFolder(uid('f'))
+        def job = folder.createProject(FreeStyleProject, 'build')
+        jenkins.buildAndAssertSuccess(job)
+        def workspace = jenkins.jenkins.getWorkspaceFor(job)
+        assert workspace.exists()
+        def rootDir = folder.rootDir
+
+        def status = new DeletionStatus('test', folder.fullName)
+        deletion.delete(folder, status)
+
+        assert jenkins.jenkins.getItemByFullName(folder.fullName) == null
+        assert !rootDir.exists()
+        assert !workspace.exists()
+        // Root deletion, trashed builds and workspace
+        assert status.total == 3
+        assert status.completed == 3
+        // Trash emptied
+        def trash = new File(jenkins.jenkins.rootDir, 'seed-trash')
+        assert !trash.exists() || trash.list().length == 0
+    }
+
+    @Test
+    void 'Running build aborted before its directories are reclaimed'() {
+        def folder = jenkins.createFolder(uid('f'))
+        def job = folder.createProject(FreeStyleProject, 'build')
+        job.buildersList.add(new SleepBuilder(60000))
+        def build = job.scheduleBuild2(0).waitForStart()
+        def workspace = jenkins.jenkins.getWorkspaceFor(job)
+
+        deletion.delete(folder, new DeletionStatus('test', folder.fullName))
+
+        assert jenkins.jenkins.getItemByFullName(folder.fullName) == null
+        assert !build.building
+        assert build.result == Result.ABORTED
+        assert !workspace.exists()
+    }
+
+}
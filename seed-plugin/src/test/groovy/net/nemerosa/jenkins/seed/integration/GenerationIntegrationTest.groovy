@@ -1,11 +1,23 @@
 package net.nemerosa.jenkins.seed.integration
 
+import com.cloudbees.hudson.plugins.folder.Folder
+import hudson.Launcher
+import hudson.model.AbstractBuild
+import hudson.model.BuildListener
+import hudson.model.FreeStyleProject
+import hudson.slaves.EnvironmentVariablesNodeProperty
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCache
 import net.nemerosa.jenkins.seed.config.EventStrategyConfig
 import net.nemerosa.jenkins.seed.config.NamingStrategyConfig
 import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.generator.ProjectCatalogImportStep
 import net.nemerosa.jenkins.seed.integration.git.GitRepo
+import net.nemerosa.jenkins.seed.registry.BranchKey
+import net.nemerosa.jenkins.seed.registry.GeneratedItemsRegistry
+import net.nemerosa.jenkins.seed.support.SeedContainer
 import org.junit.Rule
 import org.junit.Test
+import org.jvnet.hudson.test.TestBuilder
 
 import static net.nemerosa.jenkins.seed.test.TestUtils.uid
 
@@ -75,6 +87,84 @@ class GenerationIntegrationTest {
         jenkins.getBuild("${projectName}/${projectName}-master/${projectName}-master-publish", 1).checkSuccess()
     }
 
+    @Test
+    void 'Generated items are registered'() {
+        // Default seed
+        String seed = jenkins.defaultSeed()
+        // Project name
+        def projectName = uid('p')
+        // Prepares Git repository
+        def git = GitRepo.prepare('std')
+        // Firing the seed job, the project seed and the branch seed
+        jenkins.fireJob(seed, [
+                PROJECT         : projectName,
+                PROJECT_SCM_TYPE: 'git',
+                PROJECT_SCM_URL : git,
+        ]).checkSuccess()
+        jenkins.fireJob("${projectName}/${projectName}-seed", [
+                BRANCH: 'master'
+        ]).checkSuccess()
+        jenkins.fireJob("${projectName}/${projectName}-master/${projectName}-master-seed").checkSuccess()
+        // Checks the registry
+        def registry = GeneratedItemsRegistry.get()
+        assert registry.getItems(projectName, GeneratedItemsRegistry.PROJECT_LEVEL).contains("${projectName}/${projectName}-seed" as String)
+        def branchItems = registry.getItems(projectName, 'master')
+        assert branchItems.contains("${projectName}/${projectName}-master/${projectName}-master-seed" as String)
+        assert branchItems.contains("${projectName}/${projectName}-master/${projectName}-master-build" as String)
+        assert branchItems.contains("${projectName}/${projectName}-master/${projectName}-master-ci" as String)
+        assert registry.getOwner("${projectName}/${projectName}-master/${projectName}-master-publish") == new BranchKey(projectName, 'master')
+        assert registry.getBranches(projectName) == ['master'] as SortedSet
+        // Deleting a generated job unregisters it
+        jenkins.jenkins.getItemByFullName("${projectName}/${projectName}-master/${projectName}-master-publish").delete()
+        assert registry.getOwner("${projectName}/${projectName}-master/${projectName}-master-publish") == null
+    }
+
+    @Test
+    void 'Generated items of a pull request slot are registered under the slot'() {
+        String seed = jenkins.defaultSeed()
+        def projectName = uid('p')
+        def git = GitRepo.prepare('std')
+        jenkins.fireJob(seed, [
+                PROJECT         : projectName,
+                PROJECT_SCM_TYPE: 'git',
+                PROJECT_SCM_URL : git,
+        ]).checkSuccess()
+        // Branch bound to a pull request slot
+        jenkins.fireJob("${projectName}/${projectName}-seed", [
+                BRANCH       : 'master',
+                PIPELINE_SLOT: 'pr-1',
+        ]).checkSuccess()
+        jenkins.fireJob("${projectName}/${projectName}-pr-1/${projectName}-pr-1-seed").checkSuccess()
+        // The branch seed and the pipeline have the same owner
+        def registry = GeneratedItemsRegistry.get()
+        assert registry.getOwner("${projectName}/${projectName}-pr-1/${projectName}-pr-1-seed") == new BranchKey(projectName, 'pr-1')
+        assert registry.getOwner("${projectName}/${projectName}-pr-1/${projectName}-pr-1-build") == new BranchKey(projectName, 'pr-1')
+        assert registry.getBranches(projectName) == ['pr-1'] as SortedSet
+    }
+
+    @Test
+    void 'Items under a deleted folder are unregistered'() {
+        def project = uid('p')
+        def folder = jenkins.createFolder(project)
+        def branch = folder.createProject(Folder, "${project}-master")
+        branch.createProject(FreeStyleProject, "${project}-master-build")
+        def other = folder.createProject(Folder, "${project}-master-2")
+        def registry = GeneratedItemsRegistry.get()
+        registry.record(project, 'master', [branch.fullName, "${branch.fullName}/${project}-master-build" as String])
+        registry.record(project, 'master-2', [other.fullName])
+        assert registry.getItemsUnder(branch.fullName) == [branch.fullName, "${branch.fullName}/${project}-master-build"] as SortedSet
+        // Deletion of the branch folder
+        branch.delete()
+        assert registry.getOwner(branch.fullName) == null
+        assert registry.getOwner("${branch.fullName}/${project}-master-build") == null
+        assert registry.getBranches(project) == ['master-2'] as SortedSet
+        // Saved behind
+        GeneratedItemsRegistry.flushChanges()
+        def reloaded = new GeneratedItemsRegistry()
+        assert reloaded.getOwner(other.fullName) == new BranchKey(project, 'master-2')
+        assert reloaded.getOwner(branch.fullName) == null
+    }
+
     @Test
     void 'Custom environment variable'() {
         // Project name
@@ -179,6 +269,37 @@ class GenerationIntegrationTest {
         ] as List<String>
     }
 
+    @Test
+    void 'Compact project folder authorisations'() {
+        // Project name
+        def projectName = uid('p')
+        // Configuration of the Seed job
+        def seed = jenkins.seed(
+                new PipelineConfig()
+                        .withCompactAuthorisations(true)
+                        .withAuthorisations('''\
+                        hudson.model.Item.Workspace:jenkins_*
+                        hudson.model.Item.Read:jenkins_*
+                        hudson.model.Item.Discover:jenkins_*
+                        hudson.model.Item.Read:jenkins_*
+                        ''')
+        )
+        // Firing the seed job
+        jenkins.fireJob(seed, [
+                PROJECT         : projectName,
+                PROJECT_SCM_TYPE: 'git',
+                PROJECT_SCM_URL : 'path/to/repo',
+        ]).checkSuccess()
+        // Checks the project folder authorisation matrix
+        def xml = jenkins.jobConfig(projectName)
+        def matrix = xml.properties['com.cloudbees.hudson.plugins.folder.properties.AuthorizationMatrixProperty']
+        assert matrix
+        assert matrix.permission.collect { it.text() as String } == [
+                "hudson.model.Item.Workspace:jenkins_${projectName}",
+                "hudson.model.Item.Read:jenkins_${projectName}",
+        ] as List<String>
+    }
+
     @Test
     void 'Project pipeline extensions'() {
         // Project name
@@ -667,4 +788,45 @@ seed.dsl.script.jar = seed-pipeline-demo
         // Checks the branch build is created
         jenkins.checkJobExists("${projectName}/${projectName}-master/${projectName}-master-build")
     }
+
+    @Test
+    void 'Project catalog import'() {
+        // Project names
+        def first = uid('p')
+        def second = uid('p')
+        // Variable used in the catalog
+        jenkins.jenkins.globalNodeProperties.add(new EnvironmentVariablesNodeProperty(
+                new EnvironmentVariablesNodeProperty.Entry('CATALOG_SECRET', 'secret')
+        ))
+        // Catalog job
+        def job = jenkins.createFreeStyleProject(uid('catalog-'))
+        job.buildersList << new TestBuilder() {
+            @Override
+            boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                build.workspace.child('catalog.yml').write("""\
+defaults:
+  destructor: yes
+projects:
+  - id: ${first}
+    scm-type: git
+    trigger-secret: \${CATALOG_SECRET}
+  - id: ${second}
+    scm-type: git
+""", 'UTF-8')
+                return true
+            }
+        }
+        job.buildersList << new ProjectCatalogImportStep('catalog.yml', 2)
+        // First import generates all the projects
+        def output = jenkins.fireJob(job.name).checkSuccess().output
+        assert output.contains('Catalog of 2 projects: 2 added, 0 changed, 0 unchanged, 0 failed')
+        jenkins.checkJobExists("${first}/${first}-seed")
+        jenkins.checkJobExists("${first}/${first}-destructor")
+        jenkins.checkJobExists("${second}/${second}-seed")
+        // Values expanded when generated
+        assert SeedContainer.getInstance(ProjectSeedCache).getProjectPipelineConfig(first).seed.triggerSecret == 'secret'
+        // Second import does not generate anything
+        output = jenkins.fireJob(job.name).checkSuccess().output
+        assert output.contains('Catalog of 2 projects: 0 added, 0 changed, 2 unchanged, 0 failed')
+    }
 }
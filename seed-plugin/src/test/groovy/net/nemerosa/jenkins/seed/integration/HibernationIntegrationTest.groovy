@@ -0,0 +1,177 @@
+package net.nemerosa.jenkins.seed.integration
+
+import hudson.model.AbstractProject
+import net.nemerosa.jenkins.seed.SeedPlugin
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCache
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.hibernation.BranchHibernation
+import net.nemerosa.jenkins.seed.hibernation.HibernationDescriptor
+import net.nemerosa.jenkins.seed.integration.git.GitRepo
+import net.nemerosa.jenkins.seed.migration.NamingMigration
+import net.nemerosa.jenkins.seed.registry.GeneratedItemsRegistry
+import net.nemerosa.jenkins.seed.support.SeedContainer
+import org.junit.Rule
+import org.junit.Test
+
+import static net.nemerosa.jenkins.seed.test.TestUtils.uid
+
+/**
+ * Testing the hibernation of branch folders and their restoration on seed events.
+ */
+class HibernationIntegrationTest {
+
+    @Rule
+    public SeedRule jenkins = new SeedRule()
+
+    /**
+     * Generates a project and its <code>master</code> branch
+     */
+    private String generateBranch() {
+        def project = uid('p')
+        def git = GitRepo.prepare('std')
+        def seed = jenkins.defaultSeed()
+        jenkins.fireJob(seed, [
+                PROJECT: project,
+                PROJECT_SCM_TYPE: 'git',
+                PROJECT_SCM_URL: git,
+                PROJECT_TRIGGER_IDENTIFIER: '',
+                PROJECT_TRIGGER_TYPE: 'http',
+                PROJECT_TRIGGER_SECRET: '',
+        ]).checkSuccess()
+        jenkins.post("seed-http-api/create?project=${project}&branch=master")
+        jenkins.getBuild("${project}/${project}-master/${project}-master-seed", 1).checkSuccess()
+        jenkins.checkJobExists("${project}/${project}-master/${project}-master-build")
+        return project
+    }
+
+    private static BranchHibernation getHibernation() {
+        return SeedContainer.getInstance(BranchHibernation)
+    }
+
+    @Test
+    void 'Hibernation keeps the branch registered'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        assert hibernation.hibernate(folder)
+        // The folder is unloaded
+        assert jenkins.instance.getItemByFullName(folder) == null
+        assert hibernation.isHibernated(folder)
+        // ... but the branch is still known
+        def owner = GeneratedItemsRegistry.get().getOwner("${folder}/${project}-master-build")
+        assert owner != null
+        assert owner.project == project
+        assert owner.branch == 'master'
+        assert SeedContainer.getInstance(ProjectSeedCache).getProjectPipelineConfig(project) != null
+    }
+
+    @Test
+    void 'Activity not recorded while the hibernation is disabled'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        assert SeedPlugin.seedPlugin.hibernationDays == 0
+        jenkins.post("seed-http-api/commit?project=${project}&branch=master")
+        jenkins.getBuild("${folder}/${project}-master-build", 1).checkSuccess()
+        assert !HibernationDescriptor.get().activity.containsKey(folder)
+    }
+
+    @Test
+    void 'Activity recorded while the hibernation is enabled'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        SeedPlugin.seedPlugin.hibernationDays = 30
+        jenkins.post("seed-http-api/commit?project=${project}&branch=master")
+        jenkins.getBuild("${folder}/${project}-master-build", 1).checkSuccess()
+        assert HibernationDescriptor.get().activity.containsKey(folder)
+    }
+
+    @Test
+    void 'Queued builds cancelled on hibernation'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        def job = jenkins.instance.getItemByFullName("${folder}/${project}-master-build", AbstractProject)
+        // Waiting in the queue
+        assert job.scheduleBuild2(3600) != null
+        assert job.inQueue
+        assert hibernation.hibernate(folder)
+        assert !jenkins.instance.queue.items.any { it.task.is(job) }
+        assert !hibernation.isHibernating("${folder}/${project}-master-build")
+    }
+
+    @Test
+    void 'Hibernated branch restored on commit'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        assert hibernation.hibernate(folder)
+        // Commit on the branch
+        jenkins.post("seed-http-api/commit?project=${project}&branch=master")
+        // The folder is restored and the pipeline started
+        assert !hibernation.isHibernated(folder)
+        jenkins.getBuild("${folder}/${project}-master-build", 1).checkSuccess()
+        assert GeneratedItemsRegistry.get().getOwner("${folder}/${project}-master-build") != null
+    }
+
+    @Test
+    void 'Unregistered branch not recorded in the registry when restored'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        // Branch generated before the registry of generated items
+        GeneratedItemsRegistry.get().removeBranch(project, 'master')
+        assert hibernation.hibernate(folder)
+        // The owner is guessed from the naming strategy
+        def hibernated = HibernationDescriptor.get().getHibernated(folder)
+        assert hibernated.guessed
+        assert hibernated.project == project
+        assert hibernated.branch == 'master'
+        // Restoration
+        hibernation.restore(folder)
+        assert jenkins.instance.getItemByFullName(folder) != null
+        // The guessed branch name is not recorded
+        assert GeneratedItemsRegistry.get().getOwner(folder) == null
+        assert GeneratedItemsRegistry.get().getOwner("${folder}/${project}-master-build") == null
+    }
+
+    @Test
+    void 'Hibernated branch regenerated on commit when it cannot be restored'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        assert hibernation.hibernate(folder)
+        // Losing the archive
+        assert new File(HibernationDescriptor.get().getHibernated(folder).archive).delete()
+        // Commit on the branch
+        jenkins.post("seed-http-api/commit?project=${project}&branch=master")
+        // The branch is regenerated...
+        assert !hibernation.isHibernated(folder)
+        jenkins.getBuild("${project}/${project}-seed", 2).checkSuccess()
+        jenkins.getBuild("${folder}/${project}-master-seed", 1).checkSuccess()
+        // ... and the commit is not lost
+        jenkins.getBuild("${folder}/${project}-master-build", 1).checkSuccess()
+    }
+
+    @Test
+    void 'Hibernated branch migrated with its project'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        assert hibernation.hibernate(folder)
+        def newConfig = new PipelineConfig().withNamingStrategy(
+                new NamingStrategyConfig().withBranchFolderPath('branches/*')
+        )
+        new NamingMigration(System.out).migrate(NamingMigration.plan(project, new PipelineConfig(), newConfig))
+        // Restored, then moved
+        assert !hibernation.isHibernated(folder)
+        assert jenkins.instance.getItemByFullName(folder) == null
+        jenkins.checkJobExists("${project}/branches/master/${project}-master-build")
+    }
+
+    @Test
+    void 'Hibernated branch deleted'() {
+        def project = generateBranch()
+        def folder = "${project}/${project}-master" as String
+        assert hibernation.hibernate(folder)
+        jenkins.post("seed-http-api/delete?project=${project}&branch=master")
+        assert !hibernation.isHibernated(folder)
+        assert GeneratedItemsRegistry.get().getOwner("${folder}/${project}-master-build") == null
+        assert jenkins.instance.getItemByFullName(folder) == null
+    }
+
+}
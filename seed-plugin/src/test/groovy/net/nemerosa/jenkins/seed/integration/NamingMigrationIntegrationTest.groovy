@@ -0,0 +1,73 @@
+package net.nemerosa.jenkins.seed.integration
+
+import com.cloudbees.hudson.plugins.folder.Folder
+import hudson.model.FreeStyleProject
+import net.nemerosa.jenkins.seed.CannotMoveItemException
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.migration.ItemMove
+import net.nemerosa.jenkins.seed.migration.MigrationPlan
+import net.nemerosa.jenkins.seed.migration.NamingMigration
+import org.junit.Rule
+import org.junit.Test
+
+import static net.nemerosa.jenkins.seed.test.TestUtils.uid
+
+/**
+ * Testing the moves of the items when the naming strategy of a project changes.
+ */
+class NamingMigrationIntegrationTest {
+
+    @Rule
+    public SeedRule jenkins = new SeedRule()
+
+    private static void migrate(List<ItemMove> moves) {
+        new NamingMigration(System.out).migrate(new MigrationPlan(moves, []))
+    }
+
+    @Test
+    void 'Items renamed and moved'() {
+        def project = uid('p')
+        def folder = jenkins.instance.createProject(Folder, project)
+        def branch = folder.createProject(Folder, "${project}-master")
+        def job = branch.createProject(FreeStyleProject, "${project}-master-build")
+        jenkins.buildAndAssertSuccess(job)
+        migrate([
+                new ItemMove("${project}/${project}-master" as String, "${project}/branches/master" as String),
+                new ItemMove("${project}/branches/master/${project}-master-build" as String, "${project}/branches/master/build" as String),
+        ])
+        assert jenkins.instance.getItemByFullName("${project}/${project}-master") == null
+        def migrated = jenkins.instance.getItemByFullName("${project}/branches/master/build", FreeStyleProject)
+        assert migrated != null
+        // The builds follow the job
+        assert migrated.getBuildByNumber(1) != null
+    }
+
+    @Test
+    void 'Branch generated before the registry migrated'() {
+        def project = uid('p')
+        def folder = jenkins.instance.createProject(Folder, project)
+        def branch = folder.createProject(Folder, "${project}-master")
+        branch.createProject(FreeStyleProject, "${project}-master-seed")
+        def newConfig = new PipelineConfig().withNamingStrategy(
+                new NamingStrategyConfig().withBranchFolderPath('branches/*')
+        )
+        def plan = NamingMigration.plan(project, new PipelineConfig(), newConfig)
+        assert plan.branchMoves == [
+                [new ItemMove("${project}/${project}-master" as String, "${project}/branches/master" as String)]
+        ]
+        new NamingMigration(System.out).migrate(plan)
+        jenkins.checkJobExists("${project}/branches/master/${project}-master-seed")
+    }
+
+    @Test(expected = CannotMoveItemException)
+    void 'Item not renamed to an invalid name'() {
+        def project = uid('p')
+        def folder = jenkins.instance.createProject(Folder, project)
+        folder.createProject(FreeStyleProject, "${project}-build")
+        migrate([
+                new ItemMove("${project}/${project}-build" as String, "${project}/build?" as String),
+        ])
+    }
+
+}
@@ -0,0 +1,83 @@
+package net.nemerosa.jenkins.seed.integration
+
+import hudson.model.Item
+import hudson.security.GlobalMatrixAuthorizationStrategy
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.config.ProjectParameters
+import net.nemerosa.jenkins.seed.generator.ProjectAuthorisationsGenerationExtension
+import net.nemerosa.jenkins.seed.generator.UnknownAuthorisationRoleException
+import org.junit.Rule
+import org.junit.Test
+
+/**
+ * Testing the compaction of the authorisations, which needs the permissions known by Jenkins.
+ */
+class ProjectAuthorisationsIntegrationTest {
+
+    @Rule
+    public SeedRule jenkins = new SeedRule()
+
+    private static ProjectParameters getParameters() {
+        return new ProjectParameters(
+                "test",
+                "git",
+                "https://github.com/nemerosa/ontrack.git",
+                "",
+                "",
+                "",
+                "",
+        )
+    }
+
+    @Test
+    void 'Compact authorisations'() {
+        PipelineConfig config = new PipelineConfig()
+                .withCompactAuthorisations(true)
+                .withAuthorisations('''\
+                hudson.model.Item.Workspace:jenkins_*
+                hudson.model.Item.Read:jenkins_*
+                hudson.model.Item.Discover:jenkins_*
+                hudson.model.Item.Read:jenkins_*
+                @developer:developers_*
+                hudson.model.Item.Read:developers_*
+                ''')
+        String script = new ProjectAuthorisationsGenerationExtension(config, parameters, '''\
+                # Roles
+                developer=hudson.model.Item.Read,hudson.model.Item.Build,hudson.model.Item.Cancel
+                ''').generate()
+        assert script == '''\
+authorization {
+    permissions('jenkins_test', ['hudson.model.Item.Workspace', 'hudson.model.Item.Read'])
+    permissions('developers_test', ['hudson.model.Item.Read', 'hudson.model.Item.Build'])
+}
+'''
+    }
+
+    @Test
+    void 'Compact authorisations keep the permissions granted globally'() {
+        def strategy = new GlobalMatrixAuthorizationStrategy()
+        strategy.add(Item.READ, 'jenkins_test')
+        jenkins.instance.authorizationStrategy = strategy
+        PipelineConfig config = new PipelineConfig()
+                .withCompactAuthorisations(true)
+                .withAuthorisations('''\
+                hudson.model.Item.Read:jenkins_*
+                hudson.model.Item.Build:jenkins_*
+                ''')
+        String script = new ProjectAuthorisationsGenerationExtension(config, parameters).generate()
+        assert script == '''\
+authorization {
+    permissions('jenkins_test', ['hudson.model.Item.Read', 'hudson.model.Item.Build'])
+}
+'''
+    }
+
+    @Test(expected = UnknownAuthorisationRoleException)
+    void 'Compact authorisations with an unknown role'() {
+        PipelineConfig config = new PipelineConfig()
+                .withCompactAuthorisations(true)
+                .withAuthorisations('@developer:developers_*')
+        new ProjectAuthorisationsGenerationExtension(config, parameters, 'viewer=hudson.model.Item.Read').generate()
+    }
+
+}
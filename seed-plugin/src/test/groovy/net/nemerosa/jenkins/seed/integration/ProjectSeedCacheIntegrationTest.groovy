@@ -0,0 +1,455 @@
+package net.nemerosa.jenkins.seed.integration
+
+import com.cloudbees.hudson.plugins.folder.Folder
+import hudson.model.FreeStyleProject
+import net.nemerosa.jenkins.seed.SeedPlugin
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheDescriptor
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCacheRebuild
+import net.nemerosa.jenkins.seed.cache.SharedProjectSeedCache
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import net.nemerosa.jenkins.seed.config.PipelineConfigPatch
+import net.nemerosa.jenkins.seed.config.ProjectParameters
+import net.nemerosa.jenkins.seed.config.ProjectSeed
+import net.nemerosa.jenkins.seed.config.SeedItem
+import net.nemerosa.jenkins.seed.config.SeedItemRole
+import net.nemerosa.jenkins.seed.generator.BranchGenerationStep
+import net.nemerosa.jenkins.seed.generator.PipelineConfigRollout
+import net.nemerosa.jenkins.seed.generator.PipelineConfigRolloutStatus
+import net.nemerosa.jenkins.seed.generator.PipelineConfigRolloutTracker
+import net.nemerosa.jenkins.seed.integration.git.GitRepo
+import net.nemerosa.jenkins.seed.support.SeedContainer
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+import static net.nemerosa.jenkins.seed.test.TestUtils.uid
+
+class ProjectSeedCacheIntegrationTest {
+
+    @Rule
+    public SeedRule jenkins = new SeedRule()
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder()
+
+    /**
+     * Project seeds saving their configuration in parallel while the triggers read it: no entry is lost
+     * and no inconsistent entry is read.
+     *
+     * @see net.nemerosa.jenkins.seed.benchmark.ProjectSeedCacheBenchmark
+     */
+    @Test
+    void 'Contention between project seeds and triggers'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        int writers = 8
+        int projectsPerWriter = 50
+        int readers = 8
+        def prefix = uid('p')
+
+        def pool = Executors.newFixedThreadPool(writers + readers)
+        def start = new CountDownLatch(1)
+        def writing = new AtomicBoolean(true)
+        def inconsistent = new AtomicLong()
+        try {
+            // Readers
+            def readerTasks = (1..readers).collect {
+                pool.submit({
+                    start.await()
+                    def random = new Random()
+                    while (writing.get()) {
+                        def project = "${prefix}-${random.nextInt(writers)}-${random.nextInt(projectsPerWriter)}" as String
+                        def config = descriptor.getProjectSavedConfiguration(project)
+                        if (config != null && config.seed.project != project) {
+                            inconsistent.incrementAndGet()
+                        }
+                    }
+                    return null
+                } as Callable)
+            }
+            // Writers
+            def writerTasks = (0..<writers).collect { int writer ->
+                pool.submit({
+                    start.await()
+                    (0..<projectsPerWriter).each { int index ->
+                        def project = "${prefix}-${writer}-${index}" as String
+                        descriptor.saveProjectConfiguration(
+                                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                                new PipelineConfig()
+                        )
+                    }
+                    return null
+                } as Callable)
+            }
+            start.countDown()
+            writerTasks*.get(5, TimeUnit.MINUTES)
+            writing.set(false)
+            readerTasks*.get(1, TimeUnit.MINUTES)
+
+            // No lost entry
+            (0..<writers).each { int writer ->
+                (0..<projectsPerWriter).each { int index ->
+                    def project = "${prefix}-${writer}-${index}" as String
+                    assert descriptor.getProjectSavedConfiguration(project)?.seed?.project == project
+                }
+            }
+            assert inconsistent.get() == 0
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    /**
+     * The cache is keyed by trigger identifier but evicted by project folder.
+     */
+    @Test
+    void 'Cache entry evicted when the project folder is deleted'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        def id = uid('id')
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', id, '', ''),
+                new PipelineConfig()
+        )
+        assert descriptor.getProjectSavedConfiguration(id) != null
+
+        // Unrelated item having the name of the key
+        jenkins.jenkins.createProject(FreeStyleProject, id).delete()
+        assert descriptor.getProjectSavedConfiguration(id) != null
+
+        // Project folder
+        jenkins.jenkins.createProject(Folder, project).delete()
+        assert descriptor.getProjectSavedConfiguration(id) == null
+    }
+
+    @Test
+    void 'Cache rebuilt from the project seeds'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        String seed = jenkins.defaultSeed()
+        def projectName = uid('p')
+        def git = GitRepo.prepare('std')
+        jenkins.fireJob(seed, [
+                PROJECT         : projectName,
+                PROJECT_SCM_TYPE: 'git',
+                PROJECT_SCM_URL : git,
+        ]).checkSuccess()
+        assert descriptor.getProjectSavedConfiguration(projectName) != null
+
+        // Lost cache
+        descriptor.replaceProjectConfigurations([:])
+        assert descriptor.empty
+
+        assert ProjectSeedCacheRebuild.rebuild() >= 1
+        def config = descriptor.getProjectSavedConfiguration(projectName)
+        assert config != null
+        assert config.seed.project == projectName
+        assert config.projectSeedJob == "${projectName}/${projectName}-seed" as String
+        assert config.getBranchSeedJob('master') == "${projectName}/${projectName}-master/${projectName}-master-seed" as String
+    }
+
+    @Test
+    void 'Cache statistics maintained by the lookups'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        def statistics = descriptor.statistics
+        long total = statistics.approximateSize
+        assert statistics.get(project).approximateSize > 0
+        assert statistics.get(project).lastAccess == 0
+        assert descriptor.keys.contains(project)
+
+        // Inspection does not count as an access
+        assert descriptor.getCachedConfiguration(project) != null
+        assert statistics.get(project).lastAccess == 0
+        assert descriptor.getProjectSavedConfiguration(project) != null
+        assert statistics.get(project).lastAccess > 0
+
+        jenkins.jenkins.createProject(Folder, project).delete()
+        assert statistics.get(project) == null
+        assert statistics.approximateSize < total
+    }
+
+    @Test
+    void 'Items resolved through the naming of the cached projects'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        def nested = "${project}-nested" as String
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(nested, 'git', "git@github.com:test/${nested}.git" as String, '', '', '', ''),
+                new PipelineConfig().withNamingStrategy(new NamingStrategyConfig().withProjectFolderPath("${project}/nested" as String))
+        )
+
+        assert descriptor.resolveItem("${project}/${project}-seed") == new SeedItem(project, null, SeedItemRole.PROJECT_SEED)
+        assert descriptor.resolveItem("${project}/${project}-master/${project}-master-build") == new SeedItem(project, 'master', SeedItemRole.BRANCH_START)
+        // Deepest project folder first
+        assert descriptor.resolveItem("${project}/nested/${nested}-seed") == new SeedItem(nested, null, SeedItemRole.PROJECT_SEED)
+        assert descriptor.resolveItem("${project}-other/${project}-seed") == null
+
+        jenkins.jenkins.createProject(Folder, project).delete()
+        assert descriptor.resolveItem("${project}/${project}-seed") == null
+        assert descriptor.resolveItem("${project}/nested/${nested}-seed") == new SeedItem(nested, null, SeedItemRole.PROJECT_SEED)
+    }
+
+    @Test
+    void 'Configuration rolled out without running the project seeds'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        String seed = jenkins.defaultSeed()
+        def projectName = uid('p')
+        def git = GitRepo.prepare('std')
+        jenkins.fireJob(seed, [
+                PROJECT         : projectName,
+                PROJECT_SCM_TYPE: 'git',
+                PROJECT_SCM_URL : git,
+        ]).checkSuccess()
+        assert descriptor.getProjectSavedConfiguration(projectName).auto
+
+        def result = new PipelineConfigRollout(System.out).rollout(
+                [projectName, uid('missing')],
+                new PipelineConfigPatch().withAuto(false)
+        )
+        assert result.updated == [projectName]
+        assert result.missing.size() == 1
+        assert !descriptor.getProjectSavedConfiguration(projectName).auto
+        def projectSeed = jenkins.jenkins.getItemByFullName("${projectName}/${projectName}-seed" as String, FreeStyleProject)
+        def step = projectSeed.buildersList.get(BranchGenerationStep)
+        assert !step.projectConfig.pipelineConfig.eventStrategy.auto
+
+        // Applied once, in the background
+        def status = SeedContainer.getInstance(PipelineConfigRolloutTracker).submit([projectName], new PipelineConfigPatch().withAuto(false))
+        assert status.await(30, TimeUnit.SECONDS)
+        assert status.state == PipelineConfigRolloutStatus.State.DONE
+        assert status.result.unchanged == [projectName]
+    }
+
+    @Test
+    void 'Journal replayed and compacted at loading'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        // Writes the journal as when Jenkins stops
+        ProjectSeedCacheDescriptor.flushJournal()
+        def journal = new File(jenkins.jenkins.rootDir, "${descriptor.id}.journal")
+
+        // The journal is replayed and compacted into the saved file
+        def reloaded = loadCache()
+        assert reloaded.getCachedConfiguration(project)?.seed?.project == project
+        assert journal.list().findAll { it.endsWith('.log') }.size() == 1
+        assert new File(jenkins.jenkins.rootDir, "${descriptor.id}.xml").text.contains(project)
+
+        // Loaded from the saved file
+        assert loadCache().getCachedConfiguration(project)?.seed?.project == project
+    }
+
+    @Test
+    void 'Unreadable journal segment kept at loading'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        ProjectSeedCacheDescriptor.flushJournal()
+        def journal = new File(jenkins.jenkins.rootDir, "${descriptor.id}.journal")
+        def segment = journal.listFiles().find { it.name.endsWith('.log') && it.length() > 0 }
+        assert segment != null
+        // Record whose type is not valid modified UTF-8
+        new DataOutputStream(new FileOutputStream(segment, true)).withStream { output ->
+            output.writeByte(1)
+            output.writeShort(2)
+            output.write([0xFF, 0xFF] as byte[])
+        }
+
+        // The records before the unreadable one are replayed
+        def reloaded = loadCache()
+        assert reloaded.getCachedConfiguration(project) != null
+        def unreadable = new File(journal, "${segment.name}.unreadable")
+        assert unreadable.exists()
+
+        // Next changes are journaled and the unreadable segment survives the compactions
+        def other = uid('p')
+        reloaded.saveProjectConfiguration(
+                new ProjectParameters(other, 'git', "git@github.com:test/${other}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        reloaded.save()
+        assert unreadable.exists()
+        def loaded = loadCache()
+        assert loaded.getCachedConfiguration(project) != null
+        assert loaded.getCachedConfiguration(other) != null
+    }
+
+    @Test
+    void 'Cache migrated between the XML file and the binary snapshot'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        descriptor.save()
+        def snapshots = new File(jenkins.jenkins.rootDir, "${descriptor.id}.snapshot")
+
+        // XML file to binary snapshot
+        File snapshot
+        ProjectSeedCacheDescriptor.BINARY_SNAPSHOT = true
+        try {
+            def binary = loadCache()
+            snapshot = snapshots.listFiles().find { it.name.endsWith('.bin') }
+            assert snapshot != null
+            assert binary.mappedSize > 0
+            assert loadCache().getCachedConfiguration(project)?.seed?.project == project
+        } finally {
+            ProjectSeedCacheDescriptor.BINARY_SNAPSHOT = false
+        }
+        def staleSnapshot = snapshot.bytes
+
+        // Binary snapshot to XML file
+        def xml = loadCache()
+        assert xml.mappedSize == 0
+        assert xml.getCachedConfiguration(project)?.seed?.project == project
+        assert !snapshots.listFiles().any { it.name.endsWith('.bin') }
+
+        // A snapshot older than the XML file is ignored
+        def other = uid('p')
+        xml.saveProjectConfiguration(
+                new ProjectParameters(other, 'git', "git@github.com:test/${other}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        xml.save()
+        snapshot.bytes = staleSnapshot
+        def loaded = loadCache()
+        assert loaded.mappedSize == 0
+        assert loaded.getCachedConfiguration(project) != null
+        assert loaded.getCachedConfiguration(other) != null
+    }
+
+    @Test
+    void 'Incomplete binary snapshot ignored at loading'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def snapshots = new File(jenkins.jenkins.rootDir, "${descriptor.id}.snapshot")
+        def project = uid('p')
+        ProjectSeedCacheDescriptor.BINARY_SNAPSHOT = true
+        try {
+            def binary = loadCache()
+            binary.saveProjectConfiguration(
+                    new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                    new PipelineConfig()
+            )
+            binary.save()
+            def snapshot = snapshots.listFiles().find { it.name.endsWith('.bin') }
+            assert snapshot != null
+
+            // More recent snapshot without its end marker
+            int segment = snapshot.name - '.bin' as int
+            new File(snapshots, String.format('%08d.bin', segment + 100)).bytes = Arrays.copyOf(snapshot.bytes, (int) snapshot.length() - 4)
+
+            // Falls back to the previous snapshot
+            def loaded = loadCache()
+            assert loaded.getCachedConfiguration(project)?.seed?.project == project
+        } finally {
+            ProjectSeedCacheDescriptor.BINARY_SNAPSHOT = false
+        }
+    }
+
+    @Test
+    void 'Cache pages inspected without decoding the binary snapshot'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def prefix = uid('p')
+        def projects = (1..5).collect { "${prefix}-${it}" as String }
+        projects.each { project ->
+            descriptor.saveProjectConfiguration(
+                    new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                    new PipelineConfig()
+            )
+        }
+        descriptor.save()
+
+        ProjectSeedCacheDescriptor.BINARY_SNAPSHOT = true
+        try {
+            // Migrated, then loaded from the binary snapshot
+            loadCache()
+            def binary = loadCache()
+            assert binary.keyCount == binary.keys.size()
+            int start = binary.keys.indexOf(projects[1])
+            assert binary.getKeys(start, 3) == projects[1..3]
+            assert binary.getKeys(binary.keyCount, 3).empty
+
+            // Inspected without being decoded for good
+            assert binary.inspectConfiguration(projects[1])?.seed?.project == projects[1]
+            assert binary.statistics.get(projects[1]) == null
+            assert binary.getCachedConfiguration(projects[1]) != null
+            assert binary.statistics.get(projects[1]) != null
+        } finally {
+            ProjectSeedCacheDescriptor.BINARY_SNAPSHOT = false
+        }
+    }
+
+    @Test
+    void 'Trigger secrets encrypted in the shared cache'() {
+        def dir = tmp.newFolder('shared')
+        SeedPlugin.seedPlugin.sharedCacheDirectory = dir.absolutePath
+        try {
+            def project = uid('p')
+            def sharedCache = SeedContainer.getInstance(SharedProjectSeedCache)
+            sharedCache.publish(project, new ProjectCachedConfig(new ProjectSeed(project, '', 'github', 'my-secret'), new PipelineConfig()))
+            def record = new File(dir, "${project}.xml")
+            assert record.exists()
+            assert !record.text.contains('my-secret')
+            assert sharedCache.get(project).secretKey == 'my-secret'
+        } finally {
+            SeedPlugin.seedPlugin.sharedCacheDirectory = null
+        }
+    }
+
+    @Test
+    void 'Items removed while the cache is loading'() {
+        def descriptor = jenkins.jenkins.getDescriptorByType(ProjectSeedCacheDescriptor)
+        def project = uid('p')
+        descriptor.saveProjectConfiguration(
+                new ProjectParameters(project, 'git', "git@github.com:test/${project}.git" as String, '', '', '', ''),
+                new PipelineConfig()
+        )
+        def projectFolder = descriptor.getCachedConfiguration(project).projectFolder
+        ProjectSeedCacheDescriptor.flushJournal()
+
+        def reloaded = new ProjectSeedCacheDescriptor()
+        // Recorded without waiting for the loading
+        reloaded.onItemRemoved(projectFolder)
+        assert !reloaded.isLoaded()
+        // ... and applied at the end of the loading
+        reloaded.startLoading()
+        reloaded.waitForLoading()
+        assert reloaded.getCachedConfiguration(project) == null
+    }
+
+    /**
+     * Loads the cache saved in the Jenkins home into a new descriptor
+     */
+    private static ProjectSeedCacheDescriptor loadCache() {
+        def descriptor = new ProjectSeedCacheDescriptor()
+        // Not started by the constructor
+        assert !descriptor.isLoaded()
+        descriptor.startLoading()
+        descriptor.waitForLoading()
+        return descriptor
+    }
+
+}
@@ -7,6 +7,8 @@ import hudson.model.queue.QueueTaskFuture
 import net.nemerosa.jenkins.seed.config.PipelineConfig
 import net.nemerosa.jenkins.seed.config.ProjectPipelineConfig
 import net.nemerosa.jenkins.seed.generator.ProjectGenerationStep
+import net.nemerosa.jenkins.seed.support.SeedContainer
+import net.nemerosa.jenkins.seed.triggering.DeletionTracker
 import net.nemerosa.jenkins.seed.test.*
 import org.apache.commons.lang.StringUtils
 import org.jvnet.hudson.test.JenkinsRule
@@ -170,6 +172,10 @@ class SeedRule extends JenkinsRule {
     void gone(String path, int timeoutSeconds = 120) {
         info """[job] Testing job presence at ${path}"""
         waitUntilNoActivityUpTo(timeoutSeconds * 1000)
+        // Deletions run in the background
+        if (!SeedContainer.getInstance(DeletionTracker).awaitIdle(timeoutSeconds, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Deletions still pending after ${timeoutSeconds} seconds")
+        }
         if (jenkins.getItemByFullName(path) != null) {
             throw new JenkinsNotGoneException(path)
         }
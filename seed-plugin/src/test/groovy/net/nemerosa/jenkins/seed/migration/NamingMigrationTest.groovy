@@ -0,0 +1,74 @@
+package net.nemerosa.jenkins.seed.migration
+
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig
+import net.nemerosa.jenkins.seed.config.PipelineConfig
+import org.junit.Test
+
+class NamingMigrationTest {
+
+    @Test
+    void 'No change, no move'() {
+        def plan = NamingMigration.plan('test', new PipelineConfig(), new PipelineConfig(), ['master', 'feature/a'])
+        assert plan.empty
+        assert plan.size == 0
+    }
+
+    @Test
+    void 'Branch folder and seed renamed'() {
+        def newConfig = new PipelineConfig().withNamingStrategy(
+                new NamingStrategyConfig()
+                        .withBranchFolderPath('${PROJECT}_*')
+                        .withBranchSeedName('${PROJECT}_*_GENERATOR')
+        )
+        def plan = NamingMigration.plan('test', new PipelineConfig(), newConfig, ['master'])
+        assert plan.projectMoves.empty
+        assert plan.branchMoves == [
+                [
+                        new ItemMove('test/test-master', 'test/TEST_master'),
+                        new ItemMove('test/TEST_master/test-master-seed', 'test/TEST_master/TEST_master_GENERATOR'),
+                ]
+        ]
+    }
+
+    @Test
+    void 'Project folder moved'() {
+        def newConfig = new PipelineConfig().withNamingStrategy(
+                new NamingStrategyConfig().withProjectFolderPath('projects/${project}')
+        )
+        def plan = NamingMigration.plan('test', new PipelineConfig(), newConfig, ['master'])
+        assert plan.projectMoves == [new ItemMove('test', 'projects/test')]
+        assert plan.branchMoves.empty
+    }
+
+    @Test
+    void 'Branch known only by its name'() {
+        def oldConfig = new PipelineConfig().withNamingStrategy(
+                new NamingStrategyConfig().withIgnoredBranchPrefixes('feature/')
+        )
+        def newConfig = oldConfig.withNamingStrategy(
+                oldConfig.namingStrategy.withBranchFolderPath('branches/*')
+        )
+        // 'feature/a' in the SCM, only known as 'a'
+        def plan = NamingMigration.plan('test', oldConfig, newConfig, [], ['a'])
+        assert plan.branchMoves == [
+                [
+                        new ItemMove('test/test-a', 'test/branches/a'),
+                ]
+        ]
+    }
+
+    @Test
+    void 'Branch known only by its name, with a new branch naming'() {
+        def newConfig = new PipelineConfig().withNamingStrategy(
+                new NamingStrategyConfig().withBranchName('b-${branch}')
+        )
+        def plan = NamingMigration.plan('test', new PipelineConfig(), newConfig, [], ['a'])
+        assert plan.branchMoves == [
+                [
+                        new ItemMove('test/test-a', 'test/test-b-a'),
+                        new ItemMove('test/test-b-a/test-a-seed', 'test/test-b-a/test-b-a-seed'),
+                        new ItemMove('test/test-b-a/test-a-build', 'test/test-b-a/test-b-a-build'),
+                ]
+        ]
+    }
+}
@@ -0,0 +1,85 @@
+package net.nemerosa.jenkins.seed.support;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CompiledTemplateTest {
+
+    private static final String[] EXPRESSIONS = {
+            "${project}",
+            "${project}-*",
+            "${PROJECT}/${PROJECT}_*/${PROJECT}_*_GENERATOR",
+            "${Project}-${PROJECT_}-*-seed",
+            "${proj}-*-${project",
+            "*",
+            "",
+    };
+
+    private static final String[] BRANCHES = {
+            "master",
+            "feature-JIRA-1234-my-feature",
+            "release-1.0-rc",
+            "hotfix-2.3.4",
+            "PR-152",
+    };
+
+    @Test
+    public void compiled_once() {
+        assertSame(CompiledTemplate.compile("${project}-*", "project", true), CompiledTemplate.compile("${project}-*", "project", true));
+    }
+
+    @Test
+    public void match_inverse_of_render() {
+        for (String expression : EXPRESSIONS) {
+            CompiledTemplate template = CompiledTemplate.compile(expression, "project", true);
+            for (String branch : BRANCHES) {
+                String rendered = template.render("seed-plugin", branch);
+                if (expression.contains("*")) {
+                    assertEquals(expression, branch, template.match("seed-plugin", rendered));
+                } else {
+                    assertNull(expression, template.match("seed-plugin", rendered));
+                }
+            }
+        }
+        CompiledTemplate template = CompiledTemplate.compile("${project}-*", "project", true);
+        assertNull(template.match("other", "seed-plugin-master"));
+        // Both branch placeholders must match the same branch
+        assertNull(CompiledTemplate.compile("${PROJECT}/${PROJECT}_*/${PROJECT}_*_GENERATOR", "project", true)
+                .match("seed-plugin", "SEED-PLUGIN/SEED-PLUGIN_ab/SEED-PLUGIN_ba_GENERATOR"));
+    }
+
+    @Test
+    public void branch_placeholder_only_when_requested() {
+        assertEquals("test-*", CompiledTemplate.compile("${project}-*", "project").render("test"));
+        assertEquals("test-master", CompiledTemplate.compile("${project}-*", "project", true).render("test", "master"));
+    }
+
+    @Test
+    public void same_result_as_chained_replacements() {
+        for (String expression : EXPRESSIONS) {
+            for (String branch : BRANCHES) {
+                assertEquals(expression + " / " + branch,
+                        chainedReplacements(expression, "branch", branch),
+                        CompiledTemplate.compile(expression, "branch").render(branch));
+                assertEquals(expression + " / " + branch,
+                        chainedReplacements(expression, "project", "my-project").replace("*", branch),
+                        CompiledTemplate.compile(expression, "project", true).render("my-project", branch));
+            }
+        }
+    }
+
+    /**
+     * Previous implementation of the {@link Evaluator}
+     */
+    private static String chainedReplacements(String expression, String name, String value) {
+        return expression
+                .replace("${" + name.toLowerCase() + "}", value.toLowerCase())
+                .replace("${" + name.toUpperCase() + "}", value.toUpperCase())
+                .replace("${" + name.toUpperCase() + "_}", value.toUpperCase().replace("-", "_"))
+                .replace("${" + StringUtils.capitalize(name) + "}", StringUtils.capitalize(value));
+    }
+}
@@ -0,0 +1,17 @@
+package net.nemerosa.jenkins.seed.support;
+
+import net.nemerosa.jenkins.seed.generator.scm.SCMServiceRegistry;
+import net.nemerosa.jenkins.seed.triggering.SeedService;
+import org.junit.Test;
+
+import static org.junit.Assert.assertSame;
+
+public class SeedContainerTest {
+
+    @Test
+    public void services_are_singletons() {
+        assertSame(SeedContainer.getInstance(SeedService.class), SeedContainer.getInstance(SeedService.class));
+        assertSame(SeedContainer.getInstance(SCMServiceRegistry.class), SeedContainer.getInstance(SCMServiceRegistry.class));
+    }
+
+}
@@ -25,6 +25,7 @@ job('${jobName}') {
                 pipelineConfig {
                     destructor ${config.destructor}
                     authorisations '''${config.authorisations ?: ''}'''
+                    compactAuthorisations ${config.compactAuthorisations}
                     branchSCMParameter ${config.branchSCMParameter ?: ''}
                     branchParameters '''${config.branchParameters ?: ''}'''
                     generationExtension '''${config.generationExtension ?: ''}'''
@@ -42,6 +43,8 @@ job('${jobName}') {
                         delete ${config.eventStrategy.delete}
                         auto ${config.eventStrategy.auto}
                         trigger ${config.eventStrategy.trigger}
+                        pullRequestSlots ${config.eventStrategy.pullRequestSlots}
+                        tagPipeline '${config.eventStrategy.tagPipeline ?: ''}'
                     }
                 }
                 project '\${PROJECT}'
@@ -0,0 +1,27 @@
+package net.nemerosa.jenkins.seed.test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal timing harness for the benchmarks. Runs a warm-up phase before measuring and
+ * prints the average time per operation.
+ */
+public class Benchmark {
+
+    private static volatile Object sink;
+
+    public static long measure(String name, int warmup, int iterations, Callable<?> operation) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            sink = operation.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = operation.call();
+        }
+        long average = (System.nanoTime() - start) / iterations;
+        System.out.format("[benchmark] %s: %d ns/op (%d µs/op)%n", name, average, TimeUnit.NANOSECONDS.toMicros(average));
+        return average;
+    }
+
+}
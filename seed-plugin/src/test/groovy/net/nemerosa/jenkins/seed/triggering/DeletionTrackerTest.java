@@ -0,0 +1,122 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DeletionTrackerTest {
+
+    private SeedMetrics metrics;
+    private DeletionTracker tracker;
+
+    @Before
+    public void before() {
+        metrics = new SeedMetrics();
+        tracker = new DeletionTracker(metrics);
+    }
+
+    @Test
+    public void deletion_is_accepted_and_tracked() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        String id = tracker.submit("project/project-master", new DeletionTracker.DeletionTask() {
+            @Override
+            public void run(DeletionStatus status) throws Exception {
+                status.addTotal(1);
+                release.await();
+                status.step();
+            }
+        });
+        assertNotNull(id);
+        assertTrue(tracker.isPendingDeletion("project/project-master"));
+        assertTrue(tracker.isPendingDeletion("project/project-master/project-master-build"));
+        assertFalse(tracker.isPendingDeletion("project/project-master-2"));
+        assertFalse(tracker.isPendingDeletion("project"));
+        assertEquals(1, metrics.get("deletion.active"));
+
+        release.countDown();
+        DeletionStatus status = waitFor(id);
+        assertEquals(DeletionStatus.State.DONE, status.getState());
+        assertEquals(1, status.getCompleted());
+        assertFalse(tracker.isPendingDeletion("project/project-master"));
+        assertEquals(1, metrics.get("deletion.accepted"));
+        assertEquals(1, metrics.get("deletion.completed"));
+        assertEquals(0, metrics.get("deletion.active"));
+    }
+
+    @Test
+    public void failed_deletion() throws Exception {
+        String id = tracker.submit("project/project-master", new DeletionTracker.DeletionTask() {
+            @Override
+            public void run(DeletionStatus status) {
+                throw new IllegalStateException("Cannot delete");
+            }
+        });
+        DeletionStatus status = waitFor(id);
+        assertEquals(DeletionStatus.State.FAILED, status.getState());
+        assertEquals("Cannot delete", status.getError());
+        assertEquals(1, metrics.get("deletion.failed"));
+    }
+
+    @Test
+    public void pending_deletion_of_the_same_path_is_reused() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        DeletionTracker.DeletionTask task = new DeletionTracker.DeletionTask() {
+            @Override
+            public void run(DeletionStatus status) throws Exception {
+                release.await();
+            }
+        };
+        String first = tracker.submit("project/project-master", task);
+        String second = tracker.submit("project/project-master", task);
+        assertEquals(first, second);
+        release.countDown();
+        waitFor(first);
+        assertEquals(1, tracker.getDeletions().size());
+    }
+
+    @Test
+    public void waiting_for_a_deletion() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        DeletionStatus status = tracker.track("project/project-master", new DeletionTracker.DeletionTask() {
+            @Override
+            public void run(DeletionStatus status) throws Exception {
+                release.await();
+            }
+        });
+        assertFalse(status.await(50, TimeUnit.MILLISECONDS));
+        assertFalse(tracker.awaitIdle(50, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(status.await(10, TimeUnit.SECONDS));
+        assertEquals(DeletionStatus.State.DONE, status.getState());
+        assertTrue(tracker.awaitIdle(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void waiting_for_a_failed_deletion() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("Cannot delete");
+        DeletionStatus status = tracker.track("project/project-master", new DeletionTracker.DeletionTask() {
+            @Override
+            public void run(DeletionStatus status) {
+                throw failure;
+            }
+        });
+        assertTrue(status.await(10, TimeUnit.SECONDS));
+        assertEquals(DeletionStatus.State.FAILED, status.getState());
+        assertSame(failure, status.getFailure());
+    }
+
+    private DeletionStatus waitFor(String id) throws InterruptedException {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        DeletionStatus status = tracker.getStatus(id);
+        while (!status.isFinished() && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        return status;
+    }
+
+}
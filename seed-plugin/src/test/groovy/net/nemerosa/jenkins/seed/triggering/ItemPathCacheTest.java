@@ -0,0 +1,134 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ItemPathCacheTest {
+
+    private SeedMetrics metrics;
+    private Map<String, Item> jenkins;
+    private ItemPathCache cache;
+    private ItemPathCache.ItemPathCacheListener listener;
+
+    @Before
+    public void before() {
+        metrics = new SeedMetrics();
+        jenkins = new HashMap<>();
+        cache = new ItemPathCache(metrics) {
+            @Override
+            Item lookup(String path) {
+                return jenkins.get(path);
+            }
+        };
+        listener = new ItemPathCache.ItemPathCacheListener() {
+            @Override
+            ItemPathCache getCache() {
+                return cache;
+            }
+        };
+    }
+
+    private Item item(String fullName) {
+        Item item = mock(Item.class);
+        when(item.getFullName()).thenReturn(fullName);
+        jenkins.put(fullName, item);
+        return item;
+    }
+
+    private Item folder(String fullName) {
+        Item item = mock(Item.class, withSettings().extraInterfaces(ItemGroup.class));
+        when(item.getFullName()).thenReturn(fullName);
+        jenkins.put(fullName, item);
+        return item;
+    }
+
+    @Test
+    public void hits_and_misses() {
+        Item item = item("project/project-master/project-master-build");
+        assertSame(item, cache.getItem("project/project-master/project-master-build"));
+        assertSame(item, cache.getItem("project/project-master/project-master-build"));
+        assertSame(item, cache.getItem("project/project-master/project-master-build"));
+        assertEquals(2, metrics.get("itemPathCache.hits"));
+        assertEquals(1, metrics.get("itemPathCache.misses"));
+        assertEquals(1, metrics.get("itemPathCache.size"));
+    }
+
+    @Test
+    public void missing_items_are_not_cached() {
+        assertNull(cache.getItem("project/project-master/project-master-build"));
+        assertNull(cache.getItem("project/project-master/project-master-build"));
+        assertEquals(0, metrics.get("itemPathCache.hits"));
+        assertEquals(2, metrics.get("itemPathCache.misses"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void invalidation_on_delete() {
+        Item folder = folder("project/project-master");
+        item("project/project-master/project-master-build");
+        item("project/project-master-2");
+        cache.getItem("project/project-master");
+        cache.getItem("project/project-master/project-master-build");
+        cache.getItem("project/project-master-2");
+        jenkins.remove("project/project-master");
+        jenkins.remove("project/project-master/project-master-build");
+        listener.onDeleted(folder);
+        assertNull(cache.getItem("project/project-master"));
+        assertNull(cache.getItem("project/project-master/project-master-build"));
+        // Not under the deleted folder
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void invalidation_on_rename() {
+        Item item = item("project/project-master/project-master-build");
+        cache.getItem("project/project-master/project-master-build");
+        jenkins.remove("project/project-master/project-master-build");
+        listener.onRenamed(item, "project-master-build", "project-master-start");
+        assertNull(cache.getItem("project/project-master/project-master-build"));
+    }
+
+    @Test
+    public void invalidation_on_move() {
+        Item folder = folder("project/project-master");
+        item("project/project-master/project-master-build");
+        cache.getItem("project/project-master");
+        cache.getItem("project/project-master/project-master-build");
+        jenkins.clear();
+        Item moved = folder("project/branches/project-master");
+        listener.onLocationChanged(moved, "project/project-master", "project/branches/project-master");
+        assertNull(cache.getItem("project/project-master"));
+        assertNull(cache.getItem("project/project-master/project-master-build"));
+        assertSame(moved, cache.getItem("project/branches/project-master"));
+        assertNotSame(folder, moved);
+    }
+
+    @Test
+    public void item_invalidated_during_its_lookup_is_not_cached() {
+        final Item item = item("project/project-master/project-master-build");
+        cache = new ItemPathCache(metrics) {
+            @Override
+            Item lookup(String path) {
+                Item found = jenkins.get(path);
+                // Deleted between the lookup and the put
+                jenkins.remove(path);
+                invalidate(path, false);
+                return found;
+            }
+        };
+        assertSame(item, cache.getItem("project/project-master/project-master-build"));
+        assertEquals(0, cache.getSize());
+        assertNull(cache.getItem("project/project-master/project-master-build"));
+    }
+}
@@ -0,0 +1,111 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCache;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import net.nemerosa.jenkins.seed.triggering.connector.SeedNotReadyException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SeedEventBufferTest {
+
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    private final ProjectSeedCache seedCache = new ProjectSeedCache() {
+        @Override
+        public ProjectCachedConfig getProjectPipelineConfig(String project) {
+            return null;
+        }
+
+        @Override
+        public String getPullRequestSlot(String project, String branch) {
+            return null;
+        }
+
+        @Override
+        public String leasePullRequestSlot(String project, String branch, int size) {
+            return null;
+        }
+
+        @Override
+        public String releasePullRequestSlot(String project, String branch) {
+            return null;
+        }
+
+        @Override
+        public boolean isReady() {
+            return loaded.getCount() == 0;
+        }
+
+        @Override
+        public void awaitReady() throws InterruptedException {
+            loaded.await();
+        }
+    };
+
+    private final SeedMetrics metrics = new SeedMetrics();
+
+    private final List<String> handled = Collections.synchronizedList(new ArrayList<String>());
+
+    private final CountDownLatch drained = new CountDownLatch(3);
+
+    private final SeedEventBuffer.Handler handler = new SeedEventBuffer.Handler() {
+        @Override
+        public void handle(SeedEvent event) {
+            handled.add(event.getBranch());
+            drained.countDown();
+        }
+    };
+
+    @Test
+    public void events_are_held_until_the_cache_is_ready() throws InterruptedException {
+        SeedEventBuffer buffer = new SeedEventBuffer(seedCache, metrics);
+        assertTrue(buffer.buffer(event("b1"), handler));
+        assertTrue(buffer.buffer(event("b2"), handler));
+        assertTrue(buffer.buffer(event("b3"), handler));
+        assertEquals(3, buffer.size());
+        assertEquals(3, metrics.get("eventBuffer.size"));
+        assertTrue(handled.isEmpty());
+
+        loaded.countDown();
+        drained.await();
+        assertEquals(Arrays.asList("b1", "b2", "b3"), handled);
+        assertEquals(3, metrics.get("eventBuffer.buffered"));
+    }
+
+    @Test
+    public void events_are_rejected_when_the_buffer_is_full() {
+        SeedEventBuffer buffer = new SeedEventBuffer(seedCache, metrics);
+        try {
+            for (int i = 0; i < 1001; i++) {
+                buffer.buffer(event("b" + i), handler);
+            }
+            fail("Buffer should be full");
+        } catch (SeedNotReadyException ignored) {
+            assertEquals(1000, buffer.size());
+            assertEquals(1, metrics.get("eventBuffer.rejected"));
+        }
+    }
+
+    @Test
+    public void events_are_not_held_when_the_cache_is_ready() {
+        loaded.countDown();
+        SeedEventBuffer buffer = new SeedEventBuffer(seedCache, metrics);
+        assertFalse(buffer.buffer(event("b1"), handler));
+        assertEquals(0, buffer.size());
+    }
+
+    private static SeedEvent event(String branch) {
+        return new SeedEvent("project", branch, SeedEventType.COMMIT, SeedChannel.SYSTEM);
+    }
+}
@@ -0,0 +1,179 @@
+package net.nemerosa.jenkins.seed.triggering;
+
+import net.nemerosa.jenkins.seed.Constants;
+import net.nemerosa.jenkins.seed.cache.ProjectCachedConfig;
+import net.nemerosa.jenkins.seed.cache.ProjectSeedCache;
+import net.nemerosa.jenkins.seed.config.EventStrategyConfig;
+import net.nemerosa.jenkins.seed.config.NamingStrategyConfig;
+import net.nemerosa.jenkins.seed.config.ProjectSeed;
+import net.nemerosa.jenkins.seed.hibernation.BranchHibernation;
+import net.nemerosa.jenkins.seed.support.SeedMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class SeedServiceImplTest {
+
+    private static final SeedChannel CHANNEL = SeedChannel.of("test", "Test");
+
+    private SeedLauncher seedLauncher;
+    private ProjectSeedCache seedCache;
+    private BranchHibernation branchHibernation;
+    private SeedService service;
+
+    @Before
+    public void before() {
+        seedLauncher = mock(SeedLauncher.class);
+        seedCache = mock(ProjectSeedCache.class);
+        branchHibernation = mock(BranchHibernation.class);
+        // Cache loaded, events not buffered
+        service = new SeedServiceImpl(seedLauncher, seedCache, branchHibernation, mock(SeedEventBuffer.class), new SeedMetrics());
+    }
+
+    private ProjectCachedConfig config(EventStrategyConfig eventStrategy) {
+        ProjectCachedConfig config = new ProjectCachedConfig(
+                new ProjectSeed("project", "", "test", ""),
+                new NamingStrategyConfig(),
+                eventStrategy
+        );
+        when(seedCache.getProjectPipelineConfig("project")).thenReturn(config);
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> verifyLaunch(String path) {
+        ArgumentCaptor<Map<String, String>> parameters = ArgumentCaptor.forClass(Map.class);
+        verify(seedLauncher).launch(eq(CHANNEL), eq(path), parameters.capture());
+        return parameters.getValue();
+    }
+
+    @Test
+    public void pull_request_seed_leases_a_slot() {
+        ProjectCachedConfig config = config(new EventStrategyConfig().withPullRequestSlots(2));
+        when(seedCache.leasePullRequestSlot("project", "feature/x", 2)).thenReturn("pr-1");
+
+        service.post(new SeedEvent("project", "feature/x", SeedEventType.SEED, CHANNEL)
+                .withParam(Constants.PULL_REQUEST_ID_PARAMETER, "12"));
+
+        // Project seed relaunched for the slot
+        Map<String, String> parameters = verifyLaunch(config.getProjectSeedJob());
+        assertEquals("feature/x", parameters.get(Constants.BRANCH_PARAMETER));
+        assertEquals("pr-1", parameters.get(Constants.PIPELINE_SLOT_PARAMETER));
+        assertEquals("12", parameters.get(Constants.PULL_REQUEST_ID_PARAMETER));
+        verifyZeroInteractions(branchHibernation);
+    }
+
+    @Test
+    public void pull_request_seed_with_a_leased_slot_regenerates_the_slot() {
+        ProjectCachedConfig config = config(new EventStrategyConfig().withPullRequestSlots(2));
+        when(seedCache.getPullRequestSlot("project", "feature/x")).thenReturn("pr-1");
+
+        service.post(new SeedEvent("project", "feature/x", SeedEventType.SEED, CHANNEL)
+                .withParam(Constants.PULL_REQUEST_ID_PARAMETER, "12"));
+
+        verify(seedCache, never()).leasePullRequestSlot(anyString(), anyString(), anyInt());
+        verifyLaunch(config.getBranchSeedJob("pr-1"));
+        verify(branchHibernation).touch(config.getBranchFolder("pr-1"));
+    }
+
+    @Test
+    public void closed_pull_request_releases_its_slot() {
+        config(new EventStrategyConfig().withPullRequestSlots(2));
+        when(seedCache.getPullRequestSlot("project", "feature/x")).thenReturn("pr-1");
+
+        service.post(new SeedEvent("project", "feature/x", SeedEventType.SEED, CHANNEL)
+                .withParam(Constants.PULL_REQUEST_ID_PARAMETER, ""));
+
+        verify(seedCache).releasePullRequestSlot("project", "feature/x");
+        verifyZeroInteractions(seedLauncher, branchHibernation);
+    }
+
+    @Test
+    public void deleted_branch_releases_its_slot() {
+        config(new EventStrategyConfig().withPullRequestSlots(2));
+        when(seedCache.getPullRequestSlot("project", "feature/x")).thenReturn("pr-1");
+
+        service.post(new SeedEvent("project", "feature/x", SeedEventType.DELETION, CHANNEL));
+
+        // The slot pipeline is kept for the next pull request
+        verify(seedCache).releasePullRequestSlot("project", "feature/x");
+        verifyZeroInteractions(seedLauncher, branchHibernation);
+    }
+
+    @Test
+    public void pull_request_gets_its_own_pipeline_when_all_slots_are_taken() {
+        ProjectCachedConfig config = config(new EventStrategyConfig().withPullRequestSlots(2));
+        when(seedCache.leasePullRequestSlot("project", "feature/x", 2)).thenReturn(null);
+
+        service.post(new SeedEvent("project", "feature/x", SeedEventType.SEED, CHANNEL)
+                .withParam(Constants.PULL_REQUEST_ID_PARAMETER, "12"));
+
+        // Branch seed of its own pipeline
+        Map<String, String> parameters = verifyLaunch(config.getBranchSeedJob("feature/x"));
+        assertFalse(parameters.containsKey(Constants.PIPELINE_SLOT_PARAMETER));
+        verify(branchHibernation).touch(config.getBranchFolder("feature/x"));
+    }
+
+    @Test
+    public void tag_creation_launches_the_tag_pipeline() {
+        ProjectCachedConfig config = config(new EventStrategyConfig().withTagPipeline("release"));
+
+        service.post(new SeedEvent("project", "1.0.0", SeedEventType.CREATION, CHANNEL, true));
+
+        Map<String, String> parameters = verifyLaunch(config.getTagPipelineJob());
+        assertEquals("project/release", config.getTagPipelineJob());
+        assertEquals("1.0.0", parameters.get(Constants.TAG_PARAMETER));
+        assertEquals("HEAD", parameters.get(Constants.COMMIT_PARAMETER));
+        assertEquals("true", parameters.get(Constants.IS_TAG_PARAMETER));
+        // No pipeline for the tag
+        verifyZeroInteractions(branchHibernation);
+    }
+
+    @Test
+    public void tag_commit_launches_the_tag_pipeline_with_the_commit() {
+        ProjectCachedConfig config = config(new EventStrategyConfig().withTagPipeline("release"));
+
+        service.post(new SeedEvent("project", "1.0.0", SeedEventType.COMMIT, CHANNEL, true)
+                .withParam(Constants.COMMIT_PARAMETER, "abcdef"));
+
+        Map<String, String> parameters = verifyLaunch(config.getTagPipelineJob());
+        assertEquals("1.0.0", parameters.get(Constants.TAG_PARAMETER));
+        assertEquals("abcdef", parameters.get(Constants.COMMIT_PARAMETER));
+        verifyZeroInteractions(branchHibernation);
+    }
+
+    @Test
+    public void tag_seed_and_deletion_are_ignored() {
+        config(new EventStrategyConfig().withTagPipeline("release"));
+
+        service.post(new SeedEvent("project", "1.0.0", SeedEventType.SEED, CHANNEL, true));
+        service.post(new SeedEvent("project", "1.0.0", SeedEventType.DELETION, CHANNEL, true));
+
+        verifyZeroInteractions(seedLauncher, branchHibernation);
+    }
+
+    @Test
+    public void tag_managed_like_a_branch_without_tag_pipeline() {
+        ProjectCachedConfig config = config(new EventStrategyConfig());
+
+        service.post(new SeedEvent("project", "1.0.0", SeedEventType.CREATION, CHANNEL, true));
+
+        Map<String, String> parameters = verifyLaunch(config.getProjectSeedJob());
+        assertEquals("1.0.0", parameters.get(Constants.BRANCH_PARAMETER));
+        assertFalse(parameters.containsKey(Constants.TAG_PARAMETER));
+    }
+
+}
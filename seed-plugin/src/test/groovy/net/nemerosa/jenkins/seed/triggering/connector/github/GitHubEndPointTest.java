@@ -4,9 +4,11 @@ import net.nemerosa.jenkins.seed.triggering.SeedChannel;
 import net.nemerosa.jenkins.seed.triggering.SeedEvent;
 import net.nemerosa.jenkins.seed.triggering.SeedEventType;
 import net.nemerosa.jenkins.seed.triggering.SeedService;
+import net.nemerosa.jenkins.seed.triggering.connector.RequestNonAuthorizedException;
 import org.junit.Test;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.ArgumentCaptor;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -14,6 +16,8 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 
 import static net.nemerosa.jenkins.seed.triggering.connector.EndPointTestSupport.mockStaplerResponse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class GitHubEndPointTest {
@@ -140,16 +144,25 @@ public class GitHubEndPointTest {
         StaplerResponse response = mockStaplerResponse();
         StaplerRequest request = mockGitHubRequest("push", "/github-payload-commit-signed.json");
         when(request.getHeader("X-Hub-Signature")).thenReturn("sha1=0cc69a00e5cb96e2459a740ce144e5ced4bd94ac");
-        when(seedService.getSecretKey("nemerosa/seed-demo", "github")).thenReturn("ABCDEF123456");
 
         getEndPoints(seedService).doDynamic(request, response);
-        verify(seedService, times(1)).post(
+        ArgumentCaptor<SeedEvent> event = ArgumentCaptor.forClass(SeedEvent.class);
+        verify(seedService, times(1)).post(event.capture());
+        assertEquals(
                 new SeedEvent(
                         "nemerosa/seed-demo",
                         "master",
                         SeedEventType.COMMIT,
                         GITHUB_CHANNEL)
-                        .withParam("commit", "a10c3027a04ab066adc7a2a3d4735a7026fc1c59"));
+                        .withParam("commit", "a10c3027a04ab066adc7a2a3d4735a7026fc1c59"),
+                event.getValue());
+        // The signature is checked when the event is processed
+        event.getValue().getSecretCheck().check("ABCDEF123456");
+        try {
+            event.getValue().getSecretCheck().check("123456ABCDEF");
+            fail("The signature must not match another key");
+        } catch (RequestNonAuthorizedException ignored) {
+        }
     }
 
     protected GitHubEndPoint getEndPoints(SeedService seedService) {
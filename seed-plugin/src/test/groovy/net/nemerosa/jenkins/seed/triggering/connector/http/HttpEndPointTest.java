@@ -5,17 +5,20 @@ import net.nemerosa.jenkins.seed.triggering.SeedChannel;
 import net.nemerosa.jenkins.seed.triggering.SeedEvent;
 import net.nemerosa.jenkins.seed.triggering.SeedEventType;
 import net.nemerosa.jenkins.seed.triggering.SeedService;
+import net.nemerosa.jenkins.seed.triggering.connector.RequestNonAuthorizedException;
 import net.nemerosa.jenkins.seed.triggering.connector.UnknownRequestException;
 import org.junit.Before;
 import org.junit.Test;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
 
 import static net.nemerosa.jenkins.seed.triggering.connector.EndPointTestSupport.mockStaplerResponse;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class HttpEndPointTest {
@@ -172,12 +175,16 @@ public class HttpEndPointTest {
         when(request.getRestOfPath()).thenReturn("/commit");
         when(request.getParameter("project")).thenReturn("nemerosa/seed");
         when(request.getParameter("branch")).thenReturn("master");
-        // Service mock
-        when(seedService.getSecretKey("nemerosa/seed", "http")).thenReturn("ABCDEF123456");
         // Call
         endPoint.doDynamic(request, response);
-        // Verifying
-        verify(seedService, never()).post(any(SeedEvent.class));
+        // The token is checked when the event is processed
+        ArgumentCaptor<SeedEvent> event = ArgumentCaptor.forClass(SeedEvent.class);
+        verify(seedService, times(1)).post(event.capture());
+        try {
+            event.getValue().getSecretCheck().check("ABCDEF123456");
+            fail("The missing token must be rejected");
+        } catch (RequestNonAuthorizedException ignored) {
+        }
     }
 
     @Test
@@ -204,18 +211,21 @@ public class HttpEndPointTest {
         when(request.getParameter("project")).thenReturn("nemerosa/seed");
         when(request.getParameter("branch")).thenReturn("master");
         when(request.getHeader("X-Seed-Token")).thenReturn("ABCDEF123456");
-        // Service mock
-        when(seedService.getSecretKey("nemerosa/seed", "http")).thenReturn("ABCDEF123456");
         // Call
         endPoint.doDynamic(request, response);
         // Verifying
-        verify(seedService, times(1)).post(
+        ArgumentCaptor<SeedEvent> event = ArgumentCaptor.forClass(SeedEvent.class);
+        verify(seedService, times(1)).post(event.capture());
+        assertEquals(
                 new SeedEvent(
                         "nemerosa/seed",
                         "master",
                         SeedEventType.COMMIT,
-                        HTTP_CHANNEL)
+                        HTTP_CHANNEL),
+                event.getValue()
         );
+        // The token matches the secret key
+        event.getValue().getSecretCheck().check("ABCDEF123456");
     }
 
 }